@@ -0,0 +1,122 @@
+/*
+ * #%L
+ * JavaCreed CSV API
+ * %%
+ * Copyright (C) 2012 - 2015 Java Creed
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.javacreed.api.csv.common;
+
+import java.util.Objects;
+
+import net.jcip.annotations.Immutable;
+import net.jcip.annotations.ThreadSafe;
+
+/**
+ * A handle to a column, by name, that resolves the column index once per {@link Headers} rather than every time a value
+ * is read or written. The handles are meant to be created once, such as constants, and then used for every line in
+ * place of the column name, as shown next.
+ *
+ * <pre>
+ * private static final ColumnRef PRICE = new ColumnRef("price");
+ *
+ * final double price = line.getDouble(PRICE);
+ * </pre>
+ * <p>
+ * The handle remembers the last headers it was resolved against, compared by identity, together with the column index.
+ * Using the same handle with different headers works, but resolves the index again every time the headers change.
+ *
+ * @author Albert Attard
+ */
+@ThreadSafe
+public class ColumnRef {
+
+  /**
+   * The headers and the column index resolved against these
+   */
+  @Immutable
+  private static class Resolution {
+
+    private final Headers headers;
+
+    private final int columnIndex;
+
+    private Resolution(final Headers headers, final int columnIndex) {
+      this.headers = headers;
+      this.columnIndex = columnIndex;
+    }
+  }
+
+  private final String columnName;
+
+  /**
+   * The last resolution, which may be {@code null}. Races are harmless as the resolution is immutable and at worst the
+   * index is resolved more than once.
+   */
+  private Resolution resolution;
+
+  /**
+   * Creates an instance of this class
+   *
+   * @param columnName
+   *          the column name (which cannot be {@code null})
+   * @throws NullPointerException
+   *           if the given {@code columnName} is {@code null}
+   */
+  public ColumnRef(final String columnName) throws NullPointerException {
+    this.columnName = Objects.requireNonNull(columnName);
+  }
+
+  /**
+   * Returns the column name
+   *
+   * @return the column name
+   */
+  public String getColumnName() {
+    return columnName;
+  }
+
+  /**
+   * Returns the index of this column within the given headers, which is only looked up when different headers from the
+   * last ones are given
+   *
+   * @param headers
+   *          the headers (which cannot be {@code null})
+   * @return the index of this column
+   * @throws CsvColumnNotFoundException
+   *           if no column is found with this name
+   * @throws UnsupportedOperationException
+   *           if the CVS does not provide column names
+   * @throws NullPointerException
+   *           if the given {@code headers} are {@code null}
+   * @see Headers#indexOf(String)
+   */
+  public int indexIn(final Headers headers)
+      throws CsvColumnNotFoundException, UnsupportedOperationException, NullPointerException {
+    final Resolution resolution = this.resolution;
+    if (resolution != null && resolution.headers == headers) {
+      return resolution.columnIndex;
+    }
+
+    final int columnIndex = headers.indexOf(columnName);
+    this.resolution = new Resolution(headers, columnIndex);
+    return columnIndex;
+  }
+
+  @Override
+  public String toString() {
+    return columnName;
+  }
+}
@@ -176,8 +176,9 @@ public class DefaultHeaders implements Headers {
 
   @Override
   public int indexOf(final String columnName) {
-    if (columnsIndices.containsKey(columnName)) {
-      return columnsIndices.get(columnName);
+    final Integer columnIndex = columnsIndices.get(columnName);
+    if (columnIndex != null) {
+      return columnIndex;
     }
 
     throw new CsvColumnNotFoundException(columnName);
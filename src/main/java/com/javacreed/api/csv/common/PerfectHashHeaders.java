@@ -0,0 +1,375 @@
+/*
+ * #%L
+ * JavaCreed CSV API
+ * %%
+ * Copyright (C) 2012 - 2015 Java Creed
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.javacreed.api.csv.common;
+
+import java.util.Arrays;
+
+import net.jcip.annotations.Immutable;
+import net.jcip.annotations.ThreadSafe;
+
+/**
+ * A {@link Headers} implementation that looks up the column names in a collision-free hash table, built when the
+ * headers are created. Every column name has its own slot in the table and thus a lookup hashes the given name once
+ * and compares it with at most one column name. The column indices are kept as {@code int}s and are never boxed. This
+ * suits headers with many columns, such as scientific exports with thousands of columns, where the lookups of the
+ * {@link DefaultHeaders} show up.
+ * <p>
+ * The table is built using the hash and displace method. The names are first grouped into small buckets by their hash.
+ * Then, starting from the largest bucket, every bucket is given a displacement that places all its names into free
+ * slots. A lookup finds the name's bucket, mixes the name's hash with the bucket's displacement and checks the one
+ * slot this points to.
+ * <p>
+ * The lookup can be case-insensitive, in which case the characters are compared as done by
+ * {@link String#CASE_INSENSITIVE_ORDER}, one {@code char} at a time.
+ * <p>
+ * Note that this class is immutable but the headers passed to the constructors are not copied. If the array is
+ * modified outside this class, the lookups will not work as expected.
+ *
+ * @author Albert Attard
+ * @see DefaultHeaders
+ */
+@ThreadSafe
+@Immutable
+public class PerfectHashHeaders implements Headers {
+
+  /**
+   * The slots of the names and the displacements of the buckets built using one of the {@link #MULTIPLIERS}
+   */
+  private static class Table {
+
+    private final int multiplier;
+
+    private final int[] displacements;
+
+    private final int[] slotHashes;
+
+    private final int[] slotIndices;
+
+    private Table(final int multiplier, final int[] displacements, final int[] slotHashes, final int[] slotIndices) {
+      this.multiplier = multiplier;
+      this.displacements = displacements;
+      this.slotHashes = slotHashes;
+      this.slotIndices = slotIndices;
+    }
+  }
+
+  /**
+   * The multipliers used to hash the names. The next multiplier is used when two different names have the same hash,
+   * as these cannot be placed in different slots.
+   */
+  private static final int[] MULTIPLIERS = { 31, 0x01000193, 0x5BD1E995, 0x27D4EB2D, 0x165667B1 };
+
+  /** The number of displacements tried for a bucket before the next multiplier is used */
+  private static final int MAX_DISPLACEMENTS = 1 << 16;
+
+  /**
+   * Builds the table using the given multiplier, or returns {@code null} if two different names have the same hash or
+   * a bucket cannot be placed
+   *
+   * @param headers
+   *          the column names
+   * @param caseSensitive
+   *          whether the names are case-sensitive
+   * @param multiplier
+   *          the multiplier used to hash the names
+   * @return the table or {@code null} if the table cannot be built with the given multiplier
+   * @throws DuplicateCsvColumnNameException
+   *           if two names are the same
+   */
+  private static Table build(final String[] headers, final boolean caseSensitive, final int multiplier)
+      throws DuplicateCsvColumnNameException {
+    final int size = headers.length;
+    final int[] hashes = new int[size];
+    for (int i = 0; i < size; i++) {
+      hashes[i] = PerfectHashHeaders.hash(headers[i], caseSensitive, multiplier);
+    }
+
+    /* The table has at least twice as many slots as names and about four names per bucket */
+    final int slots = Math.max(2, Integer.highestOneBit(Math.max(1, size) * 4 - 1));
+    final int[] displacements = new int[Math.max(1, slots / 8)];
+    final int bucketMask = displacements.length - 1;
+
+    /* Link the names of every bucket and count them */
+    final int[] heads = new int[displacements.length];
+    final int[] bucketSizes = new int[displacements.length];
+    final int[] next = new int[size];
+    Arrays.fill(heads, -1);
+    int maxBucketSize = 0;
+    for (int i = size - 1; i >= 0; i--) {
+      final int bucket = hashes[i] & bucketMask;
+      next[i] = heads[bucket];
+      heads[bucket] = i;
+      maxBucketSize = Math.max(maxBucketSize, ++bucketSizes[bucket]);
+    }
+
+    /* Sort the buckets by size, largest first, as these are harder to place */
+    final int[] starts = new int[maxBucketSize + 2];
+    for (final int bucketSize : bucketSizes) {
+      starts[maxBucketSize - bucketSize + 1]++;
+    }
+    for (int i = 1; i < starts.length; i++) {
+      starts[i] += starts[i - 1];
+    }
+    final int[] order = new int[displacements.length];
+    for (int bucket = 0; bucket < displacements.length; bucket++) {
+      order[starts[maxBucketSize - bucketSizes[bucket]]++] = bucket;
+    }
+
+    final int[] slotHashes = new int[slots];
+    final int[] slotIndices = new int[slots];
+    Arrays.fill(slotIndices, -1);
+    final int slotMask = slots - 1;
+    for (final int bucket : order) {
+      if (bucketSizes[bucket] == 0) {
+        break;
+      }
+
+      for (int i = heads[bucket]; i != -1; i = next[i]) {
+        for (int j = next[i]; j != -1; j = next[j]) {
+          if (hashes[i] == hashes[j]) {
+            if (PerfectHashHeaders.matches(headers[i], headers[j], caseSensitive)) {
+              throw new DuplicateCsvColumnNameException(headers[j]);
+            }
+            return null;
+          }
+        }
+      }
+
+      if (false == PerfectHashHeaders.place(heads[bucket], next, hashes, slotIndices, slotMask, displacements,
+          bucket)) {
+        return null;
+      }
+    }
+
+    for (int i = 0; i < slots; i++) {
+      if (slotIndices[i] != -1) {
+        slotHashes[i] = hashes[slotIndices[i]];
+      }
+    }
+    return new Table(multiplier, displacements, slotHashes, slotIndices);
+  }
+
+  /**
+   * Folds the case of the given character such that two characters which are equal ignoring the case have the same
+   * folded character
+   *
+   * @param c
+   *          the character
+   * @return the folded character
+   */
+  private static char fold(final char c) {
+    if (c < 128) {
+      return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+    return Character.toLowerCase(Character.toUpperCase(c));
+  }
+
+  /**
+   * Hashes the given name
+   *
+   * @param name
+   *          the name (which cannot be {@code null})
+   * @param caseSensitive
+   *          whether the case of the characters is hashed
+   * @param multiplier
+   *          the multiplier applied for every character
+   * @return the hash
+   * @throws NullPointerException
+   *           if the given name is {@code null}
+   */
+  private static int hash(final String name, final boolean caseSensitive, final int multiplier)
+      throws NullPointerException {
+    int hash = 0;
+    for (int i = 0, length = name.length(); i < length; i++) {
+      final char c = name.charAt(i);
+      hash = hash * multiplier + (caseSensitive ? c : PerfectHashHeaders.fold(c));
+    }
+    return hash;
+  }
+
+  /**
+   * Returns {@code true} if the given names are the same, {@code false} otherwise
+   *
+   * @param a
+   *          a name (which cannot be {@code null})
+   * @param b
+   *          another name (which cannot be {@code null})
+   * @param caseSensitive
+   *          whether the case of the characters is compared
+   * @return {@code true} if the given names are the same, {@code false} otherwise
+   */
+  private static boolean matches(final String a, final String b, final boolean caseSensitive) {
+    if (caseSensitive) {
+      return a.equals(b);
+    }
+
+    final int length = a.length();
+    if (length != b.length()) {
+      return false;
+    }
+    for (int i = 0; i < length; i++) {
+      final char x = a.charAt(i);
+      final char y = b.charAt(i);
+      if (x != y && PerfectHashHeaders.fold(x) != PerfectHashHeaders.fold(y)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Finds a displacement that places all the names of a bucket into free slots and places these
+   *
+   * @return {@code true} if the bucket is placed, {@code false} if no displacement is found
+   */
+  private static boolean place(final int head, final int[] next, final int[] hashes, final int[] slotIndices,
+      final int slotMask, final int[] displacements, final int bucket) {
+    for (int displacement = 0; displacement < PerfectHashHeaders.MAX_DISPLACEMENTS; displacement++) {
+      int placed = head;
+      for (; placed != -1; placed = next[placed]) {
+        final int slot = PerfectHashHeaders.slot(hashes[placed], displacement, slotMask);
+        if (slotIndices[slot] != -1) {
+          break;
+        }
+        slotIndices[slot] = placed;
+      }
+
+      if (placed == -1) {
+        displacements[bucket] = displacement;
+        return true;
+      }
+
+      /* Undo the names placed before the one that failed */
+      for (int i = head; i != placed; i = next[i]) {
+        slotIndices[PerfectHashHeaders.slot(hashes[i], displacement, slotMask)] = -1;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns the slot of the given hash for the given displacement
+   *
+   * @param hash
+   *          the hash of the name
+   * @param displacement
+   *          the displacement of the name's bucket
+   * @param slotMask
+   *          the number of slots less one
+   * @return the slot
+   */
+  private static int slot(final int hash, final int displacement, final int slotMask) {
+    int mixed = hash ^ displacement * 0x9E3779B9;
+    mixed ^= mixed >>> 16;
+    mixed *= 0x85EBCA6B;
+    mixed ^= mixed >>> 13;
+    return mixed & slotMask;
+  }
+
+  private final String[] headers;
+
+  private final boolean caseSensitive;
+
+  /** The multiplier used to hash the names */
+  private final int multiplier;
+
+  /** The displacement of every bucket, which length is a power of two */
+  private final int[] displacements;
+
+  /** The hash of the name in every slot, used to reject most of the missing names without comparing these */
+  private final int[] slotHashes;
+
+  /** The column index of the name in every slot or -1 if the slot is free, which length is a power of two */
+  private final int[] slotIndices;
+
+  /**
+   * Creates an instance of this class
+   *
+   * @param caseSensitive
+   *          {@code true} if the columns lookup will be case-sensitive, otherwise {@code false}
+   * @param headers
+   *          the headers array (which cannot be {@code null} and cannot have {@code null} values)
+   * @throws NullPointerException
+   *           if the given {@code headers} are {@code null} or have {@code null} values
+   * @throws DuplicateCsvColumnNameException
+   *           if the given {@code headers} contain duplicate names
+   */
+  public PerfectHashHeaders(final boolean caseSensitive, final String... headers)
+      throws NullPointerException, DuplicateCsvColumnNameException {
+    this.headers = headers;
+    this.caseSensitive = caseSensitive;
+
+    for (final int multiplier : PerfectHashHeaders.MULTIPLIERS) {
+      final Table table = PerfectHashHeaders.build(headers, caseSensitive, multiplier);
+      if (table != null) {
+        this.multiplier = table.multiplier;
+        this.displacements = table.displacements;
+        this.slotHashes = table.slotHashes;
+        this.slotIndices = table.slotIndices;
+        return;
+      }
+    }
+
+    throw new IllegalStateException("Failed to build the headers lookup table");
+  }
+
+  /**
+   * Creates an instance of this class with case-insensitive lookups
+   *
+   * @param headers
+   *          the header (which cannot be {@code null}, cannot have {@code null} values and cannot have duplicate
+   *          (case-insensitive) values)
+   * @throws NullPointerException
+   *           if the given {@code headers} is {@code null} or has {@code null} values
+   * @throws DuplicateCsvColumnNameException
+   *           if the given {@code headers} contains duplicate (case-insensitive) values
+   */
+  public PerfectHashHeaders(final String... headers) throws NullPointerException, DuplicateCsvColumnNameException {
+    this(false, headers);
+  }
+
+  /**
+   * Returns a copy of the headers
+   *
+   * @return a copy of the headers
+   */
+  public String[] getHeaders() {
+    return Arrays.copyOf(headers, headers.length);
+  }
+
+  @Override
+  public int indexOf(final String columnName) throws CsvColumnNotFoundException, NullPointerException {
+    final int hash = PerfectHashHeaders.hash(columnName, caseSensitive, multiplier);
+    final int slot = PerfectHashHeaders.slot(hash, displacements[hash & displacements.length - 1],
+        slotIndices.length - 1);
+    final int columnIndex = slotIndices[slot];
+    if (columnIndex != -1 && slotHashes[slot] == hash
+        && PerfectHashHeaders.matches(headers[columnIndex], columnName, caseSensitive)) {
+      return columnIndex;
+    }
+
+    throw new CsvColumnNotFoundException(columnName);
+  }
+
+  @Override
+  public int size() {
+    return headers.length;
+  }
+}
@@ -0,0 +1,278 @@
+/*
+ * #%L
+ * JavaCreed CSV API
+ * %%
+ * Copyright (C) 2012 - 2015 Java Creed
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.javacreed.api.csv.reader;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Objects;
+
+import com.javacreed.api.csv.common.ColumnRef;
+import com.javacreed.api.csv.common.Headers;
+
+/**
+ * The skeleton of a {@link CsvLine} which resolves the column names using the headers and parses the values returned by
+ * {@link #getChars(int)}. The primitive values and the dates are parsed directly from these characters, without
+ * creating a {@link String} where possible, and the primitive values are not boxed.
+ *
+ * @author Albert Attard
+ */
+public abstract class AbstractCsvLine implements CsvLine {
+
+  private final Headers headers;
+
+  public AbstractCsvLine(final Headers headers) throws NullPointerException {
+    this.headers = Objects.requireNonNull(headers);
+  }
+
+  @Override
+  public boolean getBoolean(final ColumnRef column) throws CsvParserException {
+    final CharSequence value = getChars(column.indexIn(headers));
+    try {
+      return ParseUtils.parseBoolean(value);
+    } catch (final Exception e) {
+      throw ParseUtils.failToParse(column.getColumnName(), value, e);
+    }
+  }
+
+  @Override
+  public boolean getBoolean(final int columnIndex) throws CsvParserException {
+    final CharSequence value = getChars(columnIndex);
+    try {
+      return ParseUtils.parseBoolean(value);
+    } catch (final Exception e) {
+      throw ParseUtils.failToParse(columnIndex, value, e);
+    }
+  }
+
+  @Override
+  public boolean getBoolean(final String columnName) throws CsvParserException {
+    final CharSequence value = getChars(headers.indexOf(columnName));
+    try {
+      return ParseUtils.parseBoolean(value);
+    } catch (final Exception e) {
+      throw ParseUtils.failToParse(columnName, value, e);
+    }
+  }
+
+  /**
+   * Returns the characters of the value of the column with the given index. The returned characters are only valid
+   * until the next invocation of this method. By default, this method returns the value as returned by
+   * {@link #getValue(int)}, while subclasses can avoid creating a {@link String}.
+   *
+   * @param columnIndex
+   *          the column index
+   * @return the characters of the value (which may be {@code null} if the value is {@code null})
+   */
+  protected CharSequence getChars(final int columnIndex) {
+    return getValue(columnIndex);
+  }
+
+  @Override
+  public double getDouble(final ColumnRef column) throws CsvParserException {
+    final CharSequence value = getChars(column.indexIn(headers));
+    try {
+      return ParseUtils.parseDouble(value);
+    } catch (final Exception e) {
+      throw ParseUtils.failToParse(column.getColumnName(), value, e);
+    }
+  }
+
+  @Override
+  public double getDouble(final int columnIndex) throws CsvParserException {
+    final CharSequence value = getChars(columnIndex);
+    try {
+      return ParseUtils.parseDouble(value);
+    } catch (final Exception e) {
+      throw ParseUtils.failToParse(columnIndex, value, e);
+    }
+  }
+
+  @Override
+  public double getDouble(final String columnName) throws CsvParserException {
+    final CharSequence value = getChars(headers.indexOf(columnName));
+    try {
+      return ParseUtils.parseDouble(value);
+    } catch (final Exception e) {
+      throw ParseUtils.failToParse(columnName, value, e);
+    }
+  }
+
+  @Override
+  public int getInt(final ColumnRef column) throws CsvParserException {
+    final CharSequence value = getChars(column.indexIn(headers));
+    try {
+      return ParseUtils.parseInt(value);
+    } catch (final Exception e) {
+      throw ParseUtils.failToParse(column.getColumnName(), value, e);
+    }
+  }
+
+  @Override
+  public int getInt(final int columnIndex) throws CsvParserException {
+    final CharSequence value = getChars(columnIndex);
+    try {
+      return ParseUtils.parseInt(value);
+    } catch (final Exception e) {
+      throw ParseUtils.failToParse(columnIndex, value, e);
+    }
+  }
+
+  @Override
+  public int getInt(final String columnName) throws CsvParserException {
+    final CharSequence value = getChars(headers.indexOf(columnName));
+    try {
+      return ParseUtils.parseInt(value);
+    } catch (final Exception e) {
+      throw ParseUtils.failToParse(columnName, value, e);
+    }
+  }
+
+  @Override
+  public LocalDate getLocalDate(final ColumnRef column) throws CsvParserException {
+    final CharSequence value = getChars(column.indexIn(headers));
+    try {
+      return ParseUtils.parseLocalDate(value);
+    } catch (final Exception e) {
+      throw ParseUtils.failToParse(column.getColumnName(), value, e);
+    }
+  }
+
+  @Override
+  public LocalDate getLocalDate(final ColumnRef column, final DateTimeFormatter formatter) throws CsvParserException {
+    final CharSequence value = getChars(column.indexIn(headers));
+    try {
+      return ParseUtils.parseLocalDate(value, formatter);
+    } catch (final Exception e) {
+      throw ParseUtils.failToParse(column.getColumnName(), value, e);
+    }
+  }
+
+  @Override
+  public LocalDate getLocalDate(final int columnIndex) throws CsvParserException {
+    final CharSequence value = getChars(columnIndex);
+    try {
+      return ParseUtils.parseLocalDate(value);
+    } catch (final Exception e) {
+      throw ParseUtils.failToParse(columnIndex, value, e);
+    }
+  }
+
+  @Override
+  public LocalDate getLocalDate(final int columnIndex, final DateTimeFormatter formatter) throws CsvParserException {
+    final CharSequence value = getChars(columnIndex);
+    try {
+      return ParseUtils.parseLocalDate(value, formatter);
+    } catch (final Exception e) {
+      throw ParseUtils.failToParse(columnIndex, value, e);
+    }
+  }
+
+  @Override
+  public LocalDate getLocalDate(final String columnName) throws CsvParserException {
+    final CharSequence value = getChars(headers.indexOf(columnName));
+    try {
+      return ParseUtils.parseLocalDate(value);
+    } catch (final Exception e) {
+      throw ParseUtils.failToParse(columnName, value, e);
+    }
+  }
+
+  @Override
+  public LocalDate getLocalDate(final String columnName, final DateTimeFormatter formatter)
+      throws CsvParserException {
+    final CharSequence value = getChars(headers.indexOf(columnName));
+    try {
+      return ParseUtils.parseLocalDate(value, formatter);
+    } catch (final Exception e) {
+      throw ParseUtils.failToParse(columnName, value, e);
+    }
+  }
+
+  @Override
+  public long getLong(final ColumnRef column) throws CsvParserException {
+    final CharSequence value = getChars(column.indexIn(headers));
+    try {
+      return ParseUtils.parseLong(value);
+    } catch (final Exception e) {
+      throw ParseUtils.failToParse(column.getColumnName(), value, e);
+    }
+  }
+
+  @Override
+  public long getLong(final int columnIndex) throws CsvParserException {
+    final CharSequence value = getChars(columnIndex);
+    try {
+      return ParseUtils.parseLong(value);
+    } catch (final Exception e) {
+      throw ParseUtils.failToParse(columnIndex, value, e);
+    }
+  }
+
+  @Override
+  public long getLong(final String columnName) throws CsvParserException {
+    final CharSequence value = getChars(headers.indexOf(columnName));
+    try {
+      return ParseUtils.parseLong(value);
+    } catch (final Exception e) {
+      throw ParseUtils.failToParse(columnName, value, e);
+    }
+  }
+
+  @Override
+  public <T> T getParsedValue(final CsvParser<T> parser, final ColumnRef column) throws CsvParserException {
+    final String value = getValue(column.indexIn(headers));
+    try {
+      return parser.parse(value);
+    } catch (final Exception e) {
+      throw ParseUtils.failToParse(column.getColumnName(), value, e);
+    }
+  }
+
+  @Override
+  public <T> T getParsedValue(final CsvParser<T> parser, final int columnIndex) throws CsvParserException {
+    final String value = getValue(columnIndex);
+    try {
+      return parser.parse(value);
+    } catch (final Exception e) {
+      throw ParseUtils.failToParse(columnIndex, value, e);
+    }
+  }
+
+  @Override
+  public <T> T getParsedValue(final CsvParser<T> parser, final String columnName) throws CsvParserException {
+    final int columnIndex = headers.indexOf(columnName);
+    final String value = getValue(columnIndex);
+    try {
+      return parser.parse(value);
+    } catch (final Exception e) {
+      throw ParseUtils.failToParse(columnName, value, e);
+    }
+  }
+
+  @Override
+  public String getValue(final ColumnRef column) {
+    return getValue(column.indexIn(headers));
+  }
+
+  @Override
+  public String getValue(final String columnName) {
+    return getValue(headers.indexOf(columnName));
+  }
+}
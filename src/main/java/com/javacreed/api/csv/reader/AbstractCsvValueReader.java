@@ -0,0 +1,636 @@
+/*
+ * #%L
+ * JavaCreed CSV API
+ * %%
+ * Copyright (C) 2012 - 2015 Java Creed
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.javacreed.api.csv.reader;
+
+import java.io.IOException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.jcip.annotations.NotThreadSafe;
+
+/**
+ * The skeleton of a {@link CsvValueReader} which tokenizes the input using a state machine. The input is accessed as a
+ * sequence of units (such as characters or bytes) through a cursor, and the subclasses only need to provide access to
+ * these units and to turn a range of units into characters.
+ * <p>
+ * Tokens (escape character, value boundary, value separator and line separators) are matched unit by unit against the
+ * characters of the token. A unit is compared with a token character as is, thus a unit that is not a character needs
+ * to have the same value as the token character it represents.
+ *
+ * @author Albert Attard
+ */
+@NotThreadSafe
+public abstract class AbstractCsvValueReader implements CsvValueReader {
+
+  /**
+   *
+   * @author Albert Attard
+   */
+  private static enum State {
+    INVALID, BEGIN_LINE, IN_LINE, END_LINE
+  }
+
+  /**
+   * The states through which the tokenizer moves while reading a value. A value ends when a value separator or a line
+   * separator is found (when not quoted) or when the closing value boundary is found (when quoted).
+   *
+   * @author Albert Attard
+   */
+  private static enum ValueState {
+    UNQUOTED, QUOTED, ESCAPE
+  }
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(AbstractCsvValueReader.class);
+
+  /**
+   * The characters represented by the escaped characters, indexed by the character that follows the escape character
+   * (such as {@code 'n'} for a new line). The characters beyond the table length, and those not reverted, represent
+   * themselves.
+   */
+  private static final char[] UNESCAPED = new char[128];
+
+  static {
+    for (char c = 0; c < AbstractCsvValueReader.UNESCAPED.length; c++) {
+      AbstractCsvValueReader.UNESCAPED[c] = c;
+    }
+    AbstractCsvValueReader.UNESCAPED['t'] = '\t';
+    AbstractCsvValueReader.UNESCAPED['b'] = '\b';
+    AbstractCsvValueReader.UNESCAPED['n'] = '\n';
+    AbstractCsvValueReader.UNESCAPED['r'] = '\r';
+    AbstractCsvValueReader.UNESCAPED['f'] = '\f';
+  }
+
+  /** The classes of the characters that need to be handled within a quoted value */
+  private static final int QUOTED_STOPS = CsvCharacterClasses.ESCAPE | CsvCharacterClasses.BOUNDARY;
+
+  /** The classes of the characters that need to be handled within a value that is not quoted */
+  private static final int UNQUOTED_STOPS = CsvCharacterClasses.ESCAPE | CsvCharacterClasses.VALUE_SEPARATOR
+      | CsvCharacterClasses.LINE_SEPARATOR;
+
+  protected final String valueSeparator;
+  protected final String valueBounderies;
+  protected final String escapeCharacter;
+  protected final String[] lineSeparators;
+  private final CsvCharacterClasses characterClasses;
+
+  /** The value returned by {@link #readValueSlice()}, which is reused for every value */
+  private final CharSlice value = new CharSlice();
+
+  private State state = State.END_LINE;
+
+  private Throwable lastCause;
+
+  /**
+   * Creates an instance of this class, which tokens are compiled from the given parameters
+   *
+   * @param parameters
+   *          the parameters (which cannot be {@code null})
+   * @throws NullPointerException
+   *           if the given parameters are {@code null}
+   * @see #AbstractCsvValueReader(CsvDialect)
+   */
+  protected AbstractCsvValueReader(final CsvReadableParameters parameters) throws NullPointerException {
+    this(new CsvDialect(parameters));
+  }
+
+  /**
+   * Creates an instance of this class that uses the given (already compiled) dialect
+   *
+   * @param dialect
+   *          the dialect (which cannot be {@code null})
+   * @throws NullPointerException
+   *           if the given dialect is {@code null}
+   */
+  protected AbstractCsvValueReader(final CsvDialect dialect) throws NullPointerException {
+    this.valueSeparator = dialect.getValueSeparator();
+    this.valueBounderies = dialect.getValueBounderies();
+    this.escapeCharacter = dialect.getEscapeCharacter();
+    this.lineSeparators = dialect.getLineSeparators();
+    this.characterClasses = dialect.getCharacterClasses();
+  }
+
+  /**
+   * Copies (or decodes) the given number of units, starting from the cursor, to the end of the given value. The units
+   * are not consumed.
+   *
+   * @param value
+   *          the value to which the characters are appended (which cannot be {@code null})
+   * @param length
+   *          the number of units (which needs to be between 0 and {@link #remaining()} both inclusive)
+   */
+  protected abstract void appendTo(CharSlice value, int length);
+
+  @Override
+  public void beginLine() throws CsvReadException {
+    failIfInvalid();
+    switch (state) {
+    case END_LINE:
+      AbstractCsvValueReader.LOGGER.trace("Begin line");
+      state = State.BEGIN_LINE;
+      break;
+    default:
+      throw fail(new CsvReadException("Cannot begin line before ending the previous one"));
+    }
+  }
+
+  /**
+   * Returns the maximum number of units that can be held without growing
+   *
+   * @return the maximum number of units that can be held without growing
+   */
+  protected abstract int capacity();
+
+  /**
+   * Returns the number of units, not more than the given length, that end on a character boundary. Subclasses that read
+   * multi-unit encodings need to override this method so that a character is never split when a value is copied part by
+   * part.
+   *
+   * @param length
+   *          the number of units (which needs to be between 0 and {@link #remaining()} both inclusive)
+   * @return the number of units, not more than the given length, that end on a character boundary
+   */
+  protected int characterBoundary(final int length) {
+    return length;
+  }
+
+  /**
+   * Returns the number of units that make up the character starting at the given offset. Subclasses that read
+   * multi-unit encodings need to override this method. The caller needs to make sure that the unit at the given offset
+   * is available.
+   *
+   * @param offset
+   *          the offset relative to the cursor
+   * @return the number of units that make up the character starting at the given offset
+   */
+  protected int characterLength(final int offset) {
+    return 1;
+  }
+
+  /**
+   * Consumes the given number of scanned units as the last part of the value. If nothing was copied to the value so
+   * far, the value is {@link #viewAs(CharSlice, int) set} to these units.
+   *
+   * @param length
+   *          the number of scanned units
+   * @param keep
+   *          {@code false} if the value is being skipped, in which case the units are consumed without being copied
+   */
+  private void consumeValue(final int length, final boolean keep) {
+    if (false == keep) {
+      /* Nothing to copy */
+    } else if (value.length() == 0) {
+      viewAs(value, length);
+    } else {
+      appendTo(value, length);
+    }
+    skip(length);
+  }
+
+  @Override
+  public void endLine() throws CsvReadException {
+    failIfInvalid();
+    try {
+      switch (state) {
+      case BEGIN_LINE:
+      case IN_LINE:
+        final int length = hasRemaining() ? matchLineSeparator(unitAt(0), 0) : 0;
+        if (length == 0) {
+          throw new CsvReadException("Invalid end of line");
+        }
+        skip(length);
+        state = State.END_LINE;
+        break;
+      default:
+        throw new CsvReadException("Cannot end line before begining it");
+      }
+    } catch (final Exception e) {
+      throw fail(e);
+    }
+  }
+
+  /**
+   * Makes sure that at least the given number of units is available, reading from the source if necessary
+   *
+   * @param length
+   *          the number of units required
+   * @return {@code true} if at least the given number of units is available, {@code false} if the source is exhausted
+   *         before
+   * @throws IOException
+   *           if an IO error occurs while reading
+   */
+  protected abstract boolean ensure(int length) throws IOException;
+
+  /**
+   * Moves this reader to the invalid state and returns the given exception wrapped as a {@link CsvReadException} (if
+   * it is not already one) so that it can be thrown by the caller
+   *
+   * @param e
+   *          the cause
+   * @return the exception to be thrown
+   */
+  private CsvReadException fail(final Exception e) {
+    state = State.INVALID;
+    lastCause = e;
+    if (e instanceof CsvReadException) {
+      return (CsvReadException) e;
+    }
+    return new CsvReadException(e);
+  }
+
+  /**
+   * Fails if this reader is in an invalid state, that is, a previous invocation failed
+   *
+   * @throws CsvReadException
+   *           if this reader is in an invalid state
+   */
+  private void failIfInvalid() throws CsvReadException {
+    if (state == State.INVALID) {
+      throw new CsvReadException("CSV Reader is in an invalid state", lastCause);
+    }
+  }
+
+  @Override
+  public boolean hasMoreLines() throws CsvReadException {
+    failIfInvalid();
+    try {
+      return hasRemaining();
+    } catch (final Exception e) {
+      throw fail(e);
+    }
+  }
+
+  @Override
+  public boolean hasMoreValues() throws CsvReadException {
+    failIfInvalid();
+    try {
+      switch (state) {
+      case BEGIN_LINE:
+      case IN_LINE:
+        return hasRemaining() && matchLineSeparator(unitAt(0), 0) == 0;
+      default:
+        throw new CsvReadException("Cannot verify whether more values are available before starting a line");
+      }
+    } catch (final Exception e) {
+      throw fail(e);
+    }
+  }
+
+  /**
+   * Returns {@code true} if there is at least one more unit to be read, {@code false} otherwise
+   *
+   * @return {@code true} if there is at least one more unit to be read, {@code false} otherwise
+   * @throws IOException
+   *           if an IO error occurs while reading
+   */
+  private boolean hasRemaining() throws IOException {
+    return remaining() > 0 || ensure(1);
+  }
+
+  /**
+   * Returns the length of the line separator found at the given offset or 0 if none is found there
+   *
+   * @param c
+   *          the unit at the given offset
+   * @param offset
+   *          the offset relative to the cursor
+   * @return the length of the line separator found at the given offset or 0 if none is found
+   * @throws IOException
+   *           if an error occurs while reading
+   */
+  private int matchLineSeparator(final char c, final int offset) throws IOException {
+    if ((characterClasses.classOf(c) & CsvCharacterClasses.LINE_SEPARATOR) != 0) {
+      for (final String lineSeparator : lineSeparators) {
+        if (matches(lineSeparator, c, offset)) {
+          return lineSeparator.length();
+        }
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * Returns {@code true} if the given token is found at the given offset, {@code false} otherwise. The given unit is
+   * the unit at the given offset and single character tokens are matched against it without accessing the input.
+   *
+   * @param token
+   *          the token (which cannot be empty)
+   * @param c
+   *          the unit at the given offset
+   * @param offset
+   *          the offset relative to the cursor
+   * @return {@code true} if the given token is found at the given offset, {@code false} otherwise
+   * @throws IOException
+   *           if an error occurs while reading
+   */
+  private boolean matches(final String token, final char c, final int offset) throws IOException {
+    return token.charAt(0) == c && (token.length() == 1 || startsWith(offset, token));
+  }
+
+  /**
+   * Returns {@code true} if the value separator is found at the given offset, {@code false} otherwise
+   *
+   * @param c
+   *          the unit at the given offset
+   * @param offset
+   *          the offset relative to the cursor
+   * @return {@code true} if the value separator is found at the given offset, {@code false} otherwise
+   * @throws IOException
+   *           if an error occurs while reading
+   */
+  private boolean matchValueSeparator(final char c, final int offset) throws IOException {
+    return (characterClasses.classOf(c) & CsvCharacterClasses.VALUE_SEPARATOR) != 0
+        && matches(valueSeparator, c, offset);
+  }
+
+  /**
+   * Reads the next value and returns it as a {@link String}.
+   *
+   * @return the next value
+   * @throws CsvReadException
+   *           if the value cannot be read
+   * @see #readValueSlice()
+   */
+  @Override
+  public String readValue() throws CsvReadException {
+    return readValueSlice().toString();
+  }
+
+  /**
+   * Reads the next value and returns it as a view which is reused by this reader. Values that have no escaped
+   * characters and fit in the buffer are {@link #viewAs(CharSlice, int) viewed} in one go, while others are copied
+   * into the view part by part.
+   * <p>
+   * The returned view is only valid until the next invocation of any method of this reader. Use
+   * {@link CharSequence#toString()} to keep the value.
+   *
+   * @return the next value as a view which is reused by this reader
+   * @throws CsvReadException
+   *           if the value cannot be read
+   * @see #readValue()
+   */
+  @Override
+  public CharSequence readValueSlice() throws CsvReadException {
+    readNext(true);
+    return value;
+  }
+
+  /**
+   * Reads the next value, including the value separator that precedes it, into the {@link #value} view or skips it
+   *
+   * @param keep
+   *          {@code true} to read the value into the {@link #value} view, {@code false} to skip it
+   * @throws CsvReadException
+   *           if the value cannot be read
+   */
+  private void readNext(final boolean keep) throws CsvReadException {
+    failIfInvalid();
+    try {
+      switch (state) {
+      case IN_LINE:
+        if (hasRemaining() && matchValueSeparator(unitAt(0), 0)) {
+          skip(valueSeparator.length());
+        } else {
+          throw new CsvReadException("Value seperator missing");
+        }
+      case BEGIN_LINE:
+
+        final boolean hasBounderies = valueBounderies.length() > 0 && startsWith(0, valueBounderies);
+        if (hasBounderies) {
+          AbstractCsvValueReader.LOGGER.trace("Value has bounderies");
+          skip(valueBounderies.length());
+        }
+
+        readValue(hasBounderies ? ValueState.QUOTED : ValueState.UNQUOTED, keep);
+        state = State.IN_LINE;
+        break;
+      default:
+        throw new CsvReadException("Cannot write value before begining a line");
+      }
+    } catch (final Exception e) {
+      throw fail(e);
+    }
+  }
+
+  /**
+   * Reads a value into the {@link #value} view. The units of the value are scanned without consuming them and are only
+   * copied when an escaped character is found or when the value does not fit in the buffer. A value that is skipped is
+   * validated in the same way, but its units are consumed without being copied or unescaped.
+   *
+   * @param valueState
+   *          the state in which the value starts (either {@link ValueState#QUOTED} or {@link ValueState#UNQUOTED})
+   * @param keep
+   *          {@code true} to copy the value into the {@link #value} view, {@code false} to skip it
+   * @throws Exception
+   *           if an error occurs while reading or the value is invalid
+   */
+  private void readValue(final ValueState valueState, final boolean keep) throws Exception {
+    value.clear();
+
+    /* The number of units of this value that are scanned but not yet consumed */
+    int length = 0;
+    readLoop: for (ValueState current = valueState;;) {
+      switch (current) {
+      case ESCAPE:
+        if (keep) {
+          appendTo(value, length);
+        }
+        skip(length);
+        length = 0;
+
+        final int escapeLength = escapeCharacter.length();
+        if (false == ensure(escapeLength + 1)) {
+          throw new CsvReadException("Escaped character missing");
+        }
+
+        final int characterLength = characterLength(escapeLength);
+        if (false == keep) {
+          /* The escaped character is only consumed, which is done once all its units are available */
+          if (false == ensure(escapeLength + characterLength)) {
+            throw new CsvReadException("Escaped character missing");
+          }
+          skip(escapeLength + characterLength);
+        } else if (characterLength == 1) {
+          final char escaped = unitAt(escapeLength);
+          skip(escapeLength + 1);
+          value.append(escaped < AbstractCsvValueReader.UNESCAPED.length ? AbstractCsvValueReader.UNESCAPED[escaped]
+              : escaped);
+        } else {
+          /* Characters made of more than one unit are never reverted and are taken as is */
+          if (false == ensure(escapeLength + characterLength)) {
+            throw new CsvReadException("Escaped character missing");
+          }
+          skip(escapeLength);
+          appendTo(value, characterLength);
+          skip(characterLength);
+        }
+        current = valueState;
+        continue readLoop;
+      default:
+        length = skipPlain(length, remaining(), current == ValueState.QUOTED);
+        if (length == remaining()) {
+          /* The value does not fit in the buffer and the scanned units are moved to the value */
+          if (length == capacity()) {
+            final int boundary = characterBoundary(length);
+            if (keep) {
+              appendTo(value, boundary);
+            }
+            skip(boundary);
+            length -= boundary;
+          }
+
+          // Fail if the end is reached. TODO may be we need to test for when the stream is not ready to return
+          // more, but it has not yet been closed.
+          if (false == ensure(length + 1)) {
+            throw new CsvReadException(
+                valueState == ValueState.QUOTED ? "Value boundary missing" : "Value seperator missing");
+          }
+        }
+      }
+
+      final char c = unitAt(length);
+      final int characterClass = characterClasses.classOf(c);
+      if (characterClass != CsvCharacterClasses.NONE) {
+        if ((characterClass & CsvCharacterClasses.ESCAPE) != 0 && matches(escapeCharacter, c, length)) {
+          current = ValueState.ESCAPE;
+          continue readLoop;
+        }
+
+        if (current == ValueState.QUOTED) {
+          if ((characterClass & CsvCharacterClasses.BOUNDARY) != 0 && matches(valueBounderies, c, length)) {
+            consumeValue(length, keep);
+            skip(valueBounderies.length());
+            break readLoop;
+          }
+        } else if (matchValueSeparator(c, length) || matchLineSeparator(c, length) != 0) {
+          /* Leave the separator in the input as it is consumed by the next value or the end of line */
+          consumeValue(length, keep);
+          break readLoop;
+        }
+      }
+
+      length++;
+    }
+  }
+
+  /**
+   * Returns the number of units available without reading from the source
+   *
+   * @return the number of units available without reading from the source
+   */
+  protected abstract int remaining();
+
+  /**
+   * Moves this reader back to its initial state, as if no line was read, and clears the last failure. This is used by
+   * readers that can be reset to read from another source.
+   */
+  protected void resetState() {
+    state = State.END_LINE;
+    lastCause = null;
+    value.clear();
+  }
+
+  /**
+   * Consumes the given number of units. The caller needs to make sure that enough units are available.
+   *
+   * @param length
+   *          the number of units to be consumed (which needs to be between 0 and {@link #remaining()} both inclusive)
+   */
+  protected abstract void skip(int length);
+
+  /**
+   * Returns the offset of the first unit, between the given offsets, that may start a token which needs to be handled
+   * while reading a value, or {@code to} if there is no such unit. Within a quoted value these are the escape character
+   * and the value boundary, while otherwise these are the escape character and the separators. All other units are
+   * part of the value and are skipped in bulk.
+   * <p>
+   * Subclasses can override this method to scan more than one unit at a time.
+   *
+   * @param from
+   *          the offset, relative to the cursor, of the first unit to check (inclusive)
+   * @param to
+   *          the offset, relative to the cursor, of the last unit to check (exclusive), which needs to be less than or
+   *          equal to {@link #remaining()}
+   * @param quoted
+   *          {@code true} if the units are within a quoted value, {@code false} otherwise
+   * @return the offset of the first unit that may start a token, or {@code to} if there is none
+   */
+  protected int skipPlain(final int from, final int to, final boolean quoted) {
+    final int stops = quoted ? AbstractCsvValueReader.QUOTED_STOPS : AbstractCsvValueReader.UNQUOTED_STOPS;
+    for (int i = from; i < to; i++) {
+      if ((characterClasses.classOf(unitAt(i)) & stops) != 0) {
+        return i;
+      }
+    }
+    return to;
+  }
+
+  /**
+   * Skips the next value. The units of the value are scanned, and the value is validated, as if it is read, but these
+   * are never copied.
+   *
+   * @throws CsvReadException
+   *           if the value cannot be read
+   * @see #readValueSlice()
+   */
+  @Override
+  public void skipValue() throws CsvReadException {
+    readNext(false);
+  }
+
+  /**
+   * Returns {@code true} if the units starting from the given offset match the characters of the given token,
+   * {@code false} otherwise. The token is not consumed.
+   *
+   * @param offset
+   *          the offset relative to the cursor (which must be greater than or equal to 0)
+   * @param token
+   *          the token (which cannot be {@code null})
+   * @return {@code true} if the units at the given offset match the given token, {@code false} otherwise
+   * @throws IOException
+   *           if an IO error occurs while reading
+   */
+  protected abstract boolean startsWith(int offset, String token) throws IOException;
+
+  /**
+   * Returns the unit at the given offset as a character without consuming it. The caller needs to make sure that the
+   * unit is available.
+   *
+   * @param offset
+   *          the offset relative to the cursor (which needs to be between 0 (inclusive) and {@link #remaining()}
+   *          (exclusive))
+   * @return the unit at the given offset
+   */
+  protected abstract char unitAt(int offset);
+
+  /**
+   * Sets the given (empty) value to the given number of units, starting from the cursor. The units are not consumed.
+   * By default the units are {@link #appendTo(CharSlice, int) appended} to the value, while subclasses that hold
+   * characters can view them without copying.
+   *
+   * @param value
+   *          the empty value (which cannot be {@code null})
+   * @param length
+   *          the number of units (which needs to be between 0 and {@link #remaining()} both inclusive)
+   */
+  protected void viewAs(final CharSlice value, final int length) {
+    appendTo(value, length);
+  }
+}
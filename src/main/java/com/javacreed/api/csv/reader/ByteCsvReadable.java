@@ -0,0 +1,283 @@
+/*
+ * #%L
+ * JavaCreed CSV API
+ * %%
+ * Copyright (C) 2012 - 2015 Java Creed
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.javacreed.api.csv.reader;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+
+import net.jcip.annotations.NotThreadSafe;
+
+/**
+ * Reads CSV values from UTF-8 encoded bytes. The bytes are tokenized as is, without decoding them first, and only the
+ * bytes of each value are decoded once the value boundaries are known. Values made from ASCII characters only are
+ * widened to characters without going through the decoder.
+ * <p>
+ * This is possible because UTF-8 never uses bytes in the ASCII range as part of a multi-byte sequence. Therefore, the
+ * tokens (escape character, value boundary, value separator and line separators) need to be made from ASCII
+ * characters only. Malformed input is replaced by the replacement character {@code U+FFFD}.
+ * <p>
+ * Files can be read through memory mapped windows using {@link #ByteCsvReadable(FileChannel, int,
+ * CsvReadableParameters)} or {@link CsvReader#map(java.nio.file.Path)}, which saves copying the file into the heap.
+ *
+ * @author Albert Attard
+ * @see CsvReadable
+ */
+@NotThreadSafe
+public class ByteCsvReadable extends AbstractCsvValueReader implements Closeable {
+
+  /** The default number of bytes mapped at a time when reading from a memory mapped file (64MB) */
+  public static final int DEFAULT_WINDOW_SIZE = 64 * 1024 * 1024;
+
+  private final CsvByteReadBuffer buffer;
+
+  /** The bytes that need to be handled within a quoted value */
+  private final long[] quotedStops;
+
+  /** The bytes that need to be handled within a value that is not quoted */
+  private final long[] unquotedStops;
+
+  /**
+   * Creates an instance of this class which reads the remaining bytes of the given buffer without copying them, using
+   * the default parameters
+   *
+   * @param in
+   *          the bytes (which cannot be {@code null})
+   * @throws NullPointerException
+   *           if the given bytes are {@code null}
+   */
+  public ByteCsvReadable(final ByteBuffer in) throws NullPointerException {
+    this(in, CsvDialect.DEFAULT);
+  }
+
+  /**
+   * Creates an instance of this class which reads the remaining bytes of the given buffer without copying them, using
+   * the given dialect which can be shared with other readers. The buffer size is ignored.
+   *
+   * @param in
+   *          the bytes (which cannot be {@code null})
+   * @param dialect
+   *          the dialect (which cannot be {@code null})
+   * @throws NullPointerException
+   *           if any of the parameters are {@code null}
+   * @throws IllegalArgumentException
+   *           if any of the tokens has a non ASCII character
+   */
+  public ByteCsvReadable(final ByteBuffer in, final CsvDialect dialect)
+      throws NullPointerException, IllegalArgumentException {
+    this(new CsvByteReadBuffer(in), dialect);
+  }
+
+  /**
+   * Creates an instance of this class which reads the remaining bytes of the given buffer without copying them. The
+   * buffer size parameter is ignored.
+   *
+   * @param in
+   *          the bytes (which cannot be {@code null})
+   * @param parameters
+   *          the parameters (which cannot be {@code null})
+   * @throws NullPointerException
+   *           if any of the parameters are {@code null}
+   * @throws IllegalArgumentException
+   *           if any of the tokens has a non ASCII character
+   */
+  public ByteCsvReadable(final ByteBuffer in, final CsvReadableParameters parameters)
+      throws NullPointerException, IllegalArgumentException {
+    this(in, new CsvDialect(parameters));
+  }
+
+  /**
+   * Creates an instance of this class using the given buffer
+   *
+   * @param buffer
+   *          the buffer (which cannot be {@code null})
+   * @param dialect
+   *          the dialect (which cannot be {@code null})
+   * @throws NullPointerException
+   *           if any of the parameters are {@code null}
+   * @throws IllegalArgumentException
+   *           if any of the tokens has a non ASCII character
+   */
+  private ByteCsvReadable(final CsvByteReadBuffer buffer, final CsvDialect dialect)
+      throws NullPointerException, IllegalArgumentException {
+    super(dialect.failIfNotAscii());
+    this.buffer = buffer;
+    this.quotedStops = dialect.getQuotedStops();
+    this.unquotedStops = dialect.getUnquotedStops();
+  }
+
+  /**
+   * Creates an instance of this class which memory maps the given file, from its current position, one window at a
+   * time, using the given dialect which can be shared with other readers. The buffer size is ignored.
+   *
+   * @param in
+   *          the file (which cannot be {@code null})
+   * @param windowSize
+   *          the minimum number of bytes mapped at a time (which must be greater than 0)
+   * @param dialect
+   *          the dialect (which cannot be {@code null})
+   * @throws NullPointerException
+   *           if any of the parameters are {@code null}
+   * @throws IllegalArgumentException
+   *           if the window size is less than 1 or any of the tokens has a non ASCII character
+   * @throws IOException
+   *           if an IO error occurs while accessing the file
+   * @see #DEFAULT_WINDOW_SIZE
+   */
+  public ByteCsvReadable(final FileChannel in, final int windowSize, final CsvDialect dialect)
+      throws NullPointerException, IllegalArgumentException, IOException {
+    this(new CsvByteReadBuffer(in, windowSize), dialect);
+  }
+
+  /**
+   * Creates an instance of this class which memory maps the given file, from its current position, one window at a
+   * time. The buffer size parameter is ignored.
+   *
+   * @param in
+   *          the file (which cannot be {@code null})
+   * @param windowSize
+   *          the minimum number of bytes mapped at a time (which must be greater than 0)
+   * @param parameters
+   *          the parameters (which cannot be {@code null})
+   * @throws NullPointerException
+   *           if any of the parameters are {@code null}
+   * @throws IllegalArgumentException
+   *           if the window size is less than 1 or any of the tokens has a non ASCII character
+   * @throws IOException
+   *           if an IO error occurs while accessing the file
+   * @see #DEFAULT_WINDOW_SIZE
+   */
+  public ByteCsvReadable(final FileChannel in, final int windowSize, final CsvReadableParameters parameters)
+      throws NullPointerException, IllegalArgumentException, IOException {
+    this(in, windowSize, new CsvDialect(parameters));
+  }
+
+  /**
+   * Creates an instance of this class using the default parameters
+   *
+   * @param in
+   *          the source (which cannot be {@code null})
+   * @throws NullPointerException
+   *           if the given source is {@code null}
+   */
+  public ByteCsvReadable(final ReadableByteChannel in) throws NullPointerException {
+    this(in, CsvDialect.DEFAULT);
+  }
+
+  /**
+   * Creates an instance of this class using the given dialect, which can be shared with other readers
+   *
+   * @param in
+   *          the source (which cannot be {@code null})
+   * @param dialect
+   *          the dialect (which cannot be {@code null})
+   * @throws NullPointerException
+   *           if any of the parameters are {@code null}
+   * @throws IllegalArgumentException
+   *           if any of the tokens has a non ASCII character
+   */
+  public ByteCsvReadable(final ReadableByteChannel in, final CsvDialect dialect)
+      throws NullPointerException, IllegalArgumentException {
+    this(new CsvByteReadBuffer(in, dialect.getBufferSize()), dialect);
+  }
+
+  /**
+   * Creates an instance of this class
+   *
+   * @param in
+   *          the source (which cannot be {@code null})
+   * @param parameters
+   *          the parameters (which cannot be {@code null})
+   * @throws NullPointerException
+   *           if any of the parameters are {@code null}
+   * @throws IllegalArgumentException
+   *           if any of the tokens has a non ASCII character
+   */
+  public ByteCsvReadable(final ReadableByteChannel in, final CsvReadableParameters parameters)
+      throws NullPointerException, IllegalArgumentException {
+    this(in, new CsvDialect(parameters));
+  }
+
+  @Override
+  protected void appendTo(final CharSlice value, final int length) {
+    buffer.decodeTo(value, length);
+  }
+
+  /**
+   * Closes the source. Nothing happens if this instance reads from a {@link ByteBuffer}.
+   */
+  @Override
+  public void close() throws IOException {
+    buffer.close();
+  }
+
+  @Override
+  protected int capacity() {
+    return buffer.capacity();
+  }
+
+  /**
+   * Multi-byte sequences are not cut so that these are decoded in one go
+   */
+  @Override
+  protected int characterBoundary(final int length) {
+    return buffer.characterBoundary(length);
+  }
+
+  @Override
+  protected int characterLength(final int offset) {
+    return CsvByteReadBuffer.sequenceLength(buffer.byteAt(offset));
+  }
+
+  @Override
+  protected boolean ensure(final int length) throws IOException {
+    return buffer.ensure(length);
+  }
+
+  @Override
+  protected int remaining() {
+    return buffer.remaining();
+  }
+
+  @Override
+  protected void skip(final int length) {
+    buffer.skip(length);
+  }
+
+  /**
+   * Scans eight bytes at a time
+   */
+  @Override
+  protected int skipPlain(final int from, final int to, final boolean quoted) {
+    return buffer.indexOfAny(from, to, quoted ? quotedStops : unquotedStops);
+  }
+
+  @Override
+  protected boolean startsWith(final int offset, final String token) throws IOException {
+    return buffer.startsWith(offset, token);
+  }
+
+  @Override
+  protected char unitAt(final int offset) {
+    return (char) (buffer.byteAt(offset) & 0xFF);
+  }
+}
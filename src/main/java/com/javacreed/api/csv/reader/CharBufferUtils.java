@@ -26,7 +26,10 @@ import java.nio.CharBuffer;
  * Utilities methods related to {@link CharBuffer}
  *
  * @author Albert Attard
+ * @deprecated the readers no longer use this class and read through the {@link CsvReadBuffer} instead. This public
+ *             class is only kept so that the code compiled against the previous versions still links.
  */
+@Deprecated
 public class CharBufferUtils {
 
   /**
@@ -0,0 +1,204 @@
+/*
+ * #%L
+ * JavaCreed CSV API
+ * %%
+ * Copyright (C) 2012 - 2016 Java Creed
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.javacreed.api.csv.reader;
+
+import java.util.Arrays;
+
+import net.jcip.annotations.NotThreadSafe;
+
+/**
+ * A reusable {@link CharSequence} view over a range of a {@code char} array. The view either wraps an existing array
+ * (such as the reader's buffer), in which case no characters are copied, or holds its own characters which are appended
+ * to it.
+ * <p>
+ * Instances of this class are mutable and are reused by the reader. The contents of the view are only valid until the
+ * next invocation of the reader that returned it. Use {@link #toString()} to keep a copy of the value.
+ *
+ * @author Albert Attard
+ */
+@NotThreadSafe
+public class CharSlice implements CharSequence {
+
+  /** The characters owned by this instance and used when characters are appended */
+  private char[] storage;
+
+  /** The array being viewed, which may be the {@link #storage} or an external array */
+  private char[] array;
+
+  /** The index of the first character in the {@link #array} */
+  private int offset;
+
+  /** The number of characters in this view */
+  private int length;
+
+  /**
+   * Creates an empty instance of this class
+   */
+  public CharSlice() {
+    this(16);
+  }
+
+  /**
+   * Creates an empty instance of this class
+   *
+   * @param capacity
+   *          the initial capacity of the internal storage (which must be greater than or equal to 0)
+   * @throws NegativeArraySizeException
+   *           if the given capacity is negative
+   */
+  public CharSlice(final int capacity) throws NegativeArraySizeException {
+    storage = new char[capacity];
+    array = storage;
+  }
+
+  /**
+   * Appends the given character to this view
+   *
+   * @param c
+   *          the character to be appended
+   */
+  void append(final char c) {
+    ensureCapacity(length + 1);
+    storage[length++] = c;
+  }
+
+  /**
+   * Copies the given range of characters to the end of this view
+   *
+   * @param chars
+   *          the characters (which cannot be {@code null})
+   * @param from
+   *          the index of the first character to be copied
+   * @param count
+   *          the number of characters to be copied
+   */
+  void append(final char[] chars, final int from, final int count) {
+    ensureCapacity(length + count);
+    System.arraycopy(chars, from, storage, length, count);
+    length += count;
+  }
+
+  @Override
+  public char charAt(final int index) {
+    if (index < 0 || index >= length) {
+      throw new IndexOutOfBoundsException("The index " + index + " is out of range [0," + length + ")");
+    }
+    return array[offset + index];
+  }
+
+  /**
+   * Empties this view and switches it back to its own storage
+   */
+  void clear() {
+    array = storage;
+    offset = 0;
+    length = 0;
+  }
+
+  /**
+   * Makes sure that the internal storage can hold the given number of characters. If this instance is viewing an
+   * external array, the characters viewed are copied to the internal storage first.
+   *
+   * @param capacity
+   *          the required capacity
+   */
+  private void ensureCapacity(final int capacity) {
+    if (capacity > storage.length) {
+      storage = Arrays.copyOf(storage, Math.max(capacity, storage.length * 2));
+    }
+
+    if (array != storage) {
+      System.arraycopy(array, offset, storage, 0, length);
+      array = storage;
+      offset = 0;
+    }
+  }
+
+  /**
+   * Copies the characters of this view to the given array
+   *
+   * @param destination
+   *          the array to which the characters are copied (which cannot be {@code null})
+   * @param offset
+   *          the index of the destination array where the first character is copied
+   */
+  void getChars(final char[] destination, final int offset) {
+    System.arraycopy(array, this.offset, destination, offset, length);
+  }
+
+  @Override
+  public int length() {
+    return length;
+  }
+
+  @Override
+  public CharSequence subSequence(final int start, final int end) {
+    if (start < 0 || start > end || end > length) {
+      throw new IndexOutOfBoundsException("The range [" + start + "," + end + ") is out of range [0," + length + ")");
+    }
+    return new String(array, offset + start, end - start);
+  }
+
+  /**
+   * Makes room for the given number of characters after the end of this view and returns the array in which these need
+   * to be written, starting from index {@link #length()}. The characters are only part of this view once
+   * {@link #setLength(int)} is invoked.
+   *
+   * @param count
+   *          the number of characters to make room for
+   * @return the array in which the characters need to be written
+   */
+  char[] reserve(final int count) {
+    ensureCapacity(length + count);
+    return storage;
+  }
+
+  /**
+   * Sets the number of characters in this view after these are written to the array returned by {@link #reserve(int)}
+   *
+   * @param length
+   *          the number of characters in this view
+   */
+  void setLength(final int length) {
+    this.length = length;
+  }
+
+  @Override
+  public String toString() {
+    return new String(array, offset, length);
+  }
+
+  /**
+   * Views the given range of characters without copying them. Any changes to the given array will be visible through
+   * this view.
+   *
+   * @param chars
+   *          the characters to view (which cannot be {@code null})
+   * @param from
+   *          the index of the first character
+   * @param count
+   *          the number of characters
+   */
+  void wrap(final char[] chars, final int from, final int count) {
+    array = chars;
+    offset = from;
+    length = count;
+  }
+}
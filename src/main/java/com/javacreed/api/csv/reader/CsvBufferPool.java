@@ -0,0 +1,53 @@
+/*
+ * #%L
+ * JavaCreed CSV API
+ * %%
+ * Copyright (C) 2012 - 2015 Java Creed
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.javacreed.api.csv.reader;
+
+/**
+ * A source of the {@code char} arrays used by {@link CsvReadable}s as buffers. Readers that are created often, such as
+ * one for every small document, can take their buffer from a pool instead of allocating a new one every time. The
+ * buffer is returned to the pool when the reader is {@link CsvReadable#close() closed}.
+ * <p>
+ * Implementations need to be thread-safe as readers may be created and closed by many threads at the same time.
+ *
+ * @author Albert Attard
+ * @see ThreadLocalCsvBufferPool
+ */
+public interface CsvBufferPool {
+
+  /**
+   * Returns an array that holds at least the given number of characters, which is not used by any other reader until
+   * it is {@link #release(char[]) released}
+   *
+   * @param capacity
+   *          the minimum number of characters (which must be greater than 0)
+   * @return an array that holds at least the given number of characters (which is never {@code null})
+   */
+  char[] acquire(int capacity);
+
+  /**
+   * Returns the given array to the pool. The caller must not use the array once this method is invoked. The pool may
+   * keep or discard the given array.
+   *
+   * @param chars
+   *          the array (which cannot be {@code null}) previously returned by {@link #acquire(int)}, or a larger one if
+   *          the buffer had to grow
+   */
+  void release(char[] chars);
+}
@@ -0,0 +1,532 @@
+/*
+ * #%L
+ * JavaCreed CSV API
+ * %%
+ * Copyright (C) 2012 - 2015 Java Creed
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.javacreed.api.csv.reader;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Objects;
+
+import net.jcip.annotations.NotThreadSafe;
+
+/**
+ * A byte buffer that reads from a {@link ReadableByteChannel} (or views a {@link ByteBuffer}) and keeps track of a
+ * read cursor, in the same manner as the {@link CsvReadBuffer} does for characters. The bytes are expected to be UTF-8
+ * encoded and are only decoded when {@link #decodeTo(CharSlice, int) requested}.
+ * <p>
+ * When reading from a {@link FileChannel} using {@link #CsvByteReadBuffer(FileChannel, int)}, the file is memory
+ * mapped one window at a time instead of being read into the heap. A new window is mapped starting from the cursor
+ * whenever more bytes are required, thus the bytes that are not yet consumed (such as a value that straddles two
+ * windows) are always available as one range. Windows are positioned using {@code long} offsets and thus files larger
+ * than 2GB are supported.
+ *
+ * @author Albert Attard
+ * @see CsvReadBuffer
+ */
+@NotThreadSafe
+public class CsvByteReadBuffer {
+
+  /** Has all bits set except for the most significant bit of every byte */
+  private static final long LOW_SEVEN_BITS = 0x7F7F7F7F7F7F7F7FL;
+
+  /**
+   * Returns a word with all its bytes set to the given ASCII character, to be used with
+   * {@link #indexOfAny(int, int, long[])}
+   *
+   * @param c
+   *          the ASCII character
+   * @return a word with all its bytes set to the given character
+   */
+  static long broadcast(final char c) {
+    return c * 0x0101010101010101L;
+  }
+
+  /**
+   * Regions smaller than this are read into the heap instead of being mapped. Mapping a small region costs more than
+   * copying it and the mapping is only released when the buffer is garbage collected, thus mapping many small regions
+   * can exhaust the number of mappings allowed for a process before the garbage collector runs.
+   */
+  private static final int MIN_MAP_SIZE = 256 * 1024;
+
+  /**
+   * Returns the given region of the file, which is memory mapped unless it is small, in which case it is read into
+   * the heap
+   *
+   * @param file
+   *          the file (which cannot be {@code null})
+   * @param position
+   *          the position of the region within the file
+   * @param size
+   *          the size of the region (which needs to be within the file and not larger than 2GB)
+   * @return the bytes of the region
+   * @throws IOException
+   *           if an IO error occurs while mapping or reading the file
+   */
+  static ByteBuffer map(final FileChannel file, final long position, final long size) throws IOException {
+    if (size >= CsvByteReadBuffer.MIN_MAP_SIZE) {
+      return file.map(MapMode.READ_ONLY, position, size);
+    }
+
+    final ByteBuffer bytes = ByteBuffer.allocate((int) size);
+    while (bytes.hasRemaining() && file.read(bytes, position + bytes.position()) != -1) {}
+    bytes.flip();
+    return bytes;
+  }
+
+  /** The smallest code point that can be encoded by a sequence, indexed by the sequence length */
+  private static final int[] MIN_CODE_POINTS = { 0, 0, 0x80, 0x800, 0x10000 };
+
+  /**
+   * Returns the length of the UTF-8 sequence that starts with the given byte. Continuation bytes and invalid bytes have
+   * a length of 1.
+   *
+   * @param b
+   *          the first byte of the sequence
+   * @return the length of the UTF-8 sequence that starts with the given byte (between 1 and 4 both inclusive)
+   */
+  static int sequenceLength(final int b) {
+    if ((b & 0xE0) == 0xC0) {
+      return 2;
+    }
+    if ((b & 0xF0) == 0xE0) {
+      return 3;
+    }
+    if ((b & 0xF8) == 0xF0) {
+      return 4;
+    }
+    return 1;
+  }
+
+  /** The source from where the bytes are read, or {@code null} when the buffer views a {@link ByteBuffer} */
+  private final ReadableByteChannel in;
+
+  /** The file being mapped, or {@code null} when the bytes are read into the heap */
+  private final FileChannel file;
+
+  /** The minimum number of bytes mapped at a time */
+  private final int windowSize;
+
+  /** The offset within the {@link #file} of the current window */
+  private long fileOffset;
+
+  /** The bytes read from the source */
+  private ByteBuffer bytes;
+
+  /** The index of the next byte to be read */
+  private int position;
+
+  /** The index of the first byte that is not yet read from the source */
+  private int limit;
+
+  /** Set to {@code true} once the source is exhausted */
+  private boolean endOfInput;
+
+  /**
+   * Creates an instance of this class which views the remaining bytes of the given buffer without copying them. The
+   * given buffer is not modified.
+   *
+   * @param bytes
+   *          the bytes (which cannot be {@code null})
+   * @throws NullPointerException
+   *           if the given bytes are {@code null}
+   */
+  public CsvByteReadBuffer(final ByteBuffer bytes) throws NullPointerException {
+    this.in = null;
+    this.file = null;
+    this.windowSize = 0;
+    this.bytes = bytes.slice();
+    this.limit = this.bytes.limit();
+    this.endOfInput = true;
+  }
+
+  /**
+   * Creates an instance of this class which memory maps the given file, from its current position, one window at a
+   * time
+   *
+   * @param file
+   *          the file (which cannot be {@code null})
+   * @param windowSize
+   *          the minimum number of bytes mapped at a time (which must be greater than 0)
+   * @throws NullPointerException
+   *           if the given file is {@code null}
+   * @throws IllegalArgumentException
+   *           if the given window size is less than 1
+   * @throws IOException
+   *           if an IO error occurs while accessing the file
+   */
+  public CsvByteReadBuffer(final FileChannel file, final int windowSize)
+      throws NullPointerException, IllegalArgumentException, IOException {
+    if (windowSize < 1) {
+      throw new IllegalArgumentException("The window size must be greater than 0");
+    }
+
+    this.in = file;
+    this.file = file;
+    this.windowSize = windowSize;
+    this.fileOffset = file.position();
+    this.bytes = ByteBuffer.allocate(0);
+  }
+
+  /**
+   * Creates an instance of this class
+   *
+   * @param in
+   *          the source (which cannot be {@code null})
+   * @param capacity
+   *          the initial buffer capacity (which must be greater than 0)
+   * @throws NullPointerException
+   *           if the given source is {@code null}
+   * @throws IllegalArgumentException
+   *           if the given capacity is less than 1
+   */
+  public CsvByteReadBuffer(final ReadableByteChannel in, final int capacity)
+      throws NullPointerException, IllegalArgumentException {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("The buffer capacity must be greater than 0");
+    }
+
+    this.in = Objects.requireNonNull(in);
+    this.file = null;
+    this.windowSize = 0;
+    this.bytes = ByteBuffer.allocate(capacity);
+  }
+
+  /**
+   * Returns the byte at the given offset, relative to the cursor, without consuming it. The caller needs to make sure
+   * that enough bytes are available by calling {@link #ensure(int)} first.
+   *
+   * @param offset
+   *          the offset relative to the cursor (which needs to be between 0 (inclusive) and {@link #remaining()}
+   *          (exclusive))
+   * @return the byte at the given offset
+   */
+  public byte byteAt(final int offset) {
+    return bytes.get(position + offset);
+  }
+
+  /**
+   * Returns the current capacity of the buffer
+   *
+   * @return the current capacity of the buffer
+   */
+  public int capacity() {
+    return bytes.capacity();
+  }
+
+  /**
+   * Closes the source. Nothing happens if the buffer views a {@link ByteBuffer}.
+   *
+   * @throws IOException
+   *           if an IO error occurs while closing the source
+   */
+  public void close() throws IOException {
+    if (in != null) {
+      in.close();
+    }
+  }
+
+  /**
+   * Returns the number of bytes, not more than the given length, that end on a character boundary. A UTF-8 sequence
+   * that is cut by the given length is left out.
+   *
+   * @param length
+   *          the number of bytes (which needs to be between 0 and {@link #remaining()} both inclusive)
+   * @return the number of bytes, not more than the given length, that end on a character boundary
+   */
+  int characterBoundary(final int length) {
+    for (int i = length - 1; i >= 0 && i >= length - 4; i--) {
+      final int b = bytes.get(position + i);
+      if ((b & 0xC0) != 0x80) {
+        return i + CsvByteReadBuffer.sequenceLength(b) > length ? i : length;
+      }
+    }
+    return length;
+  }
+
+  /**
+   * Decodes the given number of bytes, starting from the cursor, and appends the characters to the given value. The
+   * bytes are not consumed. ASCII bytes are widened to characters as is, while the rest are decoded as UTF-8. Malformed
+   * sequences are replaced by the replacement character {@code U+FFFD}.
+   *
+   * @param value
+   *          the value to which the characters are appended (which cannot be {@code null})
+   * @param length
+   *          the number of bytes (which needs to be between 0 and {@link #remaining()} both inclusive)
+   */
+  void decodeTo(final CharSlice value, final int length) {
+    final int end = position + length;
+    int index = position;
+
+    /* ASCII fast path, where every byte is one character. UTF-8 never produces more characters than bytes. */
+    final char[] chars = value.reserve(length);
+    int count = value.length();
+    for (; index < end; index++) {
+      final byte b = bytes.get(index);
+      if (b < 0) {
+        break;
+      }
+      chars[count++] = (char) b;
+    }
+    value.setLength(count);
+
+    while (index < end) {
+      index = decodeTo(value, index, end);
+    }
+  }
+
+  /**
+   * Decodes one character starting from the given index and appends it to the given value
+   *
+   * @param value
+   *          the value to which the character is appended
+   * @param index
+   *          the index of the first byte of the character
+   * @param end
+   *          the index after the last byte that can be decoded
+   * @return the index of the next character
+   */
+  private int decodeTo(final CharSlice value, final int index, final int end) {
+    final int b = bytes.get(index);
+    if (b >= 0) {
+      value.append((char) b);
+      return index + 1;
+    }
+
+    final int sequenceLength = CsvByteReadBuffer.sequenceLength(b);
+    if (sequenceLength > 1 && index + sequenceLength <= end) {
+      int codePoint = b & (0xFF >> (sequenceLength + 1));
+      int i = 1;
+      for (; i < sequenceLength; i++) {
+        final int c = bytes.get(index + i);
+        if ((c & 0xC0) != 0x80) {
+          break;
+        }
+        codePoint = codePoint << 6 | c & 0x3F;
+      }
+
+      if (i == sequenceLength && codePoint >= CsvByteReadBuffer.MIN_CODE_POINTS[sequenceLength]
+          && codePoint <= Character.MAX_CODE_POINT
+          && (codePoint < Character.MIN_SURROGATE || codePoint > Character.MAX_SURROGATE)) {
+        if (codePoint < Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+          value.append((char) codePoint);
+        } else {
+          value.append(Character.highSurrogate(codePoint));
+          value.append(Character.lowSurrogate(codePoint));
+        }
+        return index + sequenceLength;
+      }
+    }
+
+    value.append('\uFFFD');
+    return index + 1;
+  }
+
+  /**
+   * Returns the offset of the first byte, between the given offsets, that is equal to any of the given bytes, or
+   * {@code to} if there is none. The bytes are compared eight at a time by reading them as one {@code long} word (SWAR)
+   * and checking which bytes of the word become zero when XORed with each pattern. The test used is exact, thus a
+   * byte is only reported if it matches.
+   * <p>
+   * The bytes are read in the buffer's default big-endian order, so the first byte in the buffer is the most
+   * significant byte of the word.
+   *
+   * @param from
+   *          the offset, relative to the cursor, of the first byte to check (inclusive)
+   * @param to
+   *          the offset, relative to the cursor, of the last byte to check (exclusive), which needs to be less than or
+   *          equal to {@link #remaining()}
+   * @param patterns
+   *          the bytes to look for, each {@link #broadcast(char) broadcast} to a whole word (which cannot be
+   *          {@code null})
+   * @return the offset of the first matching byte, or {@code to} if there is none
+   */
+  int indexOfAny(final int from, final int to, final long[] patterns) {
+    final int end = position + to;
+    int index = position + from;
+    for (; index + 8 <= end; index += 8) {
+      final long word = bytes.getLong(index);
+      long found = 0;
+      for (final long pattern : patterns) {
+        /* The most significant bit of a byte is set only if the byte is zero, that is, it matches the pattern */
+        final long x = word ^ pattern;
+        found |= ~((x & CsvByteReadBuffer.LOW_SEVEN_BITS) + CsvByteReadBuffer.LOW_SEVEN_BITS | x
+            | CsvByteReadBuffer.LOW_SEVEN_BITS);
+      }
+      if (found != 0) {
+        return index - position + (Long.numberOfLeadingZeros(found) >>> 3);
+      }
+    }
+
+    for (; index < end; index++) {
+      final byte b = bytes.get(index);
+      for (final long pattern : patterns) {
+        if (b == (byte) pattern) {
+          return index - position;
+        }
+      }
+    }
+    return to;
+  }
+
+  /**
+   * Makes sure that at least the given number of bytes is available in the buffer, reading from the source if
+   * necessary. Returns {@code false} if the source is exhausted before the given number of bytes is available.
+   *
+   * @param length
+   *          the number of bytes required
+   * @return {@code true} if at least the given number of bytes is available, {@code false} otherwise
+   * @throws IOException
+   *           if an IO error occurs while reading
+   */
+  public boolean ensure(final int length) throws IOException {
+    while (limit - position < length) {
+      if (endOfInput) {
+        return false;
+      }
+      fill(length);
+    }
+    return true;
+  }
+
+  /**
+   * Compacts the buffer, grows it if it cannot fit the given number of bytes, and reads from the source.
+   *
+   * @param length
+   *          the number of bytes required
+   * @throws IOException
+   *           if an IO error occurs while reading
+   */
+  private void fill(final int length) throws IOException {
+    if (file != null) {
+      map(length);
+      return;
+    }
+
+    final int remaining = limit - position;
+    if (position > 0) {
+      bytes.limit(limit);
+      bytes.position(position);
+      bytes.compact();
+      position = 0;
+      limit = remaining;
+    }
+
+    if (length > bytes.capacity()) {
+      final ByteBuffer grown = ByteBuffer.allocate(length);
+      bytes.limit(limit);
+      bytes.position(0);
+      grown.put(bytes);
+      bytes = grown;
+    }
+
+    bytes.limit(bytes.capacity());
+    bytes.position(limit);
+    final int read = in.read(bytes);
+    if (read == -1) {
+      endOfInput = true;
+    } else {
+      limit += read;
+    }
+  }
+
+  /**
+   * Returns {@code true} if there is at least one more byte to be read, {@code false} otherwise
+   *
+   * @return {@code true} if there is at least one more byte to be read, {@code false} otherwise
+   * @throws IOException
+   *           if an IO error occurs while reading
+   */
+  public boolean hasRemaining() throws IOException {
+    return position < limit || ensure(1);
+  }
+
+  /**
+   * Maps (or reads, if small) the next window of the file starting from the cursor. The window is large
+   * enough to fit the given number of bytes, unless the file ends before.
+   *
+   * @param length
+   *          the number of bytes required
+   * @throws IOException
+   *           if an IO error occurs while mapping the file
+   */
+  private void map(final int length) throws IOException {
+    final long start = fileOffset + position;
+    final long size = Math.min(Math.max(windowSize, length), file.size() - start);
+    bytes = CsvByteReadBuffer.map(file, start, size);
+    fileOffset = start;
+    position = 0;
+    limit = (int) size;
+    if (size < length) {
+      endOfInput = true;
+    }
+  }
+
+  /**
+   * Returns the number of bytes available in the buffer without reading from the source
+   *
+   * @return the number of bytes available in the buffer without reading from the source
+   */
+  public int remaining() {
+    return limit - position;
+  }
+
+  /**
+   * Consumes the given number of bytes. The caller needs to make sure that enough bytes are available by calling
+   * {@link #ensure(int)} first.
+   *
+   * @param length
+   *          the number of bytes to be consumed (which needs to be between 0 and {@link #remaining()} both inclusive)
+   */
+  public void skip(final int length) {
+    position += length;
+  }
+
+  /**
+   * Returns {@code true} if the unread bytes, starting from the given offset relative to the cursor, start with the
+   * given ASCII {@code token}, {@code false} otherwise. The token is not consumed.
+   *
+   * @param offset
+   *          the offset relative to the cursor (which must be greater than or equal to 0)
+   * @param token
+   *          the token made from ASCII characters only (which cannot be {@code null})
+   * @return {@code true} if the unread bytes at the given offset start with the given {@code token}, {@code false}
+   *         otherwise
+   * @throws NullPointerException
+   *           if the given token is {@code null}
+   * @throws IOException
+   *           if an IO error occurs while reading
+   */
+  public boolean startsWith(final int offset, final String token) throws NullPointerException, IOException {
+    final int length = token.length();
+    if (false == ensure(offset + length)) {
+      return false;
+    }
+
+    final int from = position + offset;
+    for (int i = 0; i < length; i++) {
+      if (bytes.get(from + i) != token.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
@@ -0,0 +1,142 @@
+/*
+ * #%L
+ * JavaCreed CSV API
+ * %%
+ * Copyright (C) 2012 - 2016 Java Creed
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.javacreed.api.csv.reader;
+
+import java.util.Collection;
+
+import net.jcip.annotations.Immutable;
+import net.jcip.annotations.ThreadSafe;
+
+/**
+ * A lookup table that classifies a character by the tokens (escape character, value boundary, value separator and line
+ * separators) that start with it. Characters that do not start any token have the class {@link #NONE} and can be
+ * consumed without comparing them with the tokens.
+ * <p>
+ * A class only tells which tokens may start at a character. Tokens which are longer than one character still need to
+ * be compared in full.
+ *
+ * @author Albert Attard
+ */
+@Immutable
+@ThreadSafe
+class CsvCharacterClasses {
+
+  /** The character does not start any token */
+  static final int NONE = 0;
+
+  /** The character starts the escape character */
+  static final int ESCAPE = 1;
+
+  /** The character starts the value boundary */
+  static final int BOUNDARY = 1 << 1;
+
+  /** The character starts the value separator */
+  static final int VALUE_SEPARATOR = 1 << 2;
+
+  /** The character starts one of the line separators */
+  static final int LINE_SEPARATOR = 1 << 3;
+
+  /** The classes indexed by character. Characters beyond the table length have the class {@link #NONE}. */
+  private final byte[] classes;
+
+  /**
+   * Creates an instance of this class
+   *
+   * @param escapeCharacter
+   *          the escape character (which cannot be {@code null})
+   * @param valueBounderies
+   *          the value boundary (which cannot be {@code null})
+   * @param valueSeparator
+   *          the value separator (which cannot be {@code null})
+   * @param lineSeparators
+   *          the line separators (which cannot be {@code null})
+   * @throws NullPointerException
+   *           if any of the parameters are {@code null}
+   */
+  CsvCharacterClasses(final String escapeCharacter, final String valueBounderies, final String valueSeparator,
+      final Collection<String> lineSeparators) throws NullPointerException {
+    int maxCharacter = -1;
+    for (final String token : CsvCharacterClasses.tokens(escapeCharacter, valueBounderies, valueSeparator,
+        lineSeparators)) {
+      if (token.length() > 0) {
+        maxCharacter = Math.max(maxCharacter, token.charAt(0));
+      }
+    }
+
+    classes = new byte[maxCharacter + 1];
+    add(escapeCharacter, CsvCharacterClasses.ESCAPE);
+    add(valueBounderies, CsvCharacterClasses.BOUNDARY);
+    add(valueSeparator, CsvCharacterClasses.VALUE_SEPARATOR);
+    for (final String lineSeparator : lineSeparators) {
+      add(lineSeparator, CsvCharacterClasses.LINE_SEPARATOR);
+    }
+  }
+
+  /**
+   * Returns all tokens as one array
+   *
+   * @param escapeCharacter
+   *          the escape character
+   * @param valueBounderies
+   *          the value boundary
+   * @param valueSeparator
+   *          the value separator
+   * @param lineSeparators
+   *          the line separators
+   * @return all tokens as one array
+   */
+  private static String[] tokens(final String escapeCharacter, final String valueBounderies,
+      final String valueSeparator, final Collection<String> lineSeparators) {
+    final String[] tokens = new String[lineSeparators.size() + 3];
+    tokens[0] = escapeCharacter;
+    tokens[1] = valueBounderies;
+    tokens[2] = valueSeparator;
+    int index = 3;
+    for (final String lineSeparator : lineSeparators) {
+      tokens[index++] = lineSeparator;
+    }
+    return tokens;
+  }
+
+  /**
+   * Adds the given class to the first character of the given token. Empty tokens are ignored as these never match.
+   *
+   * @param token
+   *          the token
+   * @param characterClass
+   *          the class to be added
+   */
+  private void add(final String token, final int characterClass) {
+    if (token.length() > 0) {
+      classes[token.charAt(0)] |= characterClass;
+    }
+  }
+
+  /**
+   * Returns the class of the given character, which is a combination of the constants defined by this class
+   *
+   * @param c
+   *          the character
+   * @return the class of the given character
+   */
+  int classOf(final char c) {
+    return c < classes.length ? classes[c] : CsvCharacterClasses.NONE;
+  }
+}
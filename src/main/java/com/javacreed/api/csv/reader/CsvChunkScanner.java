@@ -0,0 +1,442 @@
+/*
+ * #%L
+ * JavaCreed CSV API
+ * %%
+ * Copyright (C) 2012 - 2015 Java Creed
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.javacreed.api.csv.reader;
+
+import java.nio.ByteBuffer;
+
+import net.jcip.annotations.Immutable;
+import net.jcip.annotations.ThreadSafe;
+
+/**
+ * Scans UTF-8 encoded CSV bytes, without producing any values, to find where the records (lines) start. The scanner
+ * follows the same rules as the {@link AbstractCsvValueReader} but only tracks the state needed to tell whether a line
+ * separator ends a record or is part of a quoted (or escaped) value.
+ * <p>
+ * The state at the beginning of an arbitrary range of bytes is not known without scanning all the bytes before it.
+ * Therefore a range can be {@link #scanAll(ByteBuffer, long, int) scanned} from all possible states at once and the
+ * right result is picked once the state at the end of the previous range is known. The hypotheses are scanned in
+ * lockstep and are merged as soon as they reach the same state at the same position, which for most inputs happens
+ * within the first line.
+ *
+ * @author Albert Attard
+ * @see ParallelCsvReader
+ */
+@Immutable
+@ThreadSafe
+class CsvChunkScanner {
+
+  /**
+   * The outcome of a scan
+   *
+   * @author Albert Attard
+   */
+  @Immutable
+  @ThreadSafe
+  static class Result {
+
+    /** The state at the end of the scan */
+    final int state;
+
+    /** The (absolute) position at the end of the scan, which may be after the end of the range */
+    final long position;
+
+    /** The (absolute) position of the first record that starts within the range, or -1 if none starts in the range */
+    final long firstRecordStart;
+
+    Result(final int state, final long position, final long firstRecordStart) {
+      this.state = state;
+      this.position = position;
+      this.firstRecordStart = firstRecordStart;
+    }
+  }
+
+  /** At the beginning of a record (line) */
+  static final int LINE_START = 0;
+
+  /** At the beginning of a value, after a value separator */
+  static final int VALUE_START = 1;
+
+  /** Within a value that is not quoted */
+  static final int UNQUOTED = 2;
+
+  /** Within a quoted value */
+  static final int QUOTED = 3;
+
+  /** At the end of a value, where a value or line separator is expected */
+  static final int AFTER_VALUE = 4;
+
+  /** The input is invalid. This state is never left and no more records are found. */
+  static final int ERROR = 5;
+
+  /** The number of states excluding the {@link #ERROR} state */
+  static final int STATES = 5;
+
+  private final String escapeCharacter;
+  private final String valueBounderies;
+  private final String valueSeparator;
+  private final String[] lineSeparators;
+
+  /** Whether an ASCII character is the first character of any token, indexed by character */
+  private final boolean[] tokenStarts = new boolean[128];
+
+  /**
+   * Creates an instance of this class
+   *
+   * @param dialect
+   *          the dialect (which cannot be {@code null})
+   * @throws NullPointerException
+   *           if the given dialect is {@code null}
+   */
+  CsvChunkScanner(final CsvDialect dialect) throws NullPointerException {
+    this.escapeCharacter = dialect.getEscapeCharacter();
+    this.valueBounderies = dialect.getValueBounderies();
+    this.valueSeparator = dialect.getValueSeparator();
+    this.lineSeparators = dialect.getLineSeparators();
+
+    for (final String token : lineSeparators) {
+      tokenStarts[token.charAt(0)] = true;
+    }
+    for (final String token : new String[] { escapeCharacter, valueBounderies, valueSeparator }) {
+      if (token.length() > 0) {
+        tokenStarts[token.charAt(0)] = true;
+      }
+    }
+  }
+
+  /**
+   * Returns the number of bytes, after the end of a range, that a scan may need to access. Tokens and escaped
+   * characters that start within a range are always scanned in full.
+   *
+   * @return the number of bytes, after the end of a range, that a scan may need to access
+   */
+  int lookahead() {
+    int length = Math.max(valueBounderies.length(), valueSeparator.length());
+    length = Math.max(length, escapeCharacter.length() + 4);
+    for (final String lineSeparator : lineSeparators) {
+      length = Math.max(length, lineSeparator.length());
+    }
+    return length;
+  }
+
+  /**
+   * Returns the length of the line separator found at the given index or 0 if none is found there
+   *
+   * @param bytes
+   *          the bytes
+   * @param index
+   *          the index
+   * @return the length of the line separator found at the given index or 0 if none is found there
+   */
+  private int matchLineSeparator(final ByteBuffer bytes, final int index) {
+    for (final String lineSeparator : lineSeparators) {
+      if (CsvChunkScanner.matches(bytes, index, lineSeparator)) {
+        return lineSeparator.length();
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * Returns {@code true} if the given array contains the given value, {@code false} otherwise
+   */
+  private static boolean contains(final boolean[] array, final boolean value) {
+    for (final boolean element : array) {
+      if (element == value) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns {@code true} if the given (non empty) ASCII token is found at the given index, {@code false} otherwise
+   *
+   * @param bytes
+   *          the bytes
+   * @param index
+   *          the index
+   * @param token
+   *          the token
+   * @return {@code true} if the given token is found at the given index, {@code false} otherwise
+   */
+  private static boolean matches(final ByteBuffer bytes, final int index, final String token) {
+    final int length = token.length();
+    if (length == 0 || index + length > bytes.limit()) {
+      return false;
+    }
+    for (int i = 0; i < length; i++) {
+      if (bytes.get(index + i) != token.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the (absolute) position of the record that follows the record starting at the given index, or -1 if the
+   * record does not end within the given bytes
+   *
+   * @param bytes
+   *          the bytes (which cannot be {@code null})
+   * @param base
+   *          the absolute position of the first byte
+   * @param from
+   *          the index where a record starts
+   * @return the position of the next record, or -1 if the record does not end within the given bytes
+   */
+  long nextRecordStart(final ByteBuffer bytes, final long base, final int from) {
+    final int[] states = { CsvChunkScanner.LINE_START };
+    final int[] positions = { from };
+    final int limit = bytes.limit();
+    while (positions[0] < limit && states[0] != CsvChunkScanner.ERROR) {
+      if (step(bytes, states, positions, 0, limit) && positions[0] > from) {
+        return base + positions[0];
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Scans the given range from the given state
+   *
+   * @param bytes
+   *          the bytes, including the bytes after the end of the range needed by the {@link #lookahead()} (which
+   *          cannot be {@code null})
+   * @param base
+   *          the absolute position of the first byte
+   * @param from
+   *          the index where the scan starts
+   * @param end
+   *          the index where the range ends (exclusive)
+   * @param state
+   *          the state at the given index
+   * @return the result of the scan
+   */
+  Result scan(final ByteBuffer bytes, final long base, final int from, final int end, final int state) {
+    final int[] states = { state };
+    final int[] positions = { from };
+    long firstRecordStart = state == CsvChunkScanner.LINE_START && from < end ? base + from : -1;
+    while (positions[0] < end && states[0] != CsvChunkScanner.ERROR) {
+      if (step(bytes, states, positions, 0, end) && firstRecordStart == -1 && positions[0] < end) {
+        firstRecordStart = base + positions[0];
+      }
+    }
+    return new Result(states[0], base + positions[0], firstRecordStart);
+  }
+
+  /**
+   * Scans the given range from all states, excluding the {@link #ERROR} state, and returns the results indexed by the
+   * state from which the scan started
+   *
+   * @param bytes
+   *          the bytes, starting with the first byte of the range and including the bytes after the end of the range
+   *          needed by the {@link #lookahead()} (which cannot be {@code null})
+   * @param base
+   *          the absolute position of the first byte
+   * @param end
+   *          the index where the range ends (exclusive)
+   * @return the results indexed by the state from which the scan started
+   */
+  Result[] scanAll(final ByteBuffer bytes, final long base, final int end) {
+    final int n = CsvChunkScanner.STATES;
+    final int[] states = new int[n];
+    final int[] positions = new int[n];
+    final long[] firstRecordStarts = new long[n];
+    /* The hypothesis into which a hypothesis is merged (or -1 if not merged) */
+    final int[] mergedInto = new int[n];
+    /* Merged hypotheses that still need a record start from the hypothesis they were merged into */
+    final boolean[] waiting = new boolean[n];
+    for (int i = 0; i < n; i++) {
+      states[i] = i;
+      firstRecordStarts[i] = i == CsvChunkScanner.LINE_START && end > 0 ? base : -1;
+      mergedInto[i] = -1;
+    }
+
+    for (;;) {
+      /* Advance the active hypothesis that is behind the others */
+      int next = -1;
+      int active = 0;
+      for (int i = 0; i < n; i++) {
+        if (mergedInto[i] == -1 && positions[i] < end && states[i] != CsvChunkScanner.ERROR) {
+          active++;
+          if (next == -1 || positions[i] < positions[next]) {
+            next = i;
+          }
+        }
+      }
+      if (next == -1) {
+        break;
+      }
+
+      if (step(bytes, states, positions, next, end) && positions[next] < end) {
+        final long recordStart = base + positions[next];
+        if (firstRecordStarts[next] == -1) {
+          firstRecordStarts[next] = recordStart;
+        }
+        for (int i = 0; i < n; i++) {
+          if (waiting[i] && root(mergedInto, i) == next) {
+            firstRecordStarts[i] = recordStart;
+            waiting[i] = false;
+          }
+        }
+      }
+
+      if (active == 1 && firstRecordStarts[next] != -1 && false == contains(waiting, true)) {
+        /* All hypotheses converged (or failed) and no more record starts are needed */
+        while (positions[next] < end && states[next] != CsvChunkScanner.ERROR) {
+          step(bytes, states, positions, next, end);
+        }
+        break;
+      }
+
+      for (int i = 0; i < n; i++) {
+        if (i != next && mergedInto[i] == -1 && positions[i] == positions[next] && states[i] == states[next]) {
+          mergedInto[i] = next;
+          waiting[i] = firstRecordStarts[i] == -1;
+        }
+      }
+    }
+
+    final Result[] results = new Result[n];
+    for (int i = 0; i < n; i++) {
+      final int root = root(mergedInto, i);
+      results[i] = new Result(states[root], base + positions[root], firstRecordStarts[i]);
+    }
+    return results;
+  }
+
+  /**
+   * Returns the hypothesis into which the given hypothesis is (directly or indirectly) merged, or the given hypothesis
+   * if it is not merged
+   */
+  private static int root(final int[] mergedInto, final int hypothesis) {
+    int root = hypothesis;
+    while (mergedInto[root] != -1) {
+      root = mergedInto[root];
+    }
+    return root;
+  }
+
+  /**
+   * Makes one transition of the given hypothesis
+   *
+   * @param bytes
+   *          the bytes
+   * @param states
+   *          the states of the hypotheses
+   * @param positions
+   *          the positions (indices) of the hypotheses
+   * @param hypothesis
+   *          the hypothesis to advance
+   * @param end
+   *          the index up to which bytes that do not start a token are skipped in one transition
+   * @return {@code true} if the transition starts a new record, {@code false} otherwise
+   */
+  private boolean step(final ByteBuffer bytes, final int[] states, final int[] positions, final int hypothesis,
+      final int end) {
+    final int index = positions[hypothesis];
+    final int state = states[hypothesis];
+    if (state == CsvChunkScanner.UNQUOTED || state == CsvChunkScanner.QUOTED) {
+      /* Skip the bytes that cannot start a token */
+      int i = index;
+      for (int b; i < end && ((b = bytes.get(i)) < 0 || false == tokenStarts[b]); i++) {}
+      if (i > index) {
+        positions[hypothesis] = i;
+        return false;
+      }
+    }
+
+    if (state == CsvChunkScanner.LINE_START) {
+      final int length = matchLineSeparator(bytes, index);
+      if (length > 0) {
+        /* An empty line */
+        positions[hypothesis] = index + length;
+        return true;
+      }
+    }
+
+    if ((state == CsvChunkScanner.LINE_START || state == CsvChunkScanner.VALUE_START)
+        && CsvChunkScanner.matches(bytes, index, valueBounderies)) {
+      positions[hypothesis] = index + valueBounderies.length();
+      states[hypothesis] = CsvChunkScanner.QUOTED;
+      return false;
+    }
+
+    switch (state) {
+    case LINE_START:
+    case VALUE_START:
+    case UNQUOTED:
+      if (CsvChunkScanner.matches(bytes, index, escapeCharacter)) {
+        positions[hypothesis] = skipEscaped(bytes, index);
+        states[hypothesis] = CsvChunkScanner.UNQUOTED;
+      } else if (CsvChunkScanner.matches(bytes, index, valueSeparator) || matchLineSeparator(bytes, index) > 0) {
+        states[hypothesis] = CsvChunkScanner.AFTER_VALUE;
+      } else {
+        positions[hypothesis] = index + 1;
+        states[hypothesis] = CsvChunkScanner.UNQUOTED;
+      }
+      return false;
+    case QUOTED:
+      if (CsvChunkScanner.matches(bytes, index, escapeCharacter)) {
+        positions[hypothesis] = skipEscaped(bytes, index);
+      } else if (CsvChunkScanner.matches(bytes, index, valueBounderies)) {
+        positions[hypothesis] = index + valueBounderies.length();
+        states[hypothesis] = CsvChunkScanner.AFTER_VALUE;
+      } else {
+        positions[hypothesis] = index + 1;
+      }
+      return false;
+    case AFTER_VALUE: {
+      final int length = matchLineSeparator(bytes, index);
+      if (length > 0) {
+        positions[hypothesis] = index + length;
+        states[hypothesis] = CsvChunkScanner.LINE_START;
+        return true;
+      }
+      if (CsvChunkScanner.matches(bytes, index, valueSeparator)) {
+        positions[hypothesis] = index + valueSeparator.length();
+        states[hypothesis] = CsvChunkScanner.VALUE_START;
+      } else {
+        states[hypothesis] = CsvChunkScanner.ERROR;
+      }
+      return false;
+    }
+    default:
+      return false;
+    }
+  }
+
+  /**
+   * Returns the index after the escape character, found at the given index, and the character it escapes
+   *
+   * @param bytes
+   *          the bytes
+   * @param index
+   *          the index of the escape character
+   * @return the index after the escaped character
+   */
+  private int skipEscaped(final ByteBuffer bytes, final int index) {
+    final int escaped = index + escapeCharacter.length();
+    if (escaped >= bytes.limit()) {
+      return escaped + 1;
+    }
+    return escaped + CsvByteReadBuffer.sequenceLength(bytes.get(escaped));
+  }
+}
@@ -0,0 +1,248 @@
+/*
+ * #%L
+ * JavaCreed CSV API
+ * %%
+ * Copyright (C) 2012 - 2015 Java Creed
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.javacreed.api.csv.reader;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+import net.jcip.annotations.Immutable;
+import net.jcip.annotations.ThreadSafe;
+
+/**
+ * The tokens of a CSV format, compiled from {@link CsvReadableParameters} into the lookup tables used by the readers.
+ * Creating a reader with parameters compiles these every time, while a dialect is compiled once and can be shared by
+ * any number of readers, including readers used by different threads at the same time. This saves the setup cost when
+ * many small inputs are read with the same format.
+ *
+ * <pre>
+ * private static final CsvDialect DIALECT = new CsvDialect(parameters);
+ *
+ * final CsvReader reader = new CsvReader(new CsvReadable(in, DIALECT));
+ * </pre>
+ * <p>
+ * The parameters are copied when the dialect is created and thus changing the parameters afterwards does not affect the
+ * dialect.
+ *
+ * @author Albert Attard
+ */
+@Immutable
+@ThreadSafe
+public class CsvDialect {
+
+  /** The dialect of the default parameters */
+  public static final CsvDialect DEFAULT = new CsvDialect(new CsvReadableParameters());
+
+  /**
+   * Fails if the given token has a non ASCII character
+   *
+   * @param token
+   *          the token
+   * @param name
+   *          the name of the token used in the message
+   * @throws IllegalArgumentException
+   *           if the given token has a non ASCII character
+   */
+  private static void failIfNotAscii(final String token, final String name) throws IllegalArgumentException {
+    if (false == CsvDialect.isAscii(token)) {
+      throw new IllegalArgumentException("The " + name + " can only contain ASCII characters");
+    }
+  }
+
+  private static boolean isAscii(final String token) {
+    for (int i = 0; i < token.length(); i++) {
+      if (token.charAt(i) > 0x7F) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the first characters of the given tokens, without duplicates, each broadcast to a whole word as required by
+   * {@link CsvByteReadBuffer#indexOfAny(int, int, long[])}. Empty tokens are ignored.
+   *
+   * @param tokens
+   *          the tokens
+   * @return the broadcast first characters of the given tokens
+   */
+  private static long[] stops(final Iterable<String> tokens) {
+    final Set<Character> firsts = new LinkedHashSet<>();
+    for (final String token : tokens) {
+      if (token.length() > 0) {
+        firsts.add(token.charAt(0));
+      }
+    }
+
+    final long[] stops = new long[firsts.size()];
+    int index = 0;
+    for (final char c : firsts) {
+      stops[index++] = CsvByteReadBuffer.broadcast(c);
+    }
+    return stops;
+  }
+
+  private final int bufferSize;
+
+  private final String valueSeparator;
+
+  private final String valueBounderies;
+
+  private final String escapeCharacter;
+
+  /** The line separators without duplicates and without empty ones, which never match */
+  private final String[] lineSeparators;
+
+  private final CsvCharacterClasses characterClasses;
+
+  /** Whether all the tokens are made from ASCII characters, as required by the {@link ByteCsvReadable} */
+  private final boolean ascii;
+
+  /** The bytes that need to be handled within a quoted value, or {@code null} if the tokens are not ASCII */
+  private final long[] quotedStops;
+
+  /**
+   * The bytes that need to be handled within a value that is not quoted, or {@code null} if the tokens are not ASCII
+   */
+  private final long[] unquotedStops;
+
+  /**
+   * Creates an instance of this class
+   *
+   * @param parameters
+   *          the parameters (which cannot be {@code null})
+   * @throws NullPointerException
+   *           if the given parameters are {@code null}
+   */
+  public CsvDialect(final CsvReadableParameters parameters) throws NullPointerException {
+    this.bufferSize = Math.max(1, parameters.getBufferSize());
+    this.valueSeparator = Objects.requireNonNull(parameters.getValueSeparator());
+    this.valueBounderies = Objects.requireNonNull(parameters.getValueBounderies());
+    this.escapeCharacter = Objects.requireNonNull(parameters.getEscapeCharacter());
+
+    final List<String> lineSeparators = new ArrayList<>();
+    for (final String lineSeparator : parameters.getLineSeparators()) {
+      if (lineSeparator.length() > 0 && false == lineSeparators.contains(lineSeparator)) {
+        lineSeparators.add(lineSeparator);
+      }
+    }
+    this.lineSeparators = lineSeparators.toArray(new String[lineSeparators.size()]);
+    this.characterClasses = new CsvCharacterClasses(escapeCharacter, valueBounderies, valueSeparator, lineSeparators);
+
+    boolean ascii = CsvDialect.isAscii(escapeCharacter) && CsvDialect.isAscii(valueBounderies)
+        && CsvDialect.isAscii(valueSeparator);
+    for (final String lineSeparator : lineSeparators) {
+      ascii &= CsvDialect.isAscii(lineSeparator);
+    }
+    this.ascii = ascii;
+
+    if (ascii) {
+      final List<String> quoted = new ArrayList<>();
+      quoted.add(escapeCharacter);
+      quoted.add(valueBounderies);
+      this.quotedStops = CsvDialect.stops(quoted);
+
+      final List<String> unquoted = new ArrayList<>(lineSeparators);
+      unquoted.add(0, escapeCharacter);
+      unquoted.add(1, valueSeparator);
+      this.unquotedStops = CsvDialect.stops(unquoted);
+    } else {
+      this.quotedStops = null;
+      this.unquotedStops = null;
+    }
+  }
+
+  /**
+   * Fails if any of the tokens has a non ASCII character, as required by the {@link ByteCsvReadable}
+   *
+   * @return this
+   * @throws IllegalArgumentException
+   *           if any of the tokens has a non ASCII character
+   */
+  CsvDialect failIfNotAscii() throws IllegalArgumentException {
+    if (false == ascii) {
+      CsvDialect.failIfNotAscii(escapeCharacter, "escape character");
+      CsvDialect.failIfNotAscii(valueBounderies, "value bounderies");
+      CsvDialect.failIfNotAscii(valueSeparator, "value separator");
+      for (final String lineSeparator : lineSeparators) {
+        CsvDialect.failIfNotAscii(lineSeparator, "line separator");
+      }
+    }
+    return this;
+  }
+
+  /**
+   * Returns the initial size of the readers' buffer
+   *
+   * @return the initial size of the readers' buffer (which is greater than 0)
+   */
+  public int getBufferSize() {
+    return bufferSize;
+  }
+
+  CsvCharacterClasses getCharacterClasses() {
+    return characterClasses;
+  }
+
+  public String getEscapeCharacter() {
+    return escapeCharacter;
+  }
+
+  /**
+   * Returns the line separators, which array is shared and must not be modified
+   *
+   * @return the line separators without duplicates and without empty ones
+   */
+  String[] getLineSeparators() {
+    return lineSeparators;
+  }
+
+  /**
+   * Returns the bytes that need to be handled within a quoted value, which array is shared and must not be modified
+   *
+   * @return the bytes that need to be handled within a quoted value, or {@code null} if the tokens are not ASCII
+   * @see #failIfNotAscii()
+   */
+  long[] getQuotedStops() {
+    return quotedStops;
+  }
+
+  /**
+   * Returns the bytes that need to be handled within a value that is not quoted, which array is shared and must not be
+   * modified
+   *
+   * @return the bytes that need to be handled within a value that is not quoted, or {@code null} if the tokens are not
+   *         ASCII
+   * @see #failIfNotAscii()
+   */
+  long[] getUnquotedStops() {
+    return unquotedStops;
+  }
+
+  public String getValueBounderies() {
+    return valueBounderies;
+  }
+
+  public String getValueSeparator() {
+    return valueSeparator;
+  }
+}
@@ -19,12 +19,364 @@
  */
 package com.javacreed.api.csv.reader;
 
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+import com.javacreed.api.csv.common.ColumnRef;
+
 public interface CsvLine {
 
+  /**
+   * Parses the value of the column referred to by the given handle as a boolean ({@code true} or {@code false},
+   * ignoring the case). By default the value is looked up by the column name of the handle
+   *
+   * @param column
+   *          the column handle (which cannot be {@code null})
+   * @return the parsed value
+   * @throws CsvParserException
+   *           if the value cannot be parsed
+   */
+  default boolean getBoolean(final ColumnRef column) throws CsvParserException {
+    return getBoolean(column.getColumnName());
+  }
+
+  /**
+   * Parses the value of the column with the given index as a boolean ({@code true} or {@code false}, ignoring the
+   * case). By default the value returned by {@link #getValue(int)} is parsed, while the {@link AbstractCsvLine} avoids
+   * creating a {@link String} where possible
+   *
+   * @param columnIndex
+   *          the column index
+   * @return the parsed value
+   * @throws CsvParserException
+   *           if the value cannot be parsed
+   */
+  default boolean getBoolean(final int columnIndex) throws CsvParserException {
+    final String value = getValue(columnIndex);
+    try {
+      return ParseUtils.parseBoolean(value);
+    } catch (final Exception e) {
+      throw ParseUtils.failToParse(columnIndex, value, e);
+    }
+  }
+
+  /**
+   * Parses the value of the column with the given name as a boolean ({@code true} or {@code false}, ignoring the case).
+   * By default the value returned by {@link #getValue(String)} is parsed, while the {@link AbstractCsvLine} avoids
+   * creating a {@link String} where possible
+   *
+   * @param columnName
+   *          the column name
+   * @return the parsed value
+   * @throws CsvParserException
+   *           if the value cannot be parsed
+   */
+  default boolean getBoolean(final String columnName) throws CsvParserException {
+    final String value = getValue(columnName);
+    try {
+      return ParseUtils.parseBoolean(value);
+    } catch (final Exception e) {
+      throw ParseUtils.failToParse(columnName, value, e);
+    }
+  }
+
+  /**
+   * Parses the value of the column referred to by the given handle as a double. By default the value is looked up by
+   * the column name of the handle
+   *
+   * @param column
+   *          the column handle (which cannot be {@code null})
+   * @return the parsed value
+   * @throws CsvParserException
+   *           if the value cannot be parsed
+   */
+  default double getDouble(final ColumnRef column) throws CsvParserException {
+    return getDouble(column.getColumnName());
+  }
+
+  /**
+   * Parses the value of the column with the given index as a double. By default the value returned by {@link
+   * #getValue(int)} is parsed, while the {@link AbstractCsvLine} avoids creating a {@link String} where possible
+   *
+   * @param columnIndex
+   *          the column index
+   * @return the parsed value
+   * @throws CsvParserException
+   *           if the value cannot be parsed
+   */
+  default double getDouble(final int columnIndex) throws CsvParserException {
+    final String value = getValue(columnIndex);
+    try {
+      return ParseUtils.parseDouble(value);
+    } catch (final Exception e) {
+      throw ParseUtils.failToParse(columnIndex, value, e);
+    }
+  }
+
+  /**
+   * Parses the value of the column with the given name as a double. By default the value returned by {@link
+   * #getValue(String)} is parsed, while the {@link AbstractCsvLine} avoids creating a {@link String} where possible
+   *
+   * @param columnName
+   *          the column name
+   * @return the parsed value
+   * @throws CsvParserException
+   *           if the value cannot be parsed
+   */
+  default double getDouble(final String columnName) throws CsvParserException {
+    final String value = getValue(columnName);
+    try {
+      return ParseUtils.parseDouble(value);
+    } catch (final Exception e) {
+      throw ParseUtils.failToParse(columnName, value, e);
+    }
+  }
+
+  /**
+   * Parses the value of the column referred to by the given handle as an integer. By default the value is looked up by
+   * the column name of the handle
+   *
+   * @param column
+   *          the column handle (which cannot be {@code null})
+   * @return the parsed value
+   * @throws CsvParserException
+   *           if the value cannot be parsed
+   */
+  default int getInt(final ColumnRef column) throws CsvParserException {
+    return getInt(column.getColumnName());
+  }
+
+  /**
+   * Parses the value of the column with the given index as an integer. By default the value returned by {@link
+   * #getValue(int)} is parsed, while the {@link AbstractCsvLine} avoids creating a {@link String} where possible
+   *
+   * @param columnIndex
+   *          the column index
+   * @return the parsed value
+   * @throws CsvParserException
+   *           if the value cannot be parsed
+   */
+  default int getInt(final int columnIndex) throws CsvParserException {
+    final String value = getValue(columnIndex);
+    try {
+      return ParseUtils.parseInt(value);
+    } catch (final Exception e) {
+      throw ParseUtils.failToParse(columnIndex, value, e);
+    }
+  }
+
+  /**
+   * Parses the value of the column with the given name as an integer. By default the value returned by {@link
+   * #getValue(String)} is parsed, while the {@link AbstractCsvLine} avoids creating a {@link String} where possible
+   *
+   * @param columnName
+   *          the column name
+   * @return the parsed value
+   * @throws CsvParserException
+   *           if the value cannot be parsed
+   */
+  default int getInt(final String columnName) throws CsvParserException {
+    final String value = getValue(columnName);
+    try {
+      return ParseUtils.parseInt(value);
+    } catch (final Exception e) {
+      throw ParseUtils.failToParse(columnName, value, e);
+    }
+  }
+
+  /**
+   * Parses the value of the column referred to by the given handle as a long. By default the value is looked up by the
+   * column name of the handle
+   *
+   * @param column
+   *          the column handle (which cannot be {@code null})
+   * @return the parsed value
+   * @throws CsvParserException
+   *           if the value cannot be parsed
+   */
+  default long getLong(final ColumnRef column) throws CsvParserException {
+    return getLong(column.getColumnName());
+  }
+
+  /**
+   * Parses the value of the column with the given index as a long. By default the value returned by {@link
+   * #getValue(int)} is parsed, while the {@link AbstractCsvLine} avoids creating a {@link String} where possible
+   *
+   * @param columnIndex
+   *          the column index
+   * @return the parsed value
+   * @throws CsvParserException
+   *           if the value cannot be parsed
+   */
+  default long getLong(final int columnIndex) throws CsvParserException {
+    final String value = getValue(columnIndex);
+    try {
+      return ParseUtils.parseLong(value);
+    } catch (final Exception e) {
+      throw ParseUtils.failToParse(columnIndex, value, e);
+    }
+  }
+
+  /**
+   * Parses the value of the column with the given name as a long. By default the value returned by {@link
+   * #getValue(String)} is parsed, while the {@link AbstractCsvLine} avoids creating a {@link String} where possible
+   *
+   * @param columnName
+   *          the column name
+   * @return the parsed value
+   * @throws CsvParserException
+   *           if the value cannot be parsed
+   */
+  default long getLong(final String columnName) throws CsvParserException {
+    final String value = getValue(columnName);
+    try {
+      return ParseUtils.parseLong(value);
+    } catch (final Exception e) {
+      throw ParseUtils.failToParse(columnName, value, e);
+    }
+  }
+
+  /**
+   * Parses the value of the column referred to by the given handle as an ISO local date (such as {@code 2015-12-31}).
+   * By default the value is looked up by the column name of the handle
+   *
+   * @param column
+   *          the column handle (which cannot be {@code null})
+   * @return the parsed value
+   * @throws CsvParserException
+   *           if the value cannot be parsed
+   */
+  default LocalDate getLocalDate(final ColumnRef column) throws CsvParserException {
+    return getLocalDate(column.getColumnName());
+  }
+
+  /**
+   * Parses the value of the column with the given index as an ISO local date (such as {@code 2015-12-31}). By default
+   * the value returned by {@link #getValue(int)} is parsed, while the {@link AbstractCsvLine} avoids creating a {@link
+   * String} where possible
+   *
+   * @param columnIndex
+   *          the column index
+   * @return the parsed value
+   * @throws CsvParserException
+   *           if the value cannot be parsed
+   */
+  default LocalDate getLocalDate(final int columnIndex) throws CsvParserException {
+    final String value = getValue(columnIndex);
+    try {
+      return ParseUtils.parseLocalDate(value);
+    } catch (final Exception e) {
+      throw ParseUtils.failToParse(columnIndex, value, e);
+    }
+  }
+
+  /**
+   * Parses the value of the column referred to by the given handle as a local date using the given formatter
+   *
+   * @param column
+   *          the column handle (which cannot be {@code null})
+   * @param formatter
+   *          the formatter (which cannot be {@code null})
+   * @return the parsed value
+   * @throws CsvParserException
+   *           if the value cannot be parsed
+   */
+  default LocalDate getLocalDate(final ColumnRef column, final DateTimeFormatter formatter) throws CsvParserException {
+    return getLocalDate(column.getColumnName(), formatter);
+  }
+
+  /**
+   * Parses the value of the column with the given index as a local date using the given formatter
+   *
+   * @param columnIndex
+   *          the column index
+   * @param formatter
+   *          the formatter (which cannot be {@code null})
+   * @return the parsed value
+   * @throws CsvParserException
+   *           if the value cannot be parsed
+   */
+  default LocalDate getLocalDate(final int columnIndex, final DateTimeFormatter formatter) throws CsvParserException {
+    final String value = getValue(columnIndex);
+    try {
+      return ParseUtils.parseLocalDate(value, formatter);
+    } catch (final Exception e) {
+      throw ParseUtils.failToParse(columnIndex, value, e);
+    }
+  }
+
+  /**
+   * Parses the value of the column with the given name as an ISO local date (such as {@code 2015-12-31}). By default
+   * the value returned by {@link #getValue(String)} is parsed, while the {@link AbstractCsvLine} avoids creating a
+   * {@link String} where possible
+   *
+   * @param columnName
+   *          the column name
+   * @return the parsed value
+   * @throws CsvParserException
+   *           if the value cannot be parsed
+   */
+  default LocalDate getLocalDate(final String columnName) throws CsvParserException {
+    final String value = getValue(columnName);
+    try {
+      return ParseUtils.parseLocalDate(value);
+    } catch (final Exception e) {
+      throw ParseUtils.failToParse(columnName, value, e);
+    }
+  }
+
+  /**
+   * Parses the value of the column with the given name as a local date using the given formatter
+   *
+   * @param columnName
+   *          the column name
+   * @param formatter
+   *          the formatter (which cannot be {@code null})
+   * @return the parsed value
+   * @throws CsvParserException
+   *           if the value cannot be parsed
+   */
+  default LocalDate getLocalDate(final String columnName, final DateTimeFormatter formatter) throws CsvParserException {
+    final String value = getValue(columnName);
+    try {
+      return ParseUtils.parseLocalDate(value, formatter);
+    } catch (final Exception e) {
+      throw ParseUtils.failToParse(columnName, value, e);
+    }
+  }
+
+  /**
+   * Parses the value of the column referred to by the given handle using the given parser
+   *
+   * @param parser
+   *          the parser (which cannot be {@code null})
+   * @param column
+   *          the column handle (which cannot be {@code null})
+   * @return the parsed value
+   * @throws CsvParserException
+   *           if the value cannot be parsed
+   */
+  default <T> T getParsedValue(final CsvParser<T> parser, final ColumnRef column) throws CsvParserException {
+    return getParsedValue(parser, column.getColumnName());
+  }
+
   <T> T getParsedValue(CsvParser<T> parser, int columnIndex) throws CsvParserException;
 
   <T> T getParsedValue(CsvParser<T> parser, String columnName) throws CsvParserException;
 
+  /**
+   * Returns the value of the column referred to by the given handle. By default the value is looked up by the column
+   * name of the handle, while the {@link AbstractCsvLine} resolves the column index once per headers.
+   *
+   * @param column
+   *          the column handle (which cannot be {@code null})
+   * @return the value (which may be {@code null})
+   * @see ColumnRef
+   */
+  default String getValue(final ColumnRef column) {
+    return getValue(column.getColumnName());
+  }
+
   String getValue(int columnIndex);
 
   String getValue(String columnName);
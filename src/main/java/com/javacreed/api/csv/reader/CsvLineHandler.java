@@ -0,0 +1,39 @@
+/*
+ * #%L
+ * JavaCreed CSV API
+ * %%
+ * Copyright (C) 2012 - 2015 Java Creed
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.javacreed.api.csv.reader;
+
+/**
+ * Handles the lines read by a {@link ParallelCsvReader}
+ *
+ * @author Albert Attard
+ */
+public interface CsvLineHandler {
+
+  /**
+   * Handles the given line. Unless the order of the lines is preserved, this method is invoked by many threads at the
+   * same time and needs to be thread-safe.
+   *
+   * @param line
+   *          the line (which is never {@code null})
+   * @throws Exception
+   *           if the line cannot be handled, in which case the reading stops
+   */
+  void handleLine(CsvLine line) throws Exception;
+}
@@ -0,0 +1,412 @@
+/*
+ * #%L
+ * JavaCreed CSV API
+ * %%
+ * Copyright (C) 2012 - 2015 Java Creed
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.javacreed.api.csv.reader;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+
+import com.javacreed.api.csv.common.NumbersUtils;
+
+import net.jcip.annotations.NotThreadSafe;
+
+/**
+ * Reads the lines of a {@link CsvReader} on one thread and maps them with a {@link CsvLineMapper} on many threads. The
+ * lines are read in batches by a dedicated thread, and every batch is mapped by a task executed by the workers. The
+ * results are returned by this iterator, either in the same order as the lines (the default) or in the order in which
+ * the batches complete ({@link #unordered()}).
+ * <p>
+ * The number of batches that are read but whose results are not yet returned is bounded. Once reached, the reading
+ * thread waits until results are taken from this iterator, and thus a slow consumer slows down the reading.
+ * <p>
+ * The mapper is invoked by many threads at the same time and needs to be thread-safe. The lines are passed to other
+ * threads and thus the reader cannot {@link CsvReader#reuseLines() reuse lines}. The pipeline starts with the first
+ * invocation of {@link #hasNext()} or {@link #next()} and needs to be closed if it is not read to the end.
+ *
+ * <pre>
+ * try (CsvLinePipeline&lt;Order&gt; orders = new CsvLinePipeline&lt;&gt;(reader, mapper).batchSize(512)) {
+ *   while (orders.hasNext()) {
+ *     save(orders.next());
+ *   }
+ * }
+ * </pre>
+ *
+ * @author Albert Attard
+ * @param <T>
+ *          the type of the mapped lines
+ */
+@NotThreadSafe
+public class CsvLinePipeline<T> implements Iterator<T>, AutoCloseable {
+
+  /** The default number of lines mapped by one task */
+  public static final int DEFAULT_BATCH_SIZE = 256;
+
+  /** Marks the end of the lines in the queue of results */
+  private static final Object END = new Object();
+
+  private final CsvReader reader;
+
+  private final CsvLineMapper<T> mapper;
+
+  private int batchSize = CsvLinePipeline.DEFAULT_BATCH_SIZE;
+
+  private Executor executor;
+
+  /** The executor created by this pipeline, which is shut down when done, or {@code null} if one is provided */
+  private ExecutorService ownExecutor;
+
+  private int maxPendingBatches;
+
+  private boolean ordered = true;
+
+  /**
+   * The tasks (in order when the results are ordered, otherwise as they complete) followed by {@link #END}, or the
+   * error thrown while reading
+   */
+  private final BlockingQueue<Object> results = new LinkedBlockingQueue<>();
+
+  /** Permits to read a batch, which are released as the results are returned */
+  private Semaphore pending;
+
+  private Thread readingThread;
+
+  /** The number of tasks submitted by the reading thread */
+  private volatile int submitted;
+
+  /** The number of tasks whose results were taken */
+  private int received;
+
+  /** Whether the {@link #END} was taken */
+  private boolean ended;
+
+  /** The results of the last task taken or {@code null} if none is taken yet */
+  private Iterator<T> current;
+
+  /**
+   * Creates an instance of this class
+   *
+   * @param reader
+   *          the reader (which cannot be {@code null}), which needs to be positioned at the first line to be mapped
+   *          (after the headers)
+   * @param mapper
+   *          the mapper (which cannot be {@code null} and needs to be thread-safe)
+   * @throws NullPointerException
+   *           if any of the parameters are {@code null}
+   * @throws IllegalStateException
+   *           if the reader {@link CsvReader#reuseLines() reuses lines}, as the lines passed to the workers would be
+   *           overwritten
+   */
+  public CsvLinePipeline(final CsvReader reader, final CsvLineMapper<T> mapper)
+      throws NullPointerException, IllegalStateException {
+    this.reader = Objects.requireNonNull(reader);
+    this.mapper = Objects.requireNonNull(mapper);
+    failIfReusingLines();
+  }
+
+  /**
+   * Sets the number of lines mapped by one task
+   *
+   * @param batchSize
+   *          the number of lines (which must be greater than 0)
+   * @return this (for method chaining)
+   * @throws IllegalArgumentException
+   *           if the given batch size is less than 1
+   * @throws IllegalStateException
+   *           if the pipeline is already started
+   */
+  public CsvLinePipeline<T> batchSize(final int batchSize) throws IllegalArgumentException, IllegalStateException {
+    failIfStarted();
+    this.batchSize = NumbersUtils.failIfNotInRange(batchSize, 1, Integer.MAX_VALUE, "batch size");
+    return this;
+  }
+
+  /**
+   * Stops reading, and mapping (if the executor was created by this pipeline), the lines. Closing a pipeline that is
+   * read to the end has no effect. The reader is not closed.
+   */
+  @Override
+  public void close() {
+    if (readingThread != null) {
+      readingThread.interrupt();
+    }
+    if (ownExecutor != null) {
+      ownExecutor.shutdownNow();
+    }
+    ended = true;
+    received = submitted;
+    current = null;
+  }
+
+  /**
+   * Sets the executor that maps the lines. By default, a fixed thread pool with one thread per processor is created,
+   * which is shut down when done.
+   *
+   * @param executor
+   *          the executor (which cannot be {@code null})
+   * @return this (for method chaining)
+   * @throws NullPointerException
+   *           if the given executor is {@code null}
+   * @throws IllegalStateException
+   *           if the pipeline is already started
+   */
+  public CsvLinePipeline<T> executor(final Executor executor) throws NullPointerException, IllegalStateException {
+    failIfStarted();
+    this.executor = Objects.requireNonNull(executor);
+    return this;
+  }
+
+  /**
+   * Fails if the reader reuses lines, as the lines passed to the workers would be overwritten by the lines read next
+   *
+   * @throws IllegalStateException
+   *           if the reader {@link CsvReader#reuseLines() reuses lines}
+   */
+  private void failIfReusingLines() throws IllegalStateException {
+    if (reader.isReusingLines()) {
+      throw new IllegalStateException("Reused lines cannot be passed to other threads");
+    }
+  }
+
+  /**
+   * Fails if the pipeline is already started
+   *
+   * @throws IllegalStateException
+   *           if the pipeline is already started
+   */
+  private void failIfStarted() throws IllegalStateException {
+    if (readingThread != null) {
+      throw new IllegalStateException("The pipeline is already started");
+    }
+  }
+
+  /**
+   * Returns {@code true} if there are more results, {@code false} otherwise. This method waits for the next batch of
+   * results when needed.
+   *
+   * @return {@code true} if there are more results, {@code false} otherwise
+   * @throws CsvReadException
+   *           if the lines cannot be read or mapped, or the thread is interrupted while waiting
+   */
+  @Override
+  public boolean hasNext() throws CsvReadException {
+    start();
+    while (current == null || false == current.hasNext()) {
+      if (ended && received == submitted) {
+        shutdown();
+        return false;
+      }
+
+      final Object next;
+      try {
+        next = results.take();
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new CsvReadException("Interrupted while waiting for the lines to be mapped", e);
+      }
+
+      if (next == CsvLinePipeline.END) {
+        ended = true;
+        continue;
+      }
+
+      if (next instanceof Throwable) {
+        close();
+        throw next instanceof CsvReadException ? (CsvReadException) next
+            : new CsvReadException("Failed to read lines", (Throwable) next);
+      }
+
+      received++;
+      pending.release();
+      current = result(next);
+    }
+    return true;
+  }
+
+  /**
+   * Sets the maximum number of batches that are read but whose results are not yet returned. By default, this is
+   * twice the number of processors.
+   *
+   * @param maxPendingBatches
+   *          the maximum number of batches (which must be greater than 0)
+   * @return this (for method chaining)
+   * @throws IllegalArgumentException
+   *           if the given number is less than 1
+   * @throws IllegalStateException
+   *           if the pipeline is already started
+   */
+  public CsvLinePipeline<T> maxPendingBatches(final int maxPendingBatches)
+      throws IllegalArgumentException, IllegalStateException {
+    failIfStarted();
+    this.maxPendingBatches = NumbersUtils.failIfNotInRange(maxPendingBatches, 1, Integer.MAX_VALUE,
+        "maximum pending batches");
+    return this;
+  }
+
+  @Override
+  public T next() throws NoSuchElementException, CsvReadException {
+    if (false == hasNext()) {
+      throw new NoSuchElementException();
+    }
+    return current.next();
+  }
+
+  /**
+   * Reads the lines in batches and submits them to the executor. Executed by the reading thread.
+   */
+  private void read() {
+    try {
+      for (int size = batchSize; size == batchSize;) {
+        final CsvLine[] lines = new CsvLine[batchSize];
+        size = 0;
+        for (CsvLine line; size < batchSize && (line = reader.readLine()) != null;) {
+          lines[size++] = line;
+        }
+
+        if (size > 0) {
+          pending.acquire();
+          final MapTask task = new MapTask(lines, size);
+          /* The task is only queued once accepted, so that a rejected task is not waited for ahead of the error */
+          executor.execute(task);
+          submitted++;
+          if (ordered) {
+            results.add(task);
+          }
+        }
+      }
+      results.add(CsvLinePipeline.END);
+    } catch (final InterruptedException e) {
+      /* Closed */
+    } catch (final Exception e) {
+      results.add(e);
+    }
+  }
+
+  @Override
+  public void remove() throws UnsupportedOperationException {
+    throw new UnsupportedOperationException();
+  }
+
+  /**
+   * Returns the results of the given task, waiting for it to complete if necessary
+   */
+  @SuppressWarnings("unchecked")
+  private Iterator<T> result(final Object task) throws CsvReadException {
+    try {
+      return ((MapTask) task).get().iterator();
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new CsvReadException("Interrupted while waiting for the lines to be mapped", e);
+    } catch (final ExecutionException e) {
+      close();
+      throw new CsvReadException("Failed to map line", e.getCause());
+    }
+  }
+
+  /**
+   * Shuts down the executor created by this pipeline, if any
+   */
+  private void shutdown() {
+    if (ownExecutor != null) {
+      ownExecutor.shutdown();
+    }
+  }
+
+  /**
+   * Starts the reading thread, and creates the executor if none is set, unless already started
+   *
+   * @throws IllegalStateException
+   *           if the reader was set to {@link CsvReader#reuseLines() reuse lines} after this pipeline was created
+   */
+  private void start() throws IllegalStateException {
+    if (readingThread != null) {
+      return;
+    }
+
+    failIfReusingLines();
+
+    final int processors = Runtime.getRuntime().availableProcessors();
+    if (executor == null) {
+      ownExecutor = Executors.newFixedThreadPool(processors);
+      executor = ownExecutor;
+    }
+    pending = new Semaphore(maxPendingBatches > 0 ? maxPendingBatches : processors * 2);
+
+    readingThread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        read();
+      }
+    }, "csv-pipeline-reader");
+    readingThread.setDaemon(true);
+    readingThread.start();
+  }
+
+  /**
+   * Returns the results in the order in which the batches complete, instead of the order of the lines
+   *
+   * @return this (for method chaining)
+   * @throws IllegalStateException
+   *           if the pipeline is already started
+   */
+  public CsvLinePipeline<T> unordered() throws IllegalStateException {
+    failIfStarted();
+    this.ordered = false;
+    return this;
+  }
+
+  /**
+   * Maps a batch of lines and, when the results are not ordered, queues itself once complete
+   *
+   * @author Albert Attard
+   */
+  private class MapTask extends FutureTask<List<T>> {
+
+    private MapTask(final CsvLine[] lines, final int size) {
+      super(new Callable<List<T>>() {
+        @Override
+        public List<T> call() throws Exception {
+          final List<T> mapped = new ArrayList<>(size);
+          for (int i = 0; i < size; i++) {
+            mapped.add(mapper.mapLine(lines[i]));
+          }
+          return mapped;
+        }
+      });
+    }
+
+    @Override
+    protected void done() {
+      if (false == ordered) {
+        results.add(this);
+      }
+    }
+  }
+}
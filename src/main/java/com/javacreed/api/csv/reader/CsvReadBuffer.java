@@ -0,0 +1,314 @@
+/*
+ * #%L
+ * JavaCreed CSV API
+ * %%
+ * Copyright (C) 2012 - 2016 Java Creed
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.javacreed.api.csv.reader;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.util.Arrays;
+import java.util.Objects;
+
+import net.jcip.annotations.NotThreadSafe;
+
+/**
+ * A character buffer that reads from a {@link Readable} and keeps track of a read cursor. Characters are consumed by
+ * moving the cursor forward and thus consuming a character does not depend on the buffer size. The buffer is only
+ * compacted (the unread characters are moved to the beginning of the buffer) and refilled when the cursor gets close
+ * to the limit and more characters are required.
+ * <p>
+ * The buffer grows if a request is made for more characters than its capacity (for example when looking for a token
+ * that is longer than the buffer).
+ *
+ * @author Albert Attard
+ */
+@NotThreadSafe
+public class CsvReadBuffer {
+
+  /** The source from where the characters are read, which is replaced by {@link #reset(Readable)} */
+  private Readable in;
+
+  /** The characters read from the source */
+  private char[] chars;
+
+  /** Wraps the {@link #chars} and used to read from the source */
+  private CharBuffer charBuffer;
+
+  /** The index of the next character to be read */
+  private int position;
+
+  /** The index of the first character that is not yet read from the source */
+  private int limit;
+
+  /** Set to {@code true} once the source is exhausted */
+  private boolean endOfInput;
+
+  /**
+   * Creates an instance of this class
+   *
+   * @param in
+   *          the source (which cannot be {@code null})
+   * @param capacity
+   *          the initial buffer capacity (which must be greater than 0)
+   * @throws NullPointerException
+   *           if the given source is {@code null}
+   * @throws IllegalArgumentException
+   *           if the given capacity is less than 1
+   */
+  public CsvReadBuffer(final Readable in, final int capacity) throws NullPointerException, IllegalArgumentException {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("The buffer capacity must be greater than 0");
+    }
+
+    this.in = Objects.requireNonNull(in);
+    this.chars = new char[capacity];
+    this.charBuffer = CharBuffer.wrap(chars);
+  }
+
+  /**
+   * Creates an instance of this class that uses the given array as its buffer, such as an array taken from a
+   * {@link CsvBufferPool}. The array is replaced by a larger one if the buffer needs to grow.
+   *
+   * @param in
+   *          the source (which cannot be {@code null})
+   * @param chars
+   *          the array used as buffer (which cannot be {@code null} or empty)
+   * @throws NullPointerException
+   *           if any of the parameters are {@code null}
+   * @throws IllegalArgumentException
+   *           if the given array is empty
+   */
+  public CsvReadBuffer(final Readable in, final char[] chars) throws NullPointerException, IllegalArgumentException {
+    if (chars.length < 1) {
+      throw new IllegalArgumentException("The buffer capacity must be greater than 0");
+    }
+
+    this.in = Objects.requireNonNull(in);
+    this.chars = chars;
+    this.charBuffer = CharBuffer.wrap(chars);
+  }
+
+  /**
+   * Returns the array that holds the buffered characters. The unread characters start at {@link #position()}. The
+   * returned array is only valid until the next read as the buffer may be compacted or replaced.
+   *
+   * @return the array that holds the buffered characters
+   */
+  char[] array() {
+    return chars;
+  }
+
+  /**
+   * Returns the current capacity of the buffer
+   *
+   * @return the current capacity of the buffer
+   */
+  public int capacity() {
+    return chars.length;
+  }
+
+  /**
+   * Closes the source if this is {@link Closeable}
+   *
+   * @throws IOException
+   *           if an IO error occurs while closing the source
+   */
+  public void close() throws IOException {
+    if (in instanceof Closeable) {
+      ((Closeable) in).close();
+    }
+  }
+
+  /**
+   * Returns the character at the given offset, relative to the cursor, without consuming it. The caller needs to make
+   * sure that enough characters are available by calling {@link #ensure(int)} first.
+   *
+   * @param offset
+   *          the offset relative to the cursor (which needs to be between 0 (inclusive) and {@link #remaining()}
+   *          (exclusive))
+   * @return the character at the given offset
+   */
+  public char charAt(final int offset) {
+    return chars[position + offset];
+  }
+
+  /**
+   * Makes sure that at least the given number of characters is available in the buffer, reading from the source if
+   * necessary. Returns {@code false} if the source is exhausted before the given number of characters is available.
+   *
+   * @param length
+   *          the number of characters required
+   * @return {@code true} if at least the given number of characters is available, {@code false} otherwise
+   * @throws IOException
+   *           if an IO error occurs while reading
+   */
+  public boolean ensure(final int length) throws IOException {
+    while (limit - position < length) {
+      if (endOfInput) {
+        return false;
+      }
+      fill(length);
+    }
+    return true;
+  }
+
+  /**
+   * Compacts the buffer, grows it if it cannot fit the given number of characters, and reads from the source.
+   *
+   * @param length
+   *          the number of characters required
+   * @throws IOException
+   *           if an IO error occurs while reading
+   */
+  private void fill(final int length) throws IOException {
+    final int remaining = limit - position;
+    if (position > 0) {
+      System.arraycopy(chars, position, chars, 0, remaining);
+      position = 0;
+      limit = remaining;
+    }
+
+    if (length > chars.length) {
+      chars = Arrays.copyOf(chars, length);
+      charBuffer = CharBuffer.wrap(chars);
+    }
+
+    charBuffer.limit(chars.length);
+    charBuffer.position(limit);
+    final int read = in.read(charBuffer);
+    if (read == -1) {
+      endOfInput = true;
+    } else {
+      limit += read;
+    }
+  }
+
+  /**
+   * Returns {@code true} if there is at least one more character to be read, {@code false} otherwise
+   *
+   * @return {@code true} if there is at least one more character to be read, {@code false} otherwise
+   * @throws IOException
+   *           if an IO error occurs while reading
+   */
+  public boolean hasRemaining() throws IOException {
+    return position < limit || ensure(1);
+  }
+
+  /**
+   * Consumes and returns the next character. The caller needs to make sure that a character is available by calling
+   * {@link #hasRemaining()} or {@link #ensure(int)} first.
+   *
+   * @return the next character
+   */
+  public char next() {
+    return chars[position++];
+  }
+
+  /**
+   * Returns the index of the next character to be read within the {@link #array()}
+   *
+   * @return the index of the next character to be read within the {@link #array()}
+   */
+  int position() {
+    return position;
+  }
+
+  /**
+   * Returns the number of characters available in the buffer without reading from the source
+   *
+   * @return the number of characters available in the buffer without reading from the source
+   */
+  public int remaining() {
+    return limit - position;
+  }
+
+  /**
+   * Discards the unread characters and starts reading from the given source. The array is kept and used for the new
+   * source, so that a buffer can be reused without allocating a new one.
+   *
+   * @param in
+   *          the new source (which cannot be {@code null})
+   * @throws NullPointerException
+   *           if the given source is {@code null}
+   */
+  public void reset(final Readable in) throws NullPointerException {
+    this.in = Objects.requireNonNull(in);
+    position = 0;
+    limit = 0;
+    endOfInput = false;
+  }
+
+  /**
+   * Consumes the given number of characters. The caller needs to make sure that enough characters are available by
+   * calling {@link #ensure(int)} first.
+   *
+   * @param length
+   *          the number of characters to be consumed (which needs to be between 0 and {@link #remaining()} both
+   *          inclusive)
+   */
+  public void skip(final int length) {
+    position += length;
+  }
+
+  /**
+   * Returns {@code true} if the unread characters, starting from the given offset relative to the cursor, start with
+   * the given {@code token}, {@code false} otherwise. The token is not consumed.
+   *
+   * @param offset
+   *          the offset relative to the cursor (which must be greater than or equal to 0)
+   * @param token
+   *          the token (which cannot be {@code null})
+   * @return {@code true} if the unread characters at the given offset start with the given {@code token}, {@code false}
+   *         otherwise
+   * @throws NullPointerException
+   *           if the given token is {@code null}
+   * @throws IOException
+   *           if an IO error occurs while reading
+   */
+  public boolean startsWith(final int offset, final String token) throws NullPointerException, IOException {
+    final int length = token.length();
+    if (false == ensure(offset + length)) {
+      return false;
+    }
+
+    final int from = position + offset;
+    for (int i = 0; i < length; i++) {
+      if (chars[from + i] != token.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns {@code true} if the unread characters start with the given {@code token}, {@code false} otherwise. The
+   * token is not consumed.
+   *
+   * @param token
+   *          the token (which cannot be {@code null})
+   * @return {@code true} if the unread characters start with the given {@code token}, {@code false} otherwise
+   * @throws NullPointerException
+   *           if the given token is {@code null}
+   * @throws IOException
+   *           if an IO error occurs while reading
+   */
+  public boolean startsWith(final String token) throws NullPointerException, IOException {
+    return startsWith(0, token);
+  }
+}
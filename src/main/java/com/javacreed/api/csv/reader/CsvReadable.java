@@ -19,268 +19,145 @@
  */
 package com.javacreed.api.csv.reader;
 
-import java.nio.CharBuffer;
-import java.util.Collections;
-import java.util.LinkedHashMap;
-import java.util.LinkedHashSet;
-import java.util.Map;
+import java.io.Closeable;
+import java.io.IOException;
 import java.util.Objects;
-import java.util.Set;
-
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 import net.jcip.annotations.NotThreadSafe;
 
+/**
+ * Reads CSV values from a {@link Readable}, that is, from characters.
+ * <p>
+ * An instance can be {@link #reset(Readable) reset} to read from another source, which saves creating a new reader
+ * (and its buffer) for every document. Alternatively, the buffer can be taken from a {@link CsvBufferPool}, in which
+ * case it is returned to the pool when the reader is {@link #close() closed}.
+ *
+ * @author Albert Attard
+ * @see ByteCsvReadable
+ */
 @NotThreadSafe
-public class CsvReadable {
+public class CsvReadable extends AbstractCsvValueReader implements Closeable {
 
-  /**
-   *
-   * @author Albert Attard
-   *
-   * @param <T>
-   */
-  private static interface Command<T> {
+  private final CsvReadBuffer buffer;
 
-    /**
-     *
-     * @return
-     * @throws Exception
-     */
-    T execute() throws Exception;
+  /** The pool from which the buffer was taken, or {@code null} if the buffer was not taken from a pool */
+  private CsvBufferPool pool;
 
+  public CsvReadable(final Readable in) throws NullPointerException, IllegalArgumentException {
+    this(in, CsvDialect.DEFAULT);
   }
 
   /**
+   * Creates an instance of this class that uses the given dialect, which can be shared with other readers
    *
-   * @author Albert Attard
+   * @param in
+   *          the source (which cannot be {@code null})
+   * @param dialect
+   *          the dialect (which cannot be {@code null})
+   * @throws NullPointerException
+   *           if any of the parameters are {@code null}
    */
-  private static enum State {
-    INVALID, BEGIN_LINE, IN_LINE, END_LINE
+  public CsvReadable(final Readable in, final CsvDialect dialect) throws NullPointerException {
+    super(dialect);
+    buffer = new CsvReadBuffer(in, dialect.getBufferSize());
   }
 
-  private static final Logger LOGGER = LoggerFactory.getLogger(CsvReadable.class);
-
-  private static final CsvReadableParameters DEFAULT_PARAMETERS = new CsvReadableParameters();
-
-  private final Readable in;
-  private final CharBuffer charBuffer;
-  private final String valueSeparator;
-  private final String valueBounderies;
-  private final String escapeCharacter;
-  private final Set<String> lineSeparators;
-  private final Set<String> valueSeparators;
-
-  private State state = State.END_LINE;
-
-  private Throwable lastCause;
-
-  private final Map<String, String> toRevert;
-
-  public CsvReadable(final Readable in) throws NullPointerException, IllegalArgumentException {
-    this(in, CsvReadable.DEFAULT_PARAMETERS);
+  /**
+   * Creates an instance of this class that takes its buffer from the given pool. The buffer is returned to the pool
+   * when this reader is {@link #close() closed}.
+   *
+   * @param in
+   *          the source (which cannot be {@code null})
+   * @param dialect
+   *          the dialect (which cannot be {@code null})
+   * @param pool
+   *          the pool from which the buffer is taken (which cannot be {@code null})
+   * @throws NullPointerException
+   *           if any of the parameters are {@code null}
+   */
+  public CsvReadable(final Readable in, final CsvDialect dialect, final CsvBufferPool pool)
+      throws NullPointerException {
+    super(dialect);
+    buffer = new CsvReadBuffer(Objects.requireNonNull(in), pool.acquire(dialect.getBufferSize()));
+    this.pool = pool;
   }
 
   public CsvReadable(final Readable in, final CsvReadableParameters parameters)
       throws NullPointerException, IllegalArgumentException {
-    this.in = Objects.requireNonNull(in);
-    charBuffer = CharBuffer.allocate(parameters.getBufferSize());
-    charBuffer.limit(0);
-
-    this.valueSeparator = parameters.getValueSeparator();
-    this.valueBounderies = parameters.getValueBounderies();
-    this.escapeCharacter = parameters.getEscapeCharacter();
-    lineSeparators = new LinkedHashSet<String>(parameters.getLineSeparators());
-
-    valueSeparators = new LinkedHashSet<String>();
-    valueSeparators.add(valueSeparator);
-    valueSeparators.addAll(lineSeparators);
-
-    final Map<String, String> map = new LinkedHashMap<String, String>();
-    map.put(escapeCharacter + "t", "\t");
-    map.put(escapeCharacter + "b", "\b");
-    map.put(escapeCharacter + "n", "\n");
-    map.put(escapeCharacter + "r", "\r");
-    map.put(escapeCharacter + "f", "\f");
-    map.put(escapeCharacter + "'", "\'");
-    map.put(escapeCharacter + "\"", "\"");
-    map.put(escapeCharacter + "\\", "\\");
-    toRevert = Collections.unmodifiableMap(map);
+    this(in, new CsvDialect(parameters));
   }
 
-  public void beginLine() throws CsvReadException {
-    execute(new Command<Void>() {
-      @Override
-      public Void execute() throws Exception {
-        switch (state) {
-        case END_LINE:
-          // Fill the buffer
-          CharBufferUtils.fill(charBuffer, in);
-          CsvReadable.LOGGER.trace("Begin line: '{}' (Position: {} and Limit: {})",
-              new Object[] { charBuffer, charBuffer.position(), charBuffer.limit() });
-          state = State.BEGIN_LINE;
-          break;
-        default:
-          throw new CsvReadException("Cannot begin line before ending the previous one");
-        }
-        return null;
-      }
-    });
+  @Override
+  protected void appendTo(final CharSlice value, final int length) {
+    value.append(buffer.array(), buffer.position(), length);
   }
 
-  public void endLine() throws CsvReadException {
-    execute(new Command<Void>() {
-      @Override
-      public Void execute() throws Exception {
-        switch (state) {
-        case BEGIN_LINE:
-        case IN_LINE:
-          checkBlock: {
-            for (final String endOfLineToken : lineSeparators) {
-              if (CharBufferUtils.startsWith(charBuffer, endOfLineToken)) {
-                CharBufferUtils.shiftReadRewind(charBuffer, endOfLineToken.length(), in);
-                break checkBlock;
-              }
-            }
-            throw new CsvReadException("Invalid end of line");
-          }
-          state = State.END_LINE;
-          return null;
-        default:
-          throw new CsvReadException("Cannot end line before begining it");
-        }
-      }
-    });
-  }
-
-  private <T> T execute(final Command<T> command) throws CsvReadException {
-    if (state == State.INVALID) {
-      throw new CsvReadException("CSV Reader is in an invalid state", lastCause);
-    }
-
-    try {
-      return command.execute();
-    } catch (final Exception e) {
-      state = State.INVALID;
-      lastCause = e;
-      if (e instanceof CsvReadException) {
-        throw (CsvReadException) e;
-      }
-      throw new CsvReadException(e);
+  /**
+   * Returns the buffer to the pool (if it was taken from one) and closes the source if this is {@link Closeable}. This
+   * reader cannot be used once closed.
+   */
+  @Override
+  public void close() throws IOException {
+    if (pool != null) {
+      final CsvBufferPool released = pool;
+      pool = null;
+      released.release(buffer.array());
     }
+    buffer.close();
   }
 
-  public boolean hasMoreLines() throws CsvReadException {
-    return execute(new Command<Boolean>() {
-      @Override
-      public Boolean execute() throws Exception {
-        return charBuffer.hasRemaining() || CharBufferUtils.fill(charBuffer, in) != -1;
-      }
-    });
+  @Override
+  protected int capacity() {
+    return buffer.capacity();
   }
 
-  public boolean hasMoreValues() throws CsvReadException {
-    return execute(new Command<Boolean>() {
-      @Override
-      public Boolean execute() throws Exception {
-        switch (state) {
-        case BEGIN_LINE:
-        case IN_LINE:
-          if (charBuffer.hasRemaining() || CharBufferUtils.fill(charBuffer, in) != -1) {
-            for (final String endOfLineToken : lineSeparators) {
-              if (CharBufferUtils.startsWith(charBuffer, endOfLineToken)) {
-                return false;
-              }
-            }
-            return true;
-          }
-
-          return false;
-        default:
-          throw new CsvReadException("Cannot verify whether more values are available before starting a line");
-        }
-      }
-    });
+  @Override
+  protected boolean ensure(final int length) throws IOException {
+    return buffer.ensure(length);
   }
 
-  public String readValue() throws CsvReadException {
-    return execute(new Command<String>() {
-      @Override
-      public String execute() throws Exception {
-        switch (state) {
-        case IN_LINE:
-          if (CharBufferUtils.startsWith(charBuffer, valueSeparator)) {
-            CharBufferUtils.shiftReadRewind(charBuffer, valueSeparator.length(), in);
-          } else {
-            throw new CsvReadException("Value seperator missing");
-          }
-        case BEGIN_LINE:
-
-          final boolean hasBounderies = CharBufferUtils.startsWith(charBuffer, valueBounderies);
-          if (hasBounderies) {
-            CsvReadable.LOGGER.trace("Value has bounderies");
-            CharBufferUtils.shiftReadRewind(charBuffer, valueBounderies.length(), in);
-          }
-
-          boolean escapeNext = false;
-          final StringBuilder valueBuffer = new StringBuilder();
-          outerLoop: while (true) {
-            if (escapeNext) {
-              escapeNext = false;
-
-              final String shifted = CharBufferUtils.shiftReadRewind(charBuffer, 2, in);
-              CsvReadable.LOGGER.trace("Read char: '{}'. Buffer: '{}' (Position: {} and Limit: {})", shifted,
-                  charBuffer, charBuffer.position(), charBuffer.limit());
+  @Override
+  protected int remaining() {
+    return buffer.remaining();
+  }
 
-              String value = toRevert.get(shifted);
-              if (value == null) {
-                value = shifted.substring(escapeCharacter.length());
-              }
-              valueBuffer.append(value);
-            } else {
-              if (CharBufferUtils.startsWith(charBuffer, escapeCharacter)) {
-                escapeNext = true;
-                continue;
-              }
+  /**
+   * Discards anything not yet read and starts reading from the given source, as if this reader was just created. The
+   * buffer is kept and the previous source is not closed. This saves creating a new reader for every document, such as
+   * when a reader is kept for every thread.
+   *
+   * @param in
+   *          the new source (which cannot be {@code null})
+   * @return this (for method chaining)
+   * @throws NullPointerException
+   *           if the given source is {@code null}
+   */
+  public CsvReadable reset(final Readable in) throws NullPointerException {
+    buffer.reset(in);
+    resetState();
+    return this;
+  }
 
-              if (hasBounderies) {
-                // Fail if the end is reached. TODO may be we need to test for when the stream is not ready to return
-                // more, but it has not yet been closed.
-                if (false == charBuffer.hasRemaining()) {
-                  throw new CsvReadException("Value boundary missing");
-                }
+  @Override
+  protected void skip(final int length) {
+    buffer.skip(length);
+  }
 
-                if (CharBufferUtils.startsWith(charBuffer, valueBounderies)) {
-                  CharBufferUtils.shiftReadRewind(charBuffer, valueBounderies.length(), in);
-                  break;
-                }
-              } else {
-                // Fail if the end is reached. TODO may be we need to test for when the stream is not ready to return
-                // more, but it has not yet been closed.
-                if (false == charBuffer.hasRemaining()) {
-                  throw new CsvReadException("Value seperator missing");
-                }
+  @Override
+  protected boolean startsWith(final int offset, final String token) throws IOException {
+    return buffer.startsWith(offset, token);
+  }
 
-                for (final String endOfValueToken : valueSeparators) {
-                  if (CharBufferUtils.startsWith(charBuffer, endOfValueToken)) {
-                    break outerLoop;
-                  }
-                }
-              }
-              final String shifted = CharBufferUtils.shiftReadRewind(charBuffer, in);
-              CsvReadable.LOGGER.trace("Read char: '{}'. Buffer: '{}' (Position: {} and Limit: {})", shifted,
-                  charBuffer, charBuffer.position(), charBuffer.limit());
-              valueBuffer.append(shifted);
-            }
-          }
+  @Override
+  protected char unitAt(final int offset) {
+    return buffer.charAt(offset);
+  }
 
-          state = State.IN_LINE;
-          return valueBuffer.toString();
-        default:
-          throw new CsvReadException("Cannot write value before begining a line");
-        }
-      }
-    });
+  /**
+   * Views the characters in the buffer without copying them
+   */
+  @Override
+  protected void viewAs(final CharSlice value, final int length) {
+    value.wrap(buffer.array(), buffer.position(), length);
   }
 }
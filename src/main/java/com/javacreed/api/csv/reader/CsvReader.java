@@ -19,38 +19,321 @@
  */
 package com.javacreed.api.csv.reader;
 
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import com.javacreed.api.csv.common.BlankHeaders;
+import com.javacreed.api.csv.common.CsvColumnNotFoundException;
+import com.javacreed.api.csv.common.CsvHeadersNotSetException;
 import com.javacreed.api.csv.common.DefaultHeaders;
 import com.javacreed.api.csv.common.Headers;
 
 import net.jcip.annotations.NotThreadSafe;
 
 @NotThreadSafe
-public class CsvReader {
+public class CsvReader implements AutoCloseable {
+
+  /**
+   * Creates a CSV reader that reads the given UTF-8 encoded file through memory mapped windows using the default
+   * parameters. The returned reader needs to be closed when done.
+   *
+   * @param path
+   *          the file (which cannot be {@code null})
+   * @return the CSV reader
+   * @throws NullPointerException
+   *           if the given path is {@code null}
+   * @throws CsvReadException
+   *           if the file cannot be opened
+   * @see #map(Path, CsvReadableParameters)
+   */
+  public static CsvReader map(final Path path) throws NullPointerException, CsvReadException {
+    return CsvReader.map(path, new CsvReadableParameters());
+  }
+
+  /**
+   * Creates a CSV reader that reads the given UTF-8 encoded file through memory mapped windows (of
+   * {@link ByteCsvReadable#DEFAULT_WINDOW_SIZE} bytes), without copying the file into the heap. The file is closed
+   * when the returned reader is closed.
+   *
+   * @param path
+   *          the file (which cannot be {@code null})
+   * @param parameters
+   *          the parameters (which cannot be {@code null})
+   * @return the CSV reader
+   * @throws NullPointerException
+   *           if any of the parameters are {@code null}
+   * @throws IllegalArgumentException
+   *           if any of the tokens has a non ASCII character
+   * @throws CsvReadException
+   *           if the file cannot be opened
+   * @see ByteCsvReadable
+   */
+  public static CsvReader map(final Path path, final CsvReadableParameters parameters)
+      throws NullPointerException, IllegalArgumentException, CsvReadException {
+    Objects.requireNonNull(parameters);
+    final FileChannel file;
+    try {
+      file = FileChannel.open(path, StandardOpenOption.READ);
+    } catch (final IOException e) {
+      throw new CsvReadException("Failed to open file " + path, e);
+    }
+
+    boolean mapped = false;
+    try {
+      final CsvReader reader = new CsvReader(
+          new ByteCsvReadable(file, ByteCsvReadable.DEFAULT_WINDOW_SIZE, parameters)).closeReadableWhenDone();
+      mapped = true;
+      return reader;
+    } catch (final IOException e) {
+      throw new CsvReadException("Failed to map file " + path, e);
+    } finally {
+      if (false == mapped) {
+        try {
+          file.close();
+        } catch (final IOException e) {}
+      }
+    }
+  }
 
   private Headers headers;
 
-  private final CsvReadable reader;
+  private final CsvValueReader reader;
+
+  private boolean closeReadable;
+
+  /** The characters of the values of the line being read, used when reading lazy lines */
+  private char[] lineChars;
+
+  /** The offsets of the values of the line being read, used when reading lazy lines */
+  private int[] lineOffsets;
+
+  /** The columns that are read, indexed by column index, or {@code null} if all columns are read */
+  private boolean[] selected;
+
+  /** Whether the same line is returned by {@link #readLine()} for every line */
+  private boolean reuseLines;
+
+  /** The line returned for every line when lines are reused, which is created when the first line is read */
+  private DefaultCsvLine reusedLine;
 
+  /** The values of the {@link #reusedLine}, which are overwritten for every line */
+  private String[] reusedValues;
+
+  /** The caches used to deduplicate the values, indexed by column index, or {@code null} if none is used */
+  private CsvValueCache[] caches;
+
+  /**
+   * Creates a CSV reader that reads from the given {@link CsvReadable}. This constructor is kept so that the code
+   * compiled against the previous versions, when only a {@link CsvReadable} was accepted, still links.
+   *
+   * @param reader
+   *          the reader (which cannot be {@code null})
+   * @throws NullPointerException
+   *           if the given reader is {@code null}
+   */
   public CsvReader(final CsvReadable reader) throws NullPointerException {
+    this((CsvValueReader) reader);
+  }
+
+  public CsvReader(final CsvValueReader reader) throws NullPointerException {
     this.reader = Objects.requireNonNull(reader);
   }
 
+  @Override
+  public void close() {
+    if (closeReadable && reader instanceof AutoCloseable) {
+      try {
+        ((AutoCloseable) reader).close();
+      } catch (final Exception e) {}
+    }
+  }
+
+  /**
+   * A convenient method that instructs the CSV reader to also close the {@link CsvValueReader} given to the
+   * constructor when done. This only works if the given {@link CsvValueReader} is an instance of
+   * {@link AutoCloseable}. If the {@link CsvValueReader} is not an instance of {@link AutoCloseable}, then this method
+   * has no effect and you need to close it manually.
+   *
+   * @return this (for method chaining)
+   */
+  public CsvReader closeReadableWhenDone() {
+    this.closeReadable = true;
+    return this;
+  }
+
+  /**
+   * Selects the columns that are read by {@link #readLine()}. The values of the other columns are skipped without being
+   * copied or unescaped and the returned lines return {@code null} for these. The lines are still validated and need to
+   * have the same number of values as the headers.
+   * <p>
+   * The headers are not affected and are always read in full.
+   *
+   * @param columnIndices
+   *          the indices of the columns to be read (which cannot be {@code null})
+   * @return this (for method chaining)
+   * @throws NullPointerException
+   *           if the given indices are {@code null}
+   * @throws IllegalArgumentException
+   *           if any of the given indices is negative
+   */
+  public CsvReader columns(final int... columnIndices) throws NullPointerException, IllegalArgumentException {
+    int size = 0;
+    for (final int columnIndex : columnIndices) {
+      if (columnIndex < 0) {
+        throw new IllegalArgumentException("Invalid column index " + columnIndex);
+      }
+      size = Math.max(size, columnIndex + 1);
+    }
+
+    final boolean[] selected = new boolean[size];
+    for (final int columnIndex : columnIndices) {
+      selected[columnIndex] = true;
+    }
+    this.selected = selected;
+    return this;
+  }
+
+  /**
+   * Selects the columns that are read by {@link #readLine()} by name. The names are resolved to indices, using the
+   * headers, when this method is invoked and thus the headers need to be read or set first.
+   *
+   * @param columnNames
+   *          the names of the columns to be read (which cannot be {@code null})
+   * @return this (for method chaining)
+   * @throws NullPointerException
+   *           if the given names are {@code null}
+   * @throws CsvHeadersNotSetException
+   *           if the headers are not yet read or set
+   * @throws CsvColumnNotFoundException
+   *           if any of the given columns is not found
+   * @see #columns(int...)
+   */
+  public CsvReader columns(final String... columnNames)
+      throws NullPointerException, CsvHeadersNotSetException, CsvColumnNotFoundException {
+    if (headers == null) {
+      throw new CsvHeadersNotSetException();
+    }
+
+    final int[] columnIndices = new int[columnNames.length];
+    for (int i = 0; i < columnNames.length; i++) {
+      columnIndices[i] = headers.indexOf(columnNames[i]);
+    }
+    return columns(columnIndices);
+  }
+
+  /**
+   * Makes {@link #readLine()} return the same {@link String} instance for the repeating values of the given column,
+   * using the given cache. The characters of a value are looked up in the cache before a {@link String} is created and
+   * thus no {@link String} is created for the values that are found. This saves memory and garbage for columns with few
+   * distinct values, but slows down columns with many distinct values, which is visible through the cache's
+   * {@link CsvValueCache#getHitRate() hit rate}.
+   * <p>
+   * The values of {@link #lazyLines() lazy lines} are not deduplicated, as these are created when requested, possibly
+   * by other threads.
+   *
+   * @param columnIndex
+   *          the index of the column (which must be greater than or equal to 0)
+   * @param cache
+   *          the cache used for the column (which cannot be {@code null}), which can be shared by columns which have
+   *          similar values but not by readers
+   * @return this (for method chaining)
+   * @throws NullPointerException
+   *           if the given cache is {@code null}
+   * @throws IllegalArgumentException
+   *           if the given index is negative
+   */
+  public CsvReader deduplicate(final int columnIndex, final CsvValueCache cache)
+      throws NullPointerException, IllegalArgumentException {
+    Objects.requireNonNull(cache);
+    if (columnIndex < 0) {
+      throw new IllegalArgumentException("Invalid column index " + columnIndex);
+    }
+
+    if (caches == null) {
+      caches = new CsvValueCache[columnIndex + 1];
+    } else if (columnIndex >= caches.length) {
+      caches = Arrays.copyOf(caches, columnIndex + 1);
+    }
+    caches[columnIndex] = cache;
+    return this;
+  }
+
+  /**
+   * Deduplicates the values of the given column, which name is resolved to an index, using the headers, when this
+   * method is invoked and thus the headers need to be read or set first.
+   *
+   * @param columnName
+   *          the name of the column (which cannot be {@code null})
+   * @param cache
+   *          the cache used for the column (which cannot be {@code null})
+   * @return this (for method chaining)
+   * @throws NullPointerException
+   *           if any of the given parameters is {@code null}
+   * @throws CsvHeadersNotSetException
+   *           if the headers are not yet read or set
+   * @throws CsvColumnNotFoundException
+   *           if the given column is not found
+   * @see #deduplicate(int, CsvValueCache)
+   */
+  public CsvReader deduplicate(final String columnName, final CsvValueCache cache)
+      throws NullPointerException, CsvHeadersNotSetException, CsvColumnNotFoundException {
+    if (headers == null) {
+      throw new CsvHeadersNotSetException();
+    }
+    return deduplicate(headers.indexOf(columnName), cache);
+  }
+
   public boolean hasMoreLines() throws CsvReadException {
     return reader.hasMoreLines();
   }
 
   public CsvReader headers(final Headers headers) throws NullPointerException {
     this.headers = Objects.requireNonNull(headers);
+    this.reusedLine = null;
+    this.reusedValues = null;
+    return this;
+  }
+
+  /**
+   * Returns {@code true} if {@link #readLine()} returns the same line for every line read, {@code false} otherwise
+   *
+   * @return {@code true} if the lines are {@link #reuseLines() reused}, {@code false} otherwise
+   */
+  boolean isReusingLines() {
+    return reuseLines;
+  }
+
+  /**
+   * Makes {@link #readLine()} return {@link LazyCsvLine}s, which keep the values of a line in one array and only create
+   * the {@link String} values when these are requested. This saves creating objects for values that are never used.
+   * Lines are not {@link #reuseLines() reused} when lazy.
+   *
+   * @return this (for method chaining)
+   */
+  public CsvReader lazyLines() {
+    reuseLines = false;
+    if (lineChars == null) {
+      lineChars = new char[256];
+      lineOffsets = new int[16];
+    }
     return this;
   }
 
   public CsvReader readHeaders() throws CsvReadException {
     headers = new DefaultHeaders(readValues());
+    reusedLine = null;
+    reusedValues = null;
     return this;
   }
 
@@ -59,14 +342,174 @@ public class CsvReader {
       return null;
     }
 
-    final String[] values = readValues();
+    if (lineChars != null) {
+      return readLazyLine();
+    }
+
+    if (reuseLines) {
+      return readReusedLine();
+    }
+
+    return readDefaultLine();
+  }
+
+  /**
+   * Sets the headers to blank headers, if not already set, or fails if the number of values is different from the
+   * headers size
+   *
+   * @param size
+   *          the number of values of the line just read
+   * @throws CsvReadException
+   *           if the number of values is different from the headers size
+   */
+  private void failIfInvalidSize(final int size) throws CsvReadException {
     if (headers == null) {
-      headers = new BlankHeaders(values.length);
-    } else if (values.length != headers.size()) {
-      throw new CsvReadException("Row size " + values.length + " is different from header size " + headers.size());
+      headers = new BlankHeaders(size);
+    } else if (size != headers.size()) {
+      throw new CsvReadException("Row size " + size + " is different from header size " + headers.size());
+    }
+  }
+
+  /**
+   * Returns {@code true} if the given column is read, {@code false} if it is skipped
+   *
+   * @param columnIndex
+   *          the column index
+   * @return {@code true} if the given column is read, {@code false} if it is skipped
+   */
+  private boolean isSelected(final int columnIndex) {
+    return selected == null || columnIndex < selected.length && selected[columnIndex];
+  }
+
+  /**
+   * Reads the next line into an array of values sized by the headers, skipping the values of the columns that are not
+   * {@link #columns(int...) selected}
+   *
+   * @return the line, with {@code null} values for the columns that are skipped
+   * @throws CsvReadException
+   *           if an error occurs while reading
+   */
+  private DefaultCsvLine readDefaultLine() throws CsvReadException {
+    String[] values = new String[headers == null ? 16 : headers.size()];
+    int size = 0;
+    reader.beginLine();
+    while (reader.hasMoreValues()) {
+      if (size == values.length) {
+        values = Arrays.copyOf(values, Math.max(16, size * 2));
+      }
+
+      if (isSelected(size)) {
+        values[size] = readValue(size);
+      } else {
+        reader.skipValue();
+      }
+      size++;
     }
+    reader.endLine();
 
-    return new DefaultCsvLine(headers, values);
+    failIfInvalidSize(size);
+    return new DefaultCsvLine(headers, size == values.length ? values : Arrays.copyOf(values, size));
+  }
+
+  /**
+   * Reads the next line into the {@link #lineChars} and {@link #lineOffsets} and creates a lazy line with a copy of
+   * these
+   *
+   * @return the lazy line
+   * @throws CsvReadException
+   *           if an error occurs while reading
+   */
+  private LazyCsvLine readLazyLine() throws CsvReadException {
+    int size = 0;
+    int length = 0;
+    reader.beginLine();
+    while (reader.hasMoreValues()) {
+      if (size + 2 > lineOffsets.length) {
+        lineOffsets = Arrays.copyOf(lineOffsets, lineOffsets.length * 2);
+      }
+      lineOffsets[size++] = length;
+
+      if (false == isSelected(size - 1)) {
+        reader.skipValue();
+        continue;
+      }
+
+      final CharSequence value = reader.readValueSlice();
+      final int valueLength = value.length();
+      if (length + valueLength > lineChars.length) {
+        lineChars = Arrays.copyOf(lineChars, Math.max(length + valueLength, lineChars.length * 2));
+      }
+      if (value instanceof CharSlice) {
+        ((CharSlice) value).getChars(lineChars, length);
+      } else {
+        for (int i = 0; i < valueLength; i++) {
+          lineChars[length + i] = value.charAt(i);
+        }
+      }
+      length += valueLength;
+    }
+    reader.endLine();
+    lineOffsets[size] = length;
+
+    failIfInvalidSize(size);
+    return new LazyCsvLine(headers, Arrays.copyOf(lineChars, length), Arrays.copyOf(lineOffsets, size + 1), selected);
+  }
+
+  /**
+   * Reads the next line into the {@link #reusedValues} and returns the {@link #reusedLine}. Both are created when the
+   * first line is read, after which the values are overwritten in place as all lines have the same number of values.
+   *
+   * @return the reused line
+   * @throws CsvReadException
+   *           if an error occurs while reading
+   */
+  private DefaultCsvLine readReusedLine() throws CsvReadException {
+    String[] values = reusedValues;
+    if (values == null) {
+      values = new String[headers == null ? 16 : headers.size()];
+    }
+
+    int size = 0;
+    reader.beginLine();
+    while (reader.hasMoreValues()) {
+      if (size == values.length) {
+        /* The line is longer than the headers (and fails) or is the first line of a file without headers */
+        values = Arrays.copyOf(values, size * 2 + 1);
+      }
+
+      if (isSelected(size)) {
+        values[size] = readValue(size);
+      } else {
+        reader.skipValue();
+        values[size] = null;
+      }
+      size++;
+    }
+    reader.endLine();
+
+    failIfInvalidSize(size);
+    if (reusedLine == null) {
+      reusedValues = size == values.length ? values : Arrays.copyOf(values, size);
+      reusedLine = new DefaultCsvLine(headers, reusedValues);
+    }
+    return reusedLine;
+  }
+
+  /**
+   * Reads the next value of the given column, which is taken from the column's cache if the column is
+   * {@link #deduplicate(int, CsvValueCache) deduplicated}
+   *
+   * @param columnIndex
+   *          the index of the column
+   * @return the value
+   * @throws CsvReadException
+   *           if an error occurs while reading
+   */
+  private String readValue(final int columnIndex) throws CsvReadException {
+    if (caches != null && columnIndex < caches.length && caches[columnIndex] != null) {
+      return caches[columnIndex].get(reader.readValueSlice());
+    }
+    return reader.readValue();
   }
 
   public String[] readValues() throws CsvReadException {
@@ -78,4 +521,93 @@ public class CsvReader {
     reader.endLine();
     return values.toArray(new String[values.size()]);
   }
+
+  /**
+   * Starts reading from the given source, keeping the configuration of this reader (such as the selected columns, the
+   * caches and the headers). This saves creating a new reader for every document, such as when a reader is kept for
+   * every thread. The headers of a document that starts with a header row need to be read again using
+   * {@link #readHeaders()}. The previous source is not closed.
+   * <p>
+   * This is only supported when this reader reads from a {@link CsvReadable}.
+   *
+   * @param in
+   *          the new source (which cannot be {@code null})
+   * @return this (for method chaining)
+   * @throws NullPointerException
+   *           if the given source is {@code null}
+   * @throws UnsupportedOperationException
+   *           if this reader does not read from a {@link CsvReadable}
+   * @see CsvReadable#reset(Readable)
+   */
+  public CsvReader reset(final Readable in) throws NullPointerException, UnsupportedOperationException {
+    if (false == reader instanceof CsvReadable) {
+      throw new UnsupportedOperationException("Only readers that read from a CsvReadable can be reset");
+    }
+
+    ((CsvReadable) reader).reset(in);
+    return this;
+  }
+
+  /**
+   * Makes {@link #readLine()} return the same line for every line read, overwriting its values in place, instead of
+   * creating a new line and a new array of values for every line. A line returned by {@link #readLine()} is thus only
+   * valid until the next invocation of {@link #readLine()} and the values needed need to be used, or copied, before
+   * then. Lines cannot be reused with the {@link #lazyLines() lazy lines} or the {@link #stream() streams}.
+   *
+   * @return this (for method chaining)
+   */
+  public CsvReader reuseLines() {
+    reuseLines = true;
+    lineChars = null;
+    lineOffsets = null;
+    return this;
+  }
+
+  /**
+   * Returns a spliterator over the remaining lines, as returned by {@link #readLine()}. The lines are read when
+   * requested. When split, the returned spliterator hands off batches of lines that are read from this reader, so that
+   * these can be processed in parallel while this reader is read sequentially.
+   * <p>
+   * The number of lines is not known in advance. Use the {@link ParallelCsvReader#stream()} to also split the reading
+   * of a file.
+   *
+   * @return a spliterator over the remaining lines
+   * @throws IllegalStateException
+   *           if the lines are {@link #reuseLines() reused}, as the lines handed off would be overwritten
+   * @see #stream()
+   */
+  public Spliterator<CsvLine> spliterator() throws IllegalStateException {
+    if (reuseLines) {
+      throw new IllegalStateException("Reused lines cannot be split");
+    }
+
+    return new Spliterators.AbstractSpliterator<CsvLine>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+      @Override
+      public boolean tryAdvance(final Consumer<? super CsvLine> action) throws CsvReadException {
+        final CsvLine line = readLine();
+        if (line == null) {
+          return false;
+        }
+        action.accept(line);
+        return true;
+      }
+    };
+  }
+
+  /**
+   * Returns a stream of the remaining lines, which closes this reader when closed
+   *
+   * @return a stream of the remaining lines
+   * @throws IllegalStateException
+   *           if the lines are {@link #reuseLines() reused}
+   * @see #spliterator()
+   */
+  public Stream<CsvLine> stream() throws IllegalStateException {
+    return StreamSupport.stream(spliterator(), false).onClose(new Runnable() {
+      @Override
+      public void run() {
+        close();
+      }
+    });
+  }
 }
@@ -0,0 +1,151 @@
+/*
+ * #%L
+ * JavaCreed CSV API
+ * %%
+ * Copyright (C) 2012 - 2015 Java Creed
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.javacreed.api.csv.reader;
+
+import com.javacreed.api.csv.common.NumbersUtils;
+
+import net.jcip.annotations.NotThreadSafe;
+
+/**
+ * A bounded cache of {@link String} values that is used to return the same {@link String} instance for values that
+ * repeat, such as those of a column with few distinct values (for example, a country or a currency). The characters of
+ * a value are looked up before a {@link String} is created and thus a {@link String} is only created when the value is
+ * not found.
+ * <p>
+ * The cache is a table indexed by the hash of the value, where every slot holds one value. A value that is not found
+ * replaces the value in its slot, so the cache never holds more values than its capacity. Columns with more distinct
+ * values than the capacity cause values to be replaced often, which is visible through the {@link #getHitRate() hit
+ * rate}.
+ * <p>
+ * This class is not thread-safe and an instance needs to be used by one reader at a time.
+ *
+ * @author Albert Attard
+ * @see CsvReader#deduplicate(int, CsvValueCache)
+ */
+@NotThreadSafe
+public class CsvValueCache {
+
+  /** The default number of values held by the cache */
+  public static final int DEFAULT_CAPACITY = 1024;
+
+  /** The maximum number of values held by the cache */
+  private static final int MAX_CAPACITY = 1 << 20;
+
+  /** The cached values indexed by their hash, which length is a power of two */
+  private final String[] values;
+
+  private long hits;
+
+  private long misses;
+
+  /**
+   * Creates an instance of this class which holds up to {@link #DEFAULT_CAPACITY} values
+   */
+  public CsvValueCache() {
+    this(CsvValueCache.DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Creates an instance of this class
+   *
+   * @param capacity
+   *          the maximum number of values held by the cache (which must be between 1 and 1048576 both inclusive),
+   *          which is rounded up to the next power of two
+   * @throws IllegalArgumentException
+   *           if the given capacity is out of range
+   */
+  public CsvValueCache(final int capacity) throws IllegalArgumentException {
+    NumbersUtils.failIfNotInRange(capacity, 1, CsvValueCache.MAX_CAPACITY, "capacity");
+    values = new String[capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1];
+  }
+
+  /**
+   * Returns the cached value which has the same characters as the given value, creating and caching one if none is
+   * found
+   *
+   * @param value
+   *          the characters of the value (which cannot be {@code null})
+   * @return the cached value (which has the same characters as the given value)
+   * @throws NullPointerException
+   *           if the given value is {@code null}
+   */
+  public String get(final CharSequence value) throws NullPointerException {
+    final int length = value.length();
+    int hash = 0;
+    for (int i = 0; i < length; i++) {
+      hash = 31 * hash + value.charAt(i);
+    }
+
+    /* Spread the high bits as the low bits of the hash of similar values are often the same */
+    final int index = (hash ^ hash >>> 16) & values.length - 1;
+    final String cached = values[index];
+    if (cached != null && cached.hashCode() == hash && cached.contentEquals(value)) {
+      hits++;
+      return cached;
+    }
+
+    misses++;
+    final String created = value.toString();
+    values[index] = created;
+    return created;
+  }
+
+  /**
+   * Returns the maximum number of values held by the cache
+   *
+   * @return the maximum number of values held by the cache
+   */
+  public int getCapacity() {
+    return values.length;
+  }
+
+  /**
+   * Returns the number of values found in the cache
+   *
+   * @return the number of values found in the cache
+   */
+  public long getHits() {
+    return hits;
+  }
+
+  /**
+   * Returns the ratio of the values found in the cache to the values looked up, or 0 if none was looked up
+   *
+   * @return the ratio of the values found in the cache to the values looked up (between 0 and 1 both inclusive)
+   */
+  public double getHitRate() {
+    final long lookups = hits + misses;
+    return lookups == 0 ? 0 : (double) hits / lookups;
+  }
+
+  /**
+   * Returns the number of values not found in the cache, for which a {@link String} was created
+   *
+   * @return the number of values not found in the cache
+   */
+  public long getMisses() {
+    return misses;
+  }
+
+  @Override
+  public String toString() {
+    return "Cache of " + values.length + " values with " + hits + " hits and " + misses + " misses";
+  }
+}
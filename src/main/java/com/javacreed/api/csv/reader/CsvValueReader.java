@@ -0,0 +1,99 @@
+/*
+ * #%L
+ * JavaCreed CSV API
+ * %%
+ * Copyright (C) 2012 - 2015 Java Creed
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.javacreed.api.csv.reader;
+
+/**
+ * Reads CSV values one line at a time. A line is read by calling {@link #beginLine()}, then {@link #readValue()} (or
+ * {@link #readValueSlice()}) while {@link #hasMoreValues()} returns {@code true} and finally {@link #endLine()}.
+ * <p>
+ * Once a method fails, the reader is left in an invalid state and any further invocation fails.
+ *
+ * @author Albert Attard
+ * @see CsvReadable
+ * @see ByteCsvReadable
+ */
+public interface CsvValueReader {
+
+  /**
+   * Begins a new line
+   *
+   * @throws CsvReadException
+   *           if the previous line was not ended or the reader is in an invalid state
+   */
+  void beginLine() throws CsvReadException;
+
+  /**
+   * Ends the current line by consuming the line separator
+   *
+   * @throws CsvReadException
+   *           if no line was started, the line separator is missing or the reader is in an invalid state
+   */
+  void endLine() throws CsvReadException;
+
+  /**
+   * Returns {@code true} if there is more input to be read, {@code false} otherwise
+   *
+   * @return {@code true} if there is more input to be read, {@code false} otherwise
+   * @throws CsvReadException
+   *           if an error occurs while reading or the reader is in an invalid state
+   */
+  boolean hasMoreLines() throws CsvReadException;
+
+  /**
+   * Returns {@code true} if the current line has more values, {@code false} if the end of the line is reached
+   *
+   * @return {@code true} if the current line has more values, {@code false} otherwise
+   * @throws CsvReadException
+   *           if no line was started, an error occurs while reading or the reader is in an invalid state
+   */
+  boolean hasMoreValues() throws CsvReadException;
+
+  /**
+   * Reads the next value of the current line
+   *
+   * @return the next value
+   * @throws CsvReadException
+   *           if no line was started, the value is invalid, an error occurs while reading or the reader is in an
+   *           invalid state
+   */
+  String readValue() throws CsvReadException;
+
+  /**
+   * Reads the next value of the current line and returns it as a view which is reused by this reader. The returned view
+   * is only valid until the next invocation of any method of this reader. Use {@link CharSequence#toString()} to keep
+   * the value.
+   *
+   * @return the next value as a view which is reused by this reader
+   * @throws CsvReadException
+   *           if no line was started, the value is invalid, an error occurs while reading or the reader is in an
+   *           invalid state
+   */
+  CharSequence readValueSlice() throws CsvReadException;
+
+  /**
+   * Skips the next value of the current line. The value is validated as if it is read, but it is neither copied nor
+   * unescaped.
+   *
+   * @throws CsvReadException
+   *           if no line was started, the value is invalid, an error occurs while reading or the reader is in an
+   *           invalid state
+   */
+  void skipValue() throws CsvReadException;
+}
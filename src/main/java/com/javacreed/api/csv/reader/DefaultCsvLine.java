@@ -23,46 +23,17 @@ import java.util.Objects;
 
 import com.javacreed.api.csv.common.Headers;
 
-public class DefaultCsvLine implements CsvLine {
+public class DefaultCsvLine extends AbstractCsvLine {
 
-  private final Headers headers;
   private final String[] values;
 
   public DefaultCsvLine(final Headers headers, final String[] values) {
-    this.headers = Objects.requireNonNull(headers);
+    super(headers);
     this.values = Objects.requireNonNull(values);
   }
 
-  @Override
-  public <T> T getParsedValue(final CsvParser<T> parser, final int columnIndex) throws CsvParserException {
-    final String value = getValue(columnIndex);
-    try {
-      return parser.parse(value);
-    } catch (final Exception e) {
-      throw new CsvParserException(
-          "Failed to parse the value of column with index " + columnIndex + ": '" + value + "'", e);
-    }
-  }
-
-  @Override
-  public <T> T getParsedValue(final CsvParser<T> parser, final String columnName) throws CsvParserException {
-    final int columnIndex = headers.indexOf(columnName);
-    final String value = getValue(columnIndex);
-    try {
-      return parser.parse(value);
-    } catch (final Exception e) {
-      throw new CsvParserException(
-          "Failed to parse the value of column with name '" + columnName + "': '" + value + "'", e);
-    }
-  }
-
   @Override
   public String getValue(final int columnIndex) {
     return values[columnIndex];
   }
-
-  @Override
-  public String getValue(final String columnName) {
-    return getValue(headers.indexOf(columnName));
-  }
 }
@@ -0,0 +1,133 @@
+/*
+ * #%L
+ * JavaCreed CSV API
+ * %%
+ * Copyright (C) 2012 - 2015 Java Creed
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.javacreed.api.csv.reader;
+
+import java.util.Objects;
+
+import com.javacreed.api.csv.common.Headers;
+
+import net.jcip.annotations.NotThreadSafe;
+
+/**
+ * A line which keeps all its values in one array of characters, together with the offset at which every value starts.
+ * A value is only turned into a {@link String} the first time it is requested, after which the same {@link String} is
+ * returned. Lines with many columns, of which only a few are used, thus create only a few objects.
+ *
+ * @author Albert Attard
+ * @see CsvReader#lazyLines()
+ */
+@NotThreadSafe
+public class LazyCsvLine extends AbstractCsvLine {
+
+  /** The characters of all values, one after the other */
+  private final char[] chars;
+
+  /** The offset of every value within the {@link #chars} followed by the offset after the last value */
+  private final int[] offsets;
+
+  /** The columns that were read, or {@code null} if all columns were read */
+  private final boolean[] selected;
+
+  /** The view returned by {@link #getChars(int)}, which is only created when first needed */
+  private CharSlice view;
+
+  /** The values already created, which is only created when the first value is requested */
+  private String[] values;
+
+  /**
+   * Creates an instance of this class
+   *
+   * @param headers
+   *          the headers (which cannot be {@code null})
+   * @param chars
+   *          the characters of all values, one after the other (which cannot be {@code null})
+   * @param offsets
+   *          the offset of every value followed by the offset after the last value (which cannot be {@code null})
+   * @param selected
+   *          the columns that were read (which can be {@code null} if all columns were read). The values of the other
+   *          columns are {@code null}.
+   * @throws NullPointerException
+   *           if any of the parameters, except the selected columns, are {@code null}
+   */
+  LazyCsvLine(final Headers headers, final char[] chars, final int[] offsets, final boolean[] selected)
+      throws NullPointerException {
+    super(headers);
+    this.chars = Objects.requireNonNull(chars);
+    this.offsets = Objects.requireNonNull(offsets);
+    this.selected = selected;
+  }
+
+  /**
+   * Returns the created value, or a view over the characters of the value when it is not yet created, so that primitive
+   * values are parsed without creating a {@link String}
+   */
+  @Override
+  protected CharSequence getChars(final int columnIndex) {
+    if (false == isRead(columnIndex)) {
+      return null;
+    }
+
+    if (values != null && values[columnIndex] != null) {
+      return values[columnIndex];
+    }
+
+    if (view == null) {
+      view = new CharSlice(0);
+    }
+    final int offset = offsets[columnIndex];
+    view.wrap(chars, offset, offsets[columnIndex + 1] - offset);
+    return view;
+  }
+
+  @Override
+  public String getValue(final int columnIndex) {
+    if (false == isRead(columnIndex)) {
+      return null;
+    }
+
+    if (values == null) {
+      values = new String[offsets.length - 1];
+    }
+
+    String value = values[columnIndex];
+    if (value == null) {
+      final int offset = offsets[columnIndex];
+      value = new String(chars, offset, offsets[columnIndex + 1] - offset);
+      values[columnIndex] = value;
+    }
+    return value;
+  }
+
+  /**
+   * Returns {@code true} if the value of the given column was read, {@code false} if it was skipped
+   *
+   * @param columnIndex
+   *          the column index
+   * @return {@code true} if the value of the given column was read, {@code false} if it was skipped
+   * @throws ArrayIndexOutOfBoundsException
+   *           if the given index is out of range
+   */
+  private boolean isRead(final int columnIndex) throws ArrayIndexOutOfBoundsException {
+    if (columnIndex < 0 || columnIndex >= offsets.length - 1) {
+      throw new ArrayIndexOutOfBoundsException(columnIndex);
+    }
+    return selected == null || columnIndex < selected.length && selected[columnIndex];
+  }
+}
@@ -0,0 +1,781 @@
+/*
+ * #%L
+ * JavaCreed CSV API
+ * %%
+ * Copyright (C) 2012 - 2015 Java Creed
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.javacreed.api.csv.reader;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import com.javacreed.api.csv.common.BlankHeaders;
+import com.javacreed.api.csv.common.DefaultHeaders;
+import com.javacreed.api.csv.common.Headers;
+
+import net.jcip.annotations.NotThreadSafe;
+
+/**
+ * Reads a UTF-8 encoded file using many threads. The file is split into chunks of (about) the same size which are
+ * processed in two passes, both executed by a {@link ForkJoinPool}:
+ * <ol>
+ * <li>Each chunk is scanned, without producing any values, to find where its first record (line) starts. As the state
+ * at the beginning of a chunk is not known (for example, the chunk may start within a quoted value that has line
+ * separators), each chunk is scanned from all possible states (see {@link CsvChunkScanner}). The states are then
+ * chained from the first chunk to the last, which is cheap, to pick the right record start of each chunk.</li>
+ * <li>The records between a chunk's record start and the next chunk's record start are read using a
+ * {@link ByteCsvReadable} over a memory mapped region of the file and are given to the {@link CsvLineHandler}.</li>
+ * </ol>
+ * <p>
+ * By default the lines are handled by the worker threads, in no particular order, and the handler needs to be
+ * thread-safe. When the order is {@link #preserveOrder() preserved}, the lines are handled by the thread that invokes
+ * {@link #read(CsvLineHandler)}, in the same order as they are in the file.
+ * <p>
+ * Alternatively, the lines can be consumed as a {@link #stream() stream}, which is split by the same ranges of the
+ * file when parallel.
+ * <p>
+ * Like the {@link CsvReader}, all lines need to have the same number of values as the headers, or as the first line
+ * when no headers are set.
+ *
+ * @author Albert Attard
+ * @see CsvReader
+ */
+@NotThreadSafe
+public class ParallelCsvReader {
+
+  /** The default size of the chunks (64MB) */
+  public static final long DEFAULT_CHUNK_SIZE = 64 * 1024 * 1024;
+
+  /** The size under which the chunks are not reduced when streaming (1MB) */
+  private static final long MIN_STREAM_CHUNK_SIZE = 1024 * 1024;
+
+  /** The number of lines by which the batches handed off by a stream grow */
+  private static final int BATCH_UNIT = 1024;
+
+  /** The maximum number of lines in a batch handed off by a stream */
+  private static final int MAX_BATCH = 1 << 20;
+
+  /** The number of lines passed at once from a read to the thread that handles the lines in order */
+  private static final int ORDERED_BATCH = 1024;
+
+  /** The maximum number of batches of lines that a read holds until these are handled in order */
+  private static final int MAX_ORDERED_BATCHES = 16;
+
+  /** Marks the end of the lines of a read, which are handled in order */
+  private static final List<CsvLine> END_OF_RANGE = Collections.emptyList();
+
+  private final Path path;
+
+  /** The dialect shared by the readers of all chunks */
+  private final CsvDialect dialect;
+
+  private long chunkSize = ParallelCsvReader.DEFAULT_CHUNK_SIZE;
+
+  private ForkJoinPool pool;
+
+  private boolean preserveOrder;
+
+  private Headers headers;
+
+  private boolean readHeaders;
+
+  /**
+   * Creates an instance of this class using the default parameters
+   *
+   * @param path
+   *          the file (which cannot be {@code null})
+   * @throws NullPointerException
+   *           if the given path is {@code null}
+   */
+  public ParallelCsvReader(final Path path) throws NullPointerException {
+    this(path, CsvDialect.DEFAULT);
+  }
+
+  /**
+   * Creates an instance of this class
+   *
+   * @param path
+   *          the file (which cannot be {@code null})
+   * @param parameters
+   *          the parameters (which cannot be {@code null}). The buffer size parameter is ignored.
+   * @throws NullPointerException
+   *           if any of the parameters are {@code null}
+   * @throws IllegalArgumentException
+   *           if any of the tokens has a non ASCII character
+   */
+  public ParallelCsvReader(final Path path, final CsvReadableParameters parameters)
+      throws NullPointerException, IllegalArgumentException {
+    this(path, new CsvDialect(parameters));
+  }
+
+  /**
+   * Creates an instance of this class that uses the given dialect, which can be shared with other readers
+   *
+   * @param path
+   *          the file (which cannot be {@code null})
+   * @param dialect
+   *          the dialect (which cannot be {@code null}). The buffer size is ignored.
+   * @throws NullPointerException
+   *           if any of the parameters are {@code null}
+   * @throws IllegalArgumentException
+   *           if any of the tokens has a non ASCII character
+   */
+  public ParallelCsvReader(final Path path, final CsvDialect dialect)
+      throws NullPointerException, IllegalArgumentException {
+    this.path = Objects.requireNonNull(path);
+    this.dialect = dialect.failIfNotAscii();
+  }
+
+  /**
+   * Sets the size of the chunks in which the file is split
+   *
+   * @param chunkSize
+   *          the size of the chunks in bytes (which must be between 1 and 1GB both inclusive)
+   * @return this (for method chaining)
+   * @throws IllegalArgumentException
+   *           if the given chunk size is out of range
+   */
+  public ParallelCsvReader chunkSize(final long chunkSize) throws IllegalArgumentException {
+    if (chunkSize < 1 || chunkSize > 1024 * 1024 * 1024) {
+      throw new IllegalArgumentException("The chunk size must be between 1 and 1GB both inclusive");
+    }
+    this.chunkSize = chunkSize;
+    return this;
+  }
+
+  /**
+   * Sets the headers. The first line of the file is treated as a data line.
+   *
+   * @param headers
+   *          the headers (which cannot be {@code null})
+   * @return this (for method chaining)
+   * @throws NullPointerException
+   *           if the given headers are {@code null}
+   */
+  public ParallelCsvReader headers(final Headers headers) throws NullPointerException {
+    this.headers = Objects.requireNonNull(headers);
+    this.readHeaders = false;
+    return this;
+  }
+
+  /**
+   * Maps the given range of the file, or reads it into the heap if small
+   *
+   * @param file
+   *          the file
+   * @param position
+   *          the position of the range
+   * @param size
+   *          the size of the range
+   * @return the mapped range
+   * @throws IOException
+   *           if an IO error occurs while mapping the file
+   * @throws CsvReadException
+   *           if the range is larger than 2GB
+   */
+  private static ByteBuffer map(final FileChannel file, final long position, final long size)
+      throws IOException, CsvReadException {
+    if (size > Integer.MAX_VALUE) {
+      throw new CsvReadException("Cannot read " + size + " bytes starting from " + position
+          + " as these do not fit in 2GB (the records are too long or the input is invalid)");
+    }
+    return CsvByteReadBuffer.map(file, position, size);
+  }
+
+  /**
+   * Executes the first pass over the given file, splitting it into chunks of the given size, and returns the ranges of
+   * records to be read together with the headers
+   */
+  private Plan plan(final FileChannel file, final ForkJoinPool pool, final long chunkSize)
+      throws IOException, CsvReadException {
+    final long size = file.size();
+    if (size == 0) {
+      return new Plan(headers, new long[] { 0 }, 1);
+    }
+
+    final CsvChunkScanner scanner = new CsvChunkScanner(dialect);
+    final int chunks = (int) ((size + chunkSize - 1) / chunkSize);
+
+    /* First pass: scan the chunks from all states */
+    final List<ForkJoinTask<CsvChunkScanner.Result[]>> scans = new ArrayList<>(chunks);
+    for (int i = 0; i < chunks; i++) {
+      scans.add(pool.submit(new ScanTask(file, scanner, i * chunkSize, Math.min(size, (i + 1) * chunkSize))));
+    }
+
+    /* Chain the states to find the record start of every chunk */
+    final long[] recordStarts = new long[chunks + 1];
+    int state = CsvChunkScanner.LINE_START;
+    long position = 0;
+    for (int i = 0; i < chunks; i++) {
+      final long begin = i * chunkSize;
+      final long end = Math.min(size, begin + chunkSize);
+      CsvChunkScanner.Result result;
+      if (state == CsvChunkScanner.ERROR) {
+        result = new CsvChunkScanner.Result(state, end, -1);
+      } else if (position == begin) {
+        result = scans.get(i).join()[state];
+      } else {
+        /* A token or escaped character straddles the chunks and the chunk is scanned from where it ended */
+        final ByteBuffer bytes = ParallelCsvReader.map(file, position, Math.min(size, end + scanner.lookahead())
+            - position);
+        result = scanner.scan(bytes, position, 0, (int) Math.max(0, end - position), state);
+      }
+      recordStarts[i] = result.firstRecordStart;
+      state = result.state;
+      position = Math.max(result.position, end);
+    }
+    recordStarts[chunks] = size;
+
+    /* Headers and the number of values per line are taken from the first line */
+    final ByteBuffer firstChunk = ParallelCsvReader.map(file, 0, Math.min(size, chunkSize + scanner.lookahead()));
+    long firstLineEnd = scanner.nextRecordStart(firstChunk, 0, 0);
+    /* The first line is longer than the first chunk and ends where the next record start is */
+    for (int i = 1; firstLineEnd == -1; i++) {
+      firstLineEnd = recordStarts[i];
+    }
+
+    final Headers headers;
+    long dataStart = 0;
+    if (readHeaders || this.headers == null) {
+      final String[] values = new CsvReader(new ByteCsvReadable(
+          ParallelCsvReader.map(file, 0, firstLineEnd), dialect)).readValues();
+      if (readHeaders) {
+        headers = new DefaultHeaders(values);
+        dataStart = firstLineEnd;
+      } else {
+        headers = new BlankHeaders(values.length);
+      }
+    } else {
+      headers = this.headers;
+    }
+
+    /* The ranges between the record starts, skipping the chunks that have no record start and the headers */
+    final long[] boundaries = new long[chunks + 1];
+    int count = 0;
+    for (int i = 0; i < chunks; i++) {
+      if (recordStarts[i] == -1) {
+        continue;
+      }
+
+      int next = i + 1;
+      while (recordStarts[next] == -1) {
+        next++;
+      }
+
+      final long from = Math.max(recordStarts[i], dataStart);
+      if (from < recordStarts[next]) {
+        boundaries[count++] = from;
+      }
+    }
+    boundaries[count++] = size;
+
+    return new Plan(headers, Arrays.copyOf(boundaries, count), firstLineEnd);
+  }
+
+  /**
+   * Sets the pool used to read the chunks. By default a new pool is created for every read and shutdown when the read
+   * completes.
+   *
+   * @param pool
+   *          the pool (which cannot be {@code null})
+   * @return this (for method chaining)
+   * @throws NullPointerException
+   *           if the given pool is {@code null}
+   */
+  public ParallelCsvReader pool(final ForkJoinPool pool) throws NullPointerException {
+    this.pool = Objects.requireNonNull(pool);
+    return this;
+  }
+
+  /**
+   * Handles the lines in the same order as these are in the file, using the thread that invokes
+   * {@link #read(CsvLineHandler)}. The chunks are still read in parallel, but a limited number of chunks (twice the
+   * pool's parallelism) are read ahead of the chunk being handled.
+   * <p>
+   * The lines read ahead are kept in memory until these are handled. Each chunk being read ahead holds up to 16
+   * batches of 1024 lines, and its read waits for the lines to be handled before reading more. Thus the lines kept in
+   * memory are bounded by the parallelism and not by the {@link #chunkSize(long) chunk size}.
+   *
+   * @return this (for method chaining)
+   */
+  public ParallelCsvReader preserveOrder() {
+    this.preserveOrder = true;
+    return this;
+  }
+
+  /**
+   * Reads the whole file and passes every line to the given handler
+   *
+   * @param handler
+   *          the handler (which cannot be {@code null})
+   * @throws NullPointerException
+   *           if the given handler is {@code null}
+   * @throws CsvReadException
+   *           if the file cannot be read, is invalid or the handler fails
+   */
+  public void read(final CsvLineHandler handler) throws NullPointerException, CsvReadException {
+    Objects.requireNonNull(handler);
+
+    final ForkJoinPool pool = this.pool == null ? new ForkJoinPool() : this.pool;
+    try (FileChannel file = FileChannel.open(path, StandardOpenOption.READ)) {
+      read(file, pool, handler);
+    } catch (final IOException e) {
+      throw new CsvReadException("Failed to read file " + path, e);
+    } finally {
+      if (this.pool == null) {
+        pool.shutdown();
+      }
+    }
+  }
+
+  /**
+   * Reads the given file
+   */
+  private void read(final FileChannel file, final ForkJoinPool pool, final CsvLineHandler handler)
+      throws IOException, CsvReadException {
+    final Plan plan = plan(file, pool, chunkSize);
+
+    /* Second pass: read the records of every range */
+    final Deque<ReadTask> reads = new ArrayDeque<>();
+    final int maxPending = preserveOrder ? pool.getParallelism() * 2 : Integer.MAX_VALUE;
+    try {
+      for (int i = 0; i < plan.ranges(); i++) {
+        if (reads.size() >= maxPending) {
+          /* The read is removed once handled, so that it is cancelled if handling its lines fails */
+          ParallelCsvReader.handle(reads.getFirst(), handler);
+          reads.removeFirst();
+        }
+        final ReadTask read = new ReadTask(file, plan.headers, plan.boundaries[i], plan.boundaries[i + 1],
+            preserveOrder ? null : handler);
+        pool.execute(read);
+        reads.addLast(read);
+      }
+
+      while (false == reads.isEmpty()) {
+        ParallelCsvReader.handle(reads.getFirst(), handler);
+        reads.removeFirst();
+      }
+    } finally {
+      for (final ReadTask read : reads) {
+        read.cancel(true);
+      }
+    }
+  }
+
+  /**
+   * Passes the lines of the given read (if these are not handled by the read itself) to the given handler, as these
+   * are read, and waits for the read to complete
+   */
+  private static void handle(final ReadTask read, final CsvLineHandler handler) throws CsvReadException {
+    if (read.batches != null) {
+      for (List<CsvLine> batch; (batch = read.takeBatch()) != ParallelCsvReader.END_OF_RANGE;) {
+        for (final CsvLine line : batch) {
+          try {
+            handler.handleLine(line);
+          } catch (final Exception e) {
+            throw new CsvReadException("Failed to handle line", e);
+          }
+        }
+      }
+    }
+    read.join();
+  }
+
+  /**
+   * Treats the first line of the file as the headers
+   *
+   * @return this (for method chaining)
+   */
+  public ParallelCsvReader readHeaders() {
+    this.headers = null;
+    this.readHeaders = true;
+    return this;
+  }
+
+  /**
+   * Creates a reader that reads the records within the given range of the file
+   */
+  private CsvReader reader(final FileChannel file, final Headers headers, final long from, final long to)
+      throws CsvReadException {
+    try {
+      return new CsvReader(new ByteCsvReadable(ParallelCsvReader.map(file, from, to - from), dialect))
+          .headers(headers);
+    } catch (final IOException e) {
+      throw new CsvReadException("Failed to map file " + path, e);
+    }
+  }
+
+  /**
+   * Returns a stream of the lines of the file, in the same order as these are in the file. The file is opened, and its
+   * first pass (which finds where the records start) is executed, by this method, and is closed when the returned
+   * stream is closed. Thus the returned stream needs to be closed when done.
+   * <p>
+   * When the stream is {@link Stream#parallel() parallel}, it is split by ranges of the file, each of which is read
+   * independently. To have enough ranges for the {@link ForkJoinPool#commonPool() common pool}, the file is split in
+   * chunks that are smaller than the {@link #chunkSize(long) chunk size} when the file is small (but not smaller than
+   * 1MB). The {@link #preserveOrder()} option does not apply to streams and the pool is only used for the first pass.
+   *
+   * @return the stream of lines of the file (which needs to be closed)
+   * @throws CsvReadException
+   *           if the file cannot be read or its first line is invalid
+   */
+  public Stream<CsvLine> stream() throws CsvReadException {
+    final FileChannel file;
+    try {
+      file = FileChannel.open(path, StandardOpenOption.READ);
+    } catch (final IOException e) {
+      throw new CsvReadException("Failed to open file " + path, e);
+    }
+
+    final ForkJoinPool pool = this.pool == null ? new ForkJoinPool() : this.pool;
+    boolean opened = false;
+    try {
+      final long chunkSize = Math.min(this.chunkSize, Math.max(ParallelCsvReader.MIN_STREAM_CHUNK_SIZE,
+          file.size() / (ForkJoinPool.getCommonPoolParallelism() * 4L)));
+      final Plan plan = plan(file, pool, chunkSize);
+      final Stream<CsvLine> stream = StreamSupport.stream(new LineSpliterator(file, plan, 0, plan.ranges()), false)
+          .onClose(new Runnable() {
+            @Override
+            public void run() {
+              try {
+                file.close();
+              } catch (final IOException e) {}
+            }
+          });
+      opened = true;
+      return stream;
+    } catch (final IOException e) {
+      throw new CsvReadException("Failed to read file " + path, e);
+    } finally {
+      if (this.pool == null) {
+        pool.shutdown();
+      }
+      if (false == opened) {
+        try {
+          file.close();
+        } catch (final IOException e) {}
+      }
+    }
+  }
+
+  /**
+   * Splits the lines of a file by the ranges of records found by the first pass. A range is split from the other
+   * ranges before it is read. Once a range is being read, and no more ranges are left, batches of lines read from it
+   * are handed off instead.
+   *
+   * @author Albert Attard
+   */
+  private class LineSpliterator implements Spliterator<CsvLine> {
+
+    private final FileChannel file;
+    private final Plan plan;
+
+    /** The index of the next range to be read */
+    private int range;
+
+    /** The index after the last range to be read */
+    private final int end;
+
+    /** The reader of the range being read or {@code null} if none is being read */
+    private CsvReader reader;
+
+    /** The size of the last batch handed off */
+    private int batch;
+
+    private LineSpliterator(final FileChannel file, final Plan plan, final int range, final int end) {
+      this.file = file;
+      this.plan = plan;
+      this.range = range;
+      this.end = end;
+    }
+
+    @Override
+    public int characteristics() {
+      return Spliterator.ORDERED | Spliterator.NONNULL;
+    }
+
+    /**
+     * Returns the number of bytes left to be read divided by the length of the first line
+     */
+    @Override
+    public long estimateSize() {
+      final long bytes = plan.boundaries[end] - plan.boundaries[range];
+      return bytes / plan.lineLength + (reader == null ? 0 : 1);
+    }
+
+    @Override
+    public boolean tryAdvance(final Consumer<? super CsvLine> action) throws CsvReadException {
+      Objects.requireNonNull(action);
+      for (;;) {
+        if (reader != null) {
+          final CsvLine line = reader.readLine();
+          if (line != null) {
+            action.accept(line);
+            return true;
+          }
+          reader = null;
+        }
+
+        if (range == end) {
+          return false;
+        }
+        reader = ParallelCsvReader.this.reader(file, plan.headers, plan.boundaries[range],
+            plan.boundaries[range + 1]);
+        range++;
+      }
+    }
+
+    @Override
+    public Spliterator<CsvLine> trySplit() throws CsvReadException {
+      if (reader == null && end - range > 1) {
+        final int middle = (range + end) >>> 1;
+        final LineSpliterator prefix = new LineSpliterator(file, plan, range, middle);
+        range = middle;
+        return prefix;
+      }
+
+      if (reader == null) {
+        if (range == end) {
+          return null;
+        }
+        reader = ParallelCsvReader.this.reader(file, plan.headers, plan.boundaries[range],
+            plan.boundaries[range + 1]);
+        range++;
+      }
+
+      final Object[] lines = new Object[Math.min(batch + ParallelCsvReader.BATCH_UNIT, ParallelCsvReader.MAX_BATCH)];
+      int size = 0;
+      while (size < lines.length) {
+        final CsvLine line = reader.readLine();
+        if (line == null) {
+          reader = null;
+          break;
+        }
+        lines[size++] = line;
+      }
+
+      if (size == 0) {
+        return null;
+      }
+      batch = size;
+      return Spliterators.spliterator(lines, 0, size, characteristics());
+    }
+  }
+
+  /**
+   * The outcome of the first pass: the ranges of the file that hold whole records and the headers
+   *
+   * @author Albert Attard
+   */
+  private static class Plan {
+
+    private final Headers headers;
+
+    /** The start of every range followed by the end of the last range (the file size) */
+    private final long[] boundaries;
+
+    /** The length of the first line (which is at least 1), used to estimate the number of lines */
+    private final long lineLength;
+
+    private Plan(final Headers headers, final long[] boundaries, final long lineLength) {
+      this.headers = headers;
+      this.boundaries = boundaries;
+      this.lineLength = Math.max(1, lineLength);
+    }
+
+    /**
+     * Returns the number of ranges
+     */
+    private int ranges() {
+      return boundaries.length - 1;
+    }
+  }
+
+  /**
+   * Reads the records within a range of the file. The lines are either passed to the handler, or passed in batches,
+   * through a bounded queue, to the thread that handles the lines in order when no handler is set. In the latter case
+   * the read waits while the queue is full and stops once the task is cancelled.
+   *
+   * @author Albert Attard
+   */
+  private class ReadTask extends RecursiveAction implements ForkJoinPool.ManagedBlocker {
+
+    private static final long serialVersionUID = 8003373590113454245L;
+
+    private final FileChannel file;
+    private final Headers headers;
+    private final long from;
+    private final long to;
+    private final CsvLineHandler handler;
+
+    /** The batches of lines read and not yet handled, or {@code null} if the lines are passed to the handler */
+    private final BlockingQueue<List<CsvLine>> batches;
+
+    /** The batch taken by the thread that handles the lines, which is only used by that thread */
+    private List<CsvLine> batch;
+
+    private ReadTask(final FileChannel file, final Headers headers, final long from, final long to,
+        final CsvLineHandler handler) {
+      this.file = file;
+      this.headers = headers;
+      this.from = from;
+      this.to = to;
+      this.handler = handler;
+      this.batches = handler == null ? new ArrayBlockingQueue<List<CsvLine>>(ParallelCsvReader.MAX_ORDERED_BATCHES)
+          : null;
+    }
+
+    @Override
+    public boolean block() throws InterruptedException {
+      if (batch == null) {
+        batch = batches.take();
+      }
+      return true;
+    }
+
+    @Override
+    protected void compute() {
+      if (handler != null) {
+        final CsvReader reader = ParallelCsvReader.this.reader(file, headers, from, to);
+        for (CsvLine line; (line = reader.readLine()) != null;) {
+          try {
+            handler.handleLine(line);
+          } catch (final Exception e) {
+            throw new CsvReadException("Failed to handle line", e);
+          }
+        }
+        return;
+      }
+
+      try {
+        final CsvReader reader = ParallelCsvReader.this.reader(file, headers, from, to);
+        List<CsvLine> lines = new ArrayList<>(ParallelCsvReader.ORDERED_BATCH);
+        for (CsvLine line; (line = reader.readLine()) != null;) {
+          lines.add(line);
+          if (lines.size() == ParallelCsvReader.ORDERED_BATCH) {
+            if (false == put(lines)) {
+              return;
+            }
+            lines = new ArrayList<>(ParallelCsvReader.ORDERED_BATCH);
+          }
+        }
+        if (false == lines.isEmpty()) {
+          put(lines);
+        }
+      } finally {
+        /* Also marks the end when the read fails, so that the failure is thrown when the task is joined */
+        put(ParallelCsvReader.END_OF_RANGE);
+      }
+    }
+
+    @Override
+    public boolean isReleasable() {
+      if (batch == null) {
+        batch = batches.poll();
+      }
+      return batch != null;
+    }
+
+    /**
+     * Adds the given batch to the queue, waiting while the queue is full, and returns {@code true} if the batch was
+     * added or {@code false} if the task was cancelled (or interrupted) in the meantime
+     */
+    private boolean put(final List<CsvLine> lines) {
+      try {
+        while (false == batches.offer(lines, 100, TimeUnit.MILLISECONDS)) {
+          if (isCancelled()) {
+            return false;
+          }
+        }
+        return true;
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return false;
+      }
+    }
+
+    /**
+     * Waits for and returns the next batch of lines, which is {@link ParallelCsvReader#END_OF_RANGE} once all lines are
+     * taken. The pool is allowed to compensate for the blocked thread if this is one of its workers.
+     */
+    private List<CsvLine> takeBatch() throws CsvReadException {
+      try {
+        ForkJoinPool.managedBlock(this);
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new CsvReadException("Interrupted while waiting for the lines to be read", e);
+      }
+
+      final List<CsvLine> taken = batch;
+      batch = null;
+      return taken;
+    }
+  }
+
+  /**
+   * Scans a chunk from all states
+   *
+   * @author Albert Attard
+   */
+  private static class ScanTask extends RecursiveTask<CsvChunkScanner.Result[]> {
+
+    private static final long serialVersionUID = -2497340920858519744L;
+
+    private final FileChannel file;
+    private final CsvChunkScanner scanner;
+    private final long begin;
+    private final long end;
+
+    private ScanTask(final FileChannel file, final CsvChunkScanner scanner, final long begin, final long end) {
+      this.file = file;
+      this.scanner = scanner;
+      this.begin = begin;
+      this.end = end;
+    }
+
+    @Override
+    protected CsvChunkScanner.Result[] compute() {
+      try {
+        final long size = Math.min(file.size(), end + scanner.lookahead()) - begin;
+        return scanner.scanAll(ParallelCsvReader.map(file, begin, size), begin, (int) (end - begin));
+      } catch (final IOException e) {
+        throw new CsvReadException("Failed to map file", e);
+      }
+    }
+  }
+}
@@ -0,0 +1,306 @@
+/*
+ * #%L
+ * JavaCreed CSV API
+ * %%
+ * Copyright (C) 2012 - 2015 Java Creed
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.javacreed.api.csv.reader;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Parses primitive values, and dates, directly from a {@link CharSequence}, such as a view over the characters of a
+ * line, without creating a {@link String} first.
+ *
+ * @author Albert Attard
+ */
+class ParseUtils {
+
+  /** The powers of ten that are exactly represented by a {@code double} */
+  private static final double[] POWERS_OF_TEN = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12,
+      1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+  /** The maximum number of significant digits that are exactly represented by a {@code double} */
+  private static final int MAX_EXACT_DIGITS = 15;
+
+  /**
+   * Returns the value of the given digit or -1 if the given character is not a digit
+   */
+  private static int digit(final char c) {
+    return c >= '0' && c <= '9' ? c - '0' : -1;
+  }
+
+  /**
+   * Returns {@code true} if the given texts are the same, ignoring the case, {@code false} otherwise
+   */
+  private static boolean equalsIgnoreCase(final CharSequence value, final String text) {
+    final int length = text.length();
+    if (value.length() != length) {
+      return false;
+    }
+
+    for (int i = 0; i < length; i++) {
+      if (Character.toLowerCase(value.charAt(i)) != text.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Creates the exception thrown when the value of the column with the given index cannot be parsed
+   *
+   * @param columnIndex
+   *          the column index
+   * @param value
+   *          the value that could not be parsed (which may be {@code null})
+   * @param cause
+   *          the cause
+   * @return the exception to be thrown
+   */
+  static CsvParserException failToParse(final int columnIndex, final CharSequence value, final Exception cause) {
+    return new CsvParserException(
+        "Failed to parse the value of column with index " + columnIndex + ": '" + value + "'", cause);
+  }
+
+  /**
+   * Creates the exception thrown when the value of the column with the given name cannot be parsed
+   *
+   * @param columnName
+   *          the column name
+   * @param value
+   *          the value that could not be parsed (which may be {@code null})
+   * @param cause
+   *          the cause
+   * @return the exception to be thrown
+   */
+  static CsvParserException failToParse(final String columnName, final CharSequence value, final Exception cause) {
+    return new CsvParserException(
+        "Failed to parse the value of column with name '" + columnName + "': '" + value + "'", cause);
+  }
+
+  /**
+   * Parses the given value as a boolean, which needs to be either {@code true} or {@code false} (ignoring the case).
+   * Unlike {@link Boolean#parseBoolean(String)}, any other value is invalid.
+   *
+   * @param value
+   *          the value to be parsed (which cannot be {@code null})
+   * @return the parsed value
+   * @throws NullPointerException
+   *           if the given value is {@code null}
+   * @throws IllegalArgumentException
+   *           if the given value is neither {@code true} nor {@code false}
+   */
+  static boolean parseBoolean(final CharSequence value) throws NullPointerException, IllegalArgumentException {
+    if (ParseUtils.equalsIgnoreCase(value, "true")) {
+      return true;
+    }
+    if (ParseUtils.equalsIgnoreCase(value, "false")) {
+      return false;
+    }
+    throw new IllegalArgumentException("Invalid boolean: \"" + value + "\"");
+  }
+
+  /**
+   * Parses the given value as a double, returning the same value as {@link Double#parseDouble(String)}. Decimals with
+   * up to 15 significant digits and no exponent, which are exactly represented by a {@code double}, are computed
+   * directly (with one multiplication or division). Any other value is parsed by {@link Double#parseDouble(String)}.
+   *
+   * @param value
+   *          the value to be parsed (which cannot be {@code null})
+   * @return the parsed value
+   * @throws NullPointerException
+   *           if the given value is {@code null}
+   * @throws NumberFormatException
+   *           if the given value is not a valid double
+   */
+  static double parseDouble(final CharSequence value) throws NullPointerException, NumberFormatException {
+    final int length = value.length();
+    int index = 0;
+    boolean negative = false;
+    if (length > 0) {
+      final char first = value.charAt(0);
+      if (first == '-' || first == '+') {
+        negative = first == '-';
+        index++;
+      }
+    }
+
+    long mantissa = 0;
+    int significantDigits = 0;
+    int fractionDigits = 0;
+    boolean hasDigits = false;
+    boolean hasPoint = false;
+    for (; index < length; index++) {
+      final char c = value.charAt(index);
+      final int digit = ParseUtils.digit(c);
+      if (digit >= 0) {
+        hasDigits = true;
+        if (mantissa > 0 || digit > 0) {
+          significantDigits++;
+        }
+        mantissa = mantissa * 10 + digit;
+        if (hasPoint) {
+          fractionDigits++;
+        }
+      } else if (c == '.' && false == hasPoint) {
+        hasPoint = true;
+      } else {
+        break;
+      }
+    }
+
+    if (index < length || false == hasDigits || significantDigits > ParseUtils.MAX_EXACT_DIGITS
+        || fractionDigits >= ParseUtils.POWERS_OF_TEN.length) {
+      return Double.parseDouble(value.toString());
+    }
+
+    final double result = mantissa / ParseUtils.POWERS_OF_TEN[fractionDigits];
+    return negative ? -result : result;
+  }
+
+  /**
+   * Parses the given value as an integer, in the same way as {@link Integer#parseInt(String)}
+   *
+   * @param value
+   *          the value to be parsed (which cannot be {@code null})
+   * @return the parsed value
+   * @throws NullPointerException
+   *           if the given value is {@code null}
+   * @throws NumberFormatException
+   *           if the given value is not a valid integer
+   */
+  static int parseInt(final CharSequence value) throws NullPointerException, NumberFormatException {
+    return (int) ParseUtils.parseLong(value, Integer.MIN_VALUE, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Parses the given value as an ISO local date (such as {@code 2015-12-31}). Dates in the format {@code yyyy-MM-dd}
+   * are parsed directly while others are parsed by {@link LocalDate#parse(CharSequence)}.
+   *
+   * @param value
+   *          the value to be parsed (which cannot be {@code null})
+   * @return the parsed value
+   * @throws NullPointerException
+   *           if the given value is {@code null}
+   * @throws java.time.DateTimeException
+   *           if the given value is not a valid date
+   */
+  static LocalDate parseLocalDate(final CharSequence value) throws NullPointerException {
+    if (value.length() == 10 && value.charAt(4) == '-' && value.charAt(7) == '-') {
+      final int year = ParseUtils.parseDigits(value, 0, 4);
+      final int month = ParseUtils.parseDigits(value, 5, 7);
+      final int day = ParseUtils.parseDigits(value, 8, 10);
+      if (year >= 0 && month >= 0 && day >= 0) {
+        return LocalDate.of(year, month, day);
+      }
+    }
+    return LocalDate.parse(value);
+  }
+
+  /**
+   * Parses the given value as a local date using the given formatter
+   *
+   * @param value
+   *          the value to be parsed (which cannot be {@code null})
+   * @param formatter
+   *          the formatter (which cannot be {@code null})
+   * @return the parsed value
+   * @throws NullPointerException
+   *           if any of the parameters are {@code null}
+   * @throws java.time.DateTimeException
+   *           if the given value is not a valid date
+   */
+  static LocalDate parseLocalDate(final CharSequence value, final DateTimeFormatter formatter)
+      throws NullPointerException {
+    return LocalDate.parse(value, formatter);
+  }
+
+  /**
+   * Parses the given value as a long, in the same way as {@link Long#parseLong(String)}
+   *
+   * @param value
+   *          the value to be parsed (which cannot be {@code null})
+   * @return the parsed value
+   * @throws NullPointerException
+   *           if the given value is {@code null}
+   * @throws NumberFormatException
+   *           if the given value is not a valid long
+   */
+  static long parseLong(final CharSequence value) throws NullPointerException, NumberFormatException {
+    return ParseUtils.parseLong(value, Long.MIN_VALUE, Long.MAX_VALUE);
+  }
+
+  /**
+   * Parses the given value as a whole number between the given limits. The number is accumulated as a negative number,
+   * as the minimum has no positive counterpart.
+   */
+  private static long parseLong(final CharSequence value, final long min, final long max)
+      throws NumberFormatException {
+    final int length = value.length();
+    int index = 0;
+    long limit = -max;
+    boolean negative = false;
+    if (length > 0) {
+      final char first = value.charAt(0);
+      if (first == '-') {
+        negative = true;
+        limit = min;
+        index++;
+      } else if (first == '+') {
+        index++;
+      }
+    }
+
+    if (index == length) {
+      throw new NumberFormatException("For input string: \"" + value + "\"");
+    }
+
+    final long multiplicationLimit = limit / 10;
+    long result = 0;
+    for (; index < length; index++) {
+      final int digit = ParseUtils.digit(value.charAt(index));
+      if (digit < 0 || result < multiplicationLimit) {
+        throw new NumberFormatException("For input string: \"" + value + "\"");
+      }
+      result *= 10;
+      if (result < limit + digit) {
+        throw new NumberFormatException("For input string: \"" + value + "\"");
+      }
+      result -= digit;
+    }
+    return negative ? result : -result;
+  }
+
+  /**
+   * Returns the number made of the given range of digits or -1 if any of the characters is not a digit
+   */
+  private static int parseDigits(final CharSequence value, final int from, final int to) {
+    int result = 0;
+    for (int i = from; i < to; i++) {
+      final int digit = ParseUtils.digit(value.charAt(i));
+      if (digit < 0) {
+        return -1;
+      }
+      result = result * 10 + digit;
+    }
+    return result;
+  }
+
+  /** Cannot be initialised */
+  private ParseUtils() {}
+}
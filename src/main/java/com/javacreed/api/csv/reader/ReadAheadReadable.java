@@ -0,0 +1,284 @@
+/*
+ * #%L
+ * JavaCreed CSV API
+ * %%
+ * Copyright (C) 2012 - 2015 Java Creed
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.javacreed.api.csv.reader;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.lang.reflect.Method;
+import java.nio.CharBuffer;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import com.javacreed.api.csv.common.NumbersUtils;
+
+import net.jcip.annotations.NotThreadSafe;
+
+/**
+ * A {@link Readable} that reads ahead from another {@link Readable} on a background thread, so that the source is read
+ * while the characters already read are parsed. The characters are read into a fixed number of buffers: the background
+ * thread fills the free buffers while this readable hands out the characters of the filled buffers, one buffer at a
+ * time. The background thread waits when all buffers are filled, which bounds the memory used.
+ * <p>
+ * Use it to wrap a slow source (such as a network stream) given to the {@link CsvReadable}:
+ *
+ * <pre>
+ * try (ReadAheadReadable in = new ReadAheadReadable(reader)) {
+ *   final CsvReader csvReader = new CsvReader(new CsvReadable(in));
+ *   ...
+ * }
+ * </pre>
+ * <p>
+ * This readable needs to be closed when done, which stops the background thread and closes the source (if it is
+ * {@link Closeable}). Errors thrown while reading the source are thrown by {@link #read(CharBuffer)} once all the
+ * characters read before the error are read.
+ * <p>
+ * This class is not thread-safe and this readable needs to be read by one thread at a time, while the source is only
+ * read by the background thread.
+ *
+ * @author Albert Attard
+ */
+@NotThreadSafe
+public class ReadAheadReadable implements Readable, Closeable {
+
+  /** The default number of buffers */
+  public static final int DEFAULT_BUFFERS = 2;
+
+  /** The default size of each buffer */
+  public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+  /** The first wait, in nanoseconds, when the source has no characters available */
+  private static final long MIN_IDLE_WAIT = TimeUnit.MICROSECONDS.toNanos(10);
+
+  /** The longest wait, in nanoseconds, when the source has no characters available */
+  private static final long MAX_IDLE_WAIT = TimeUnit.MILLISECONDS.toNanos(10);
+
+  /** Marks the end of the source in the queue of filled buffers */
+  private static final CharBuffer END = CharBuffer.allocate(0);
+
+  /**
+   * Creates an executor that runs every task on a new daemon thread, which is a virtual thread when these are
+   * available (from Java 21)
+   *
+   * @return an executor that runs every task on a new thread
+   */
+  private static Executor newThreadExecutor() {
+    Method virtualThread = null;
+    Object builder = null;
+    try {
+      builder = Thread.class.getMethod("ofVirtual").invoke(null);
+      virtualThread = Class.forName("java.lang.Thread$Builder").getMethod("unstarted", Runnable.class);
+    } catch (final Exception e) {
+      /* Virtual threads are not available */
+    }
+
+    final Method unstarted = virtualThread;
+    final Object virtualThreadBuilder = builder;
+    return new Executor() {
+      @Override
+      public void execute(final Runnable task) {
+        Thread thread = null;
+        if (unstarted != null) {
+          try {
+            thread = (Thread) unstarted.invoke(virtualThreadBuilder, task);
+          } catch (final Exception e) {}
+        }
+
+        if (thread == null) {
+          thread = new Thread(task, "csv-read-ahead");
+          thread.setDaemon(true);
+        }
+        thread.start();
+      }
+    };
+  }
+
+  private final Readable in;
+
+  /** The empty buffers to be filled by the background thread */
+  private final BlockingQueue<CharBuffer> free;
+
+  /** The buffers filled by the background thread, followed by {@link #END} or the error */
+  private final BlockingQueue<Object> filled;
+
+  /** Reads the source on the background thread */
+  private final FutureTask<Void> task;
+
+  /** The buffer from which the characters are read, or {@code null} if none is taken yet */
+  private CharBuffer current;
+
+  /** The error thrown while reading the source, or {@link #END} once the source is exhausted */
+  private Object last;
+
+  /**
+   * Creates an instance of this class using the default number and size of buffers and a new background thread
+   *
+   * @param in
+   *          the source (which cannot be {@code null})
+   * @throws NullPointerException
+   *           if the given source is {@code null}
+   */
+  public ReadAheadReadable(final Readable in) throws NullPointerException {
+    this(in, ReadAheadReadable.newThreadExecutor(), ReadAheadReadable.DEFAULT_BUFFERS,
+        ReadAheadReadable.DEFAULT_BUFFER_SIZE);
+  }
+
+  /**
+   * Creates an instance of this class
+   *
+   * @param in
+   *          the source (which cannot be {@code null})
+   * @param executor
+   *          the executor that runs the background task which reads the source (which cannot be {@code null}). The task
+   *          runs until the source is exhausted or this readable is closed and thus occupies a thread for that long.
+   * @param buffers
+   *          the number of buffers (which must be greater than 0). Two buffers are enough for one to be filled while
+   *          the other is parsed.
+   * @param bufferSize
+   *          the size of each buffer (which must be greater than 0)
+   * @throws NullPointerException
+   *           if the given source or executor is {@code null}
+   * @throws IllegalArgumentException
+   *           if the number or size of buffers is less than 1
+   */
+  public ReadAheadReadable(final Readable in, final Executor executor, final int buffers, final int bufferSize)
+      throws NullPointerException, IllegalArgumentException {
+    this.in = Objects.requireNonNull(in);
+    NumbersUtils.failIfNotInRange(buffers, 1, Integer.MAX_VALUE, "buffers");
+    NumbersUtils.failIfNotInRange(bufferSize, 1, Integer.MAX_VALUE, "buffer size");
+
+    free = new ArrayBlockingQueue<>(buffers);
+    for (int i = 0; i < buffers; i++) {
+      free.add(CharBuffer.allocate(bufferSize));
+    }
+    /* Room for all buffers and the end or the error */
+    filled = new ArrayBlockingQueue<>(buffers + 1);
+
+    task = new FutureTask<>(new Runnable() {
+      @Override
+      public void run() {
+        readAhead();
+      }
+    }, null);
+    executor.execute(task);
+  }
+
+  /**
+   * Stops the background thread and closes the source if it is {@link Closeable}
+   *
+   * @throws IOException
+   *           if the source fails to close
+   */
+  @Override
+  public void close() throws IOException {
+    task.cancel(true);
+    if (in instanceof Closeable) {
+      ((Closeable) in).close();
+    }
+  }
+
+  @Override
+  public int read(final CharBuffer target) throws IOException {
+    while (current == null || false == current.hasRemaining()) {
+      if (last != null) {
+        break;
+      }
+
+      if (current != null) {
+        current.clear();
+        free.add(current);
+        current = null;
+      }
+
+      final Object next;
+      try {
+        next = filled.take();
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted while waiting for the source to be read");
+      }
+
+      if (next instanceof CharBuffer && next != ReadAheadReadable.END) {
+        current = (CharBuffer) next;
+      } else {
+        last = next;
+      }
+    }
+
+    if (current == null || false == current.hasRemaining()) {
+      if (last instanceof IOException) {
+        throw (IOException) last;
+      }
+      if (last instanceof Throwable) {
+        throw new IOException("Failed to read the source", (Throwable) last);
+      }
+      return -1;
+    }
+
+    final int count = Math.min(target.remaining(), current.remaining());
+    final int limit = current.limit();
+    current.limit(current.position() + count);
+    target.put(current);
+    current.limit(limit);
+    return count;
+  }
+
+  /**
+   * Reads the source into the free buffers until the source is exhausted, fails or this readable is closed. Executed
+   * by the background thread. Any error thrown by the source, including an {@link Error}, is queued so that it is
+   * thrown by {@link #read(CharBuffer)} rather than leaving it waiting for characters that will never come.
+   */
+  private void readAhead() {
+    try {
+      while (false == Thread.currentThread().isInterrupted()) {
+        final CharBuffer buffer = free.take();
+        int read;
+        for (long wait = ReadAheadReadable.MIN_IDLE_WAIT; (read = in.read(buffer)) == 0 && buffer.position() == 0;) {
+          /* No characters are available yet, wait for longer every time (up to a limit) rather than spinning */
+          LockSupport.parkNanos(wait);
+          if (Thread.currentThread().isInterrupted()) {
+            return;
+          }
+          wait = Math.min(wait * 2, ReadAheadReadable.MAX_IDLE_WAIT);
+        }
+
+        if (buffer.position() > 0) {
+          buffer.flip();
+          filled.put(buffer);
+        }
+
+        if (read == -1) {
+          filled.put(ReadAheadReadable.END);
+          return;
+        }
+      }
+    } catch (final InterruptedException e) {
+      /* Closed */
+    } catch (final Throwable e) {
+      /* There is always room for the error as the queue can hold all buffers and the error */
+      filled.offer(e);
+    }
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * #%L
+ * JavaCreed CSV API
+ * %%
+ * Copyright (C) 2012 - 2015 Java Creed
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.javacreed.api.csv.reader;
+
+import com.javacreed.api.csv.common.NumbersUtils;
+
+import net.jcip.annotations.ThreadSafe;
+
+/**
+ * A {@link CsvBufferPool} that keeps one array per thread. A thread that creates and closes a reader for every
+ * document, such as a thread that handles a request, reuses the same array every time. No locking is involved as every
+ * thread has its own array.
+ * <p>
+ * Arrays larger than the maximum capacity are not kept, so that a thread does not hold on to a buffer that grew while
+ * reading an unusually large document.
+ *
+ * @author Albert Attard
+ */
+@ThreadSafe
+public class ThreadLocalCsvBufferPool implements CsvBufferPool {
+
+  /** The default maximum number of characters of the arrays kept by the pool (64K characters) */
+  public static final int DEFAULT_MAX_CAPACITY = 64 * 1024;
+
+  /** The array kept for every thread, which is {@code null} while acquired */
+  private final ThreadLocal<char[]> buffers = new ThreadLocal<>();
+
+  private final int maxCapacity;
+
+  /**
+   * Creates an instance of this class which keeps arrays of up to {@link #DEFAULT_MAX_CAPACITY} characters
+   */
+  public ThreadLocalCsvBufferPool() {
+    this(ThreadLocalCsvBufferPool.DEFAULT_MAX_CAPACITY);
+  }
+
+  /**
+   * Creates an instance of this class
+   *
+   * @param maxCapacity
+   *          the maximum number of characters of the arrays kept by the pool (which must be greater than 0)
+   * @throws IllegalArgumentException
+   *           if the given maximum capacity is less than 1
+   */
+  public ThreadLocalCsvBufferPool(final int maxCapacity) throws IllegalArgumentException {
+    this.maxCapacity = NumbersUtils.failIfNotInRange(maxCapacity, 1, Integer.MAX_VALUE, "max capacity");
+  }
+
+  /**
+   * Returns the array kept for the current thread if it is large enough, otherwise a new array. An array that is too
+   * small is kept for later.
+   */
+  @Override
+  public char[] acquire(final int capacity) {
+    final char[] chars = buffers.get();
+    if (chars != null && chars.length >= capacity) {
+      buffers.set(null);
+      return chars;
+    }
+    return new char[capacity];
+  }
+
+  /**
+   * Returns the maximum number of characters of the arrays kept by the pool
+   *
+   * @return the maximum number of characters of the arrays kept by the pool
+   */
+  public int getMaxCapacity() {
+    return maxCapacity;
+  }
+
+  /**
+   * Keeps the given array for the current thread, unless it is larger than the maximum capacity or the thread already
+   * has an array which is not smaller
+   */
+  @Override
+  public void release(final char[] chars) {
+    if (chars.length <= maxCapacity) {
+      final char[] kept = buffers.get();
+      if (kept == null || kept.length < chars.length) {
+        buffers.set(chars);
+      }
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "Thread local buffer pool of up to " + maxCapacity + " characters";
+  }
+}
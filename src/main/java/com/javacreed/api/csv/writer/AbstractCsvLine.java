@@ -22,13 +22,38 @@ package com.javacreed.api.csv.writer;
 import java.util.Arrays;
 import java.util.Objects;
 
+import com.javacreed.api.csv.common.ColumnRef;
 import com.javacreed.api.csv.common.Headers;
 
 public abstract class AbstractCsvLine implements CsvLine {
 
+  /** The value of the column is an object held by the {@link #values} */
+  static final byte OBJECT = 0;
+
+  /** The value of the column is an {@code int} held by the {@link #primitives} */
+  static final byte INT = 1;
+
+  /** The value of the column is a {@code long} held by the {@link #primitives} */
+  static final byte LONG = 2;
+
+  /** The value of the column is a {@code double} held by the {@link #primitives} as its raw bits */
+  static final byte DOUBLE = 3;
+
+  /** The value of the column is a {@code boolean} held by the {@link #primitives} as 1 or 0 */
+  static final byte BOOLEAN = 4;
+
   private final Headers headers;
   private final Object[] values;
 
+  /** The kind of value of every column, which is one of {@link #OBJECT}, {@link #INT}, {@link #LONG} and so on */
+  private final byte[] kinds;
+
+  /** The primitive values, which are only used by the columns which kind is not {@link #OBJECT} */
+  private final long[] primitives;
+
+  /** Whether any of the columns holds a primitive value */
+  private boolean hasPrimitives;
+
   public AbstractCsvLine(final Headers headers) throws NullPointerException {
     this(headers, new Object[headers.size()]);
   }
@@ -39,6 +64,31 @@ public abstract class AbstractCsvLine implements CsvLine {
     if (headers.size() != values.length) {
       throw new IllegalArgumentException();
     }
+    this.kinds = new byte[values.length];
+    this.primitives = new long[values.length];
+  }
+
+  /**
+   * Returns the value of the given column, boxing it if it is a primitive value
+   *
+   * @param columnIndex
+   *          the column index (which needs to be between 0 (inclusive) and {@link #size()} (exclusive))
+   * @return the value of the given column (which may be {@code null})
+   */
+  Object boxedValueAt(final int columnIndex) {
+    final long primitive = primitives[columnIndex];
+    switch (kinds[columnIndex]) {
+    case INT:
+      return Integer.valueOf((int) primitive);
+    case LONG:
+      return Long.valueOf(primitive);
+    case DOUBLE:
+      return Double.valueOf(Double.longBitsToDouble(primitive));
+    case BOOLEAN:
+      return Boolean.valueOf(primitive != 0);
+    default:
+      return values[columnIndex];
+    }
   }
 
   /**
@@ -48,13 +98,145 @@ public abstract class AbstractCsvLine implements CsvLine {
    */
   public AbstractCsvLine clear() {
     Arrays.fill(values, null);
+    if (hasPrimitives) {
+      Arrays.fill(kinds, AbstractCsvLine.OBJECT);
+      hasPrimitives = false;
+    }
     return this;
   }
 
+  /**
+   * Returns the values of this line. Primitive values are boxed and replaced by their boxed value.
+   *
+   * @return the values of this line
+   */
   public Object[] getValues() {
+    if (hasPrimitives) {
+      for (int i = 0; i < values.length; i++) {
+        values[i] = boxedValueAt(i);
+      }
+      Arrays.fill(kinds, AbstractCsvLine.OBJECT);
+      hasPrimitives = false;
+    }
     return values;
   }
 
+  /**
+   * Returns the kind of value of the given column, which is one of {@link #OBJECT}, {@link #INT}, {@link #LONG},
+   * {@link #DOUBLE} and {@link #BOOLEAN}
+   *
+   * @param columnIndex
+   *          the column index (which needs to be between 0 (inclusive) and {@link #size()} (exclusive))
+   * @return the kind of value of the given column
+   */
+  byte kindAt(final int columnIndex) {
+    return kinds[columnIndex];
+  }
+
+  /**
+   * Returns the primitive value of the given column, which is only meaningful if the kind of the column is not
+   * {@link #OBJECT}
+   *
+   * @param columnIndex
+   *          the column index (which needs to be between 0 (inclusive) and {@link #size()} (exclusive))
+   * @return the primitive value of the given column
+   */
+  long primitiveAt(final int columnIndex) {
+    return primitives[columnIndex];
+  }
+
+  @Override
+  public AbstractCsvLine setBoolean(final ColumnRef column, final boolean value) {
+    return setBoolean(column.indexIn(headers), value);
+  }
+
+  @Override
+  public AbstractCsvLine setBoolean(final int columnIndex, final boolean value) {
+    return setPrimitive(columnIndex, AbstractCsvLine.BOOLEAN, value ? 1 : 0);
+  }
+
+  @Override
+  public AbstractCsvLine setBoolean(final String columnName, final boolean value) {
+    return setBoolean(headers.indexOf(columnName), value);
+  }
+
+  @Override
+  public AbstractCsvLine setDouble(final ColumnRef column, final double value) {
+    return setDouble(column.indexIn(headers), value);
+  }
+
+  @Override
+  public AbstractCsvLine setDouble(final int columnIndex, final double value) {
+    return setPrimitive(columnIndex, AbstractCsvLine.DOUBLE, Double.doubleToRawLongBits(value));
+  }
+
+  @Override
+  public AbstractCsvLine setDouble(final String columnName, final double value) {
+    return setDouble(headers.indexOf(columnName), value);
+  }
+
+  @Override
+  public AbstractCsvLine setInt(final ColumnRef column, final int value) {
+    return setInt(column.indexIn(headers), value);
+  }
+
+  @Override
+  public AbstractCsvLine setInt(final int columnIndex, final int value) {
+    return setPrimitive(columnIndex, AbstractCsvLine.INT, value);
+  }
+
+  @Override
+  public AbstractCsvLine setInt(final String columnName, final int value) {
+    return setInt(headers.indexOf(columnName), value);
+  }
+
+  @Override
+  public AbstractCsvLine setLong(final ColumnRef column, final long value) {
+    return setLong(column.indexIn(headers), value);
+  }
+
+  @Override
+  public AbstractCsvLine setLong(final int columnIndex, final long value) {
+    return setPrimitive(columnIndex, AbstractCsvLine.LONG, value);
+  }
+
+  @Override
+  public AbstractCsvLine setLong(final String columnName, final long value) {
+    return setLong(headers.indexOf(columnName), value);
+  }
+
+  /**
+   * Sets the primitive value of the given column
+   *
+   * @param columnIndex
+   *          the column index
+   * @param kind
+   *          the kind of value
+   * @param primitive
+   *          the primitive value
+   * @return this (for method chaining)
+   * @throws CsvHeadersIndexOutOfBoundsException
+   *           if the given {@code columnIndex} is out of range
+   */
+  private AbstractCsvLine setPrimitive(final int columnIndex, final byte kind, final long primitive)
+      throws CsvHeadersIndexOutOfBoundsException {
+    if (columnIndex < 0 || columnIndex >= values.length) {
+      throw new CsvHeadersIndexOutOfBoundsException(columnIndex, values.length);
+    }
+
+    values[columnIndex] = null;
+    kinds[columnIndex] = kind;
+    primitives[columnIndex] = primitive;
+    hasPrimitives = true;
+    return this;
+  }
+
+  @Override
+  public AbstractCsvLine setValue(final ColumnRef column, final Object value) {
+    setValue(column.indexIn(headers), value);
+    return this;
+  }
+
   @Override
   public AbstractCsvLine setValue(final int columnIndex, final Object value) {
     if (columnIndex < 0 || columnIndex >= values.length) {
@@ -62,6 +244,7 @@ public abstract class AbstractCsvLine implements CsvLine {
     }
 
     values[columnIndex] = value;
+    kinds[columnIndex] = AbstractCsvLine.OBJECT;
     return this;
   }
 
@@ -70,4 +253,25 @@ public abstract class AbstractCsvLine implements CsvLine {
     setValue(headers.indexOf(columnName), value);
     return this;
   }
+
+  /**
+   * Returns the number of columns of this line
+   *
+   * @return the number of columns of this line
+   */
+  int size() {
+    return values.length;
+  }
+
+  /**
+   * Returns the object value of the given column, which is only meaningful if the kind of the column is
+   * {@link #OBJECT}
+   *
+   * @param columnIndex
+   *          the column index (which needs to be between 0 (inclusive) and {@link #size()} (exclusive))
+   * @return the object value of the given column (which may be {@code null})
+   */
+  Object valueAt(final int columnIndex) {
+    return values[columnIndex];
+  }
 }
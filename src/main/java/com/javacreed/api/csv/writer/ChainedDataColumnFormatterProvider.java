@@ -20,6 +20,7 @@
 package com.javacreed.api.csv.writer;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
@@ -28,6 +29,19 @@ import net.jcip.annotations.Immutable;
 import net.jcip.annotations.NotThreadSafe;
 import net.jcip.annotations.ThreadSafe;
 
+/**
+ * A provider that tries a list of providers, in order, and returns the formatter of the first provider that has one,
+ * otherwise the default formatter.
+ * <p>
+ * When all providers are of the types provided by this package ({@link IndexColumnFormatterProvider},
+ * {@link TypeColumnFormatterProvider} and {@link NullColumnFormatterProvider}), the formatter only depends on the
+ * column index and the type of the value (or whether the value is {@code null}). In this case the formatter found for a
+ * column and type is kept and returned for the next values of the same column and type without trying the providers
+ * again. Otherwise, as other providers may return a different formatter for every value, the providers are tried for
+ * every value.
+ *
+ * @author Albert Attard
+ */
 @Immutable
 @ThreadSafe
 public class ChainedDataColumnFormatterProvider implements DataColumnFormatterProvider {
@@ -136,20 +150,138 @@ public class ChainedDataColumnFormatterProvider implements DataColumnFormatterPr
     }
   }
 
+  /**
+   * The formatters found for one type of values, indexed by column index
+   *
+   * @author Albert Attard
+   */
+  @ThreadSafe
+  private static class Resolutions {
+
+    /** The formatters indexed by column index, where {@code null} means that the column was not yet resolved */
+    private volatile DataColumnFormatter[] byColumn = new DataColumnFormatter[0];
+
+    /**
+     * Returns the formatter found for the given column, or {@code null} if the column was not yet resolved
+     *
+     * @param columnIndex
+     *          the column index (which must be greater than or equal to 0)
+     * @return the formatter found for the given column, or {@code null} if the column was not yet resolved
+     */
+    private DataColumnFormatter get(final int columnIndex) {
+      final DataColumnFormatter[] byColumn = this.byColumn;
+      return columnIndex < byColumn.length ? byColumn[columnIndex] : null;
+    }
+
+    /**
+     * Keeps the formatter found for the given column
+     *
+     * @param columnIndex
+     *          the column index (which must be greater than or equal to 0)
+     * @param columnFormatter
+     *          the formatter (which cannot be {@code null})
+     */
+    private synchronized void put(final int columnIndex, final DataColumnFormatter columnFormatter) {
+      final DataColumnFormatter[] byColumn = columnIndex < this.byColumn.length ? this.byColumn.clone()
+          : Arrays.copyOf(this.byColumn, Math.max(columnIndex + 1, this.byColumn.length * 2));
+      byColumn[columnIndex] = columnFormatter;
+      this.byColumn = byColumn;
+    }
+  }
+
   public static final DataColumnFormatterProvider DEFAULT = new ChainedDataColumnFormatterProvider.Builder().build();
 
+  /** Formatters are not kept for columns with this index or larger, as these are kept in an array per type */
+  private static final int MAX_CACHED_COLUMNS = 1 << 16;
+
+  /**
+   * Returns {@code true} if the formatter returned by the given provider only depends on the column index and the type
+   * of the value, {@code false} otherwise. Subclasses are not trusted as these may override the
+   * {@link DataColumnFormatterProvider#find(int, Object)} method.
+   *
+   * @param provider
+   *          the provider (which cannot be {@code null})
+   * @return {@code true} if the formatter returned by the given provider only depends on the column index and the type
+   *         of the value, {@code false} otherwise
+   */
+  private static boolean isCacheable(final DataColumnFormatterProvider provider) {
+    final Class<?> type = provider.getClass();
+    return type == IndexColumnFormatterProvider.class || type == TypeColumnFormatterProvider.class
+        || type == NullColumnFormatterProvider.class;
+  }
+
   private final DataColumnFormatter defaultFormatter;
 
   private final List<OrderedDataColumnFormatterProvider> list;
 
+  /** The formatters found for non-{@code null} values by type, or {@code null} if formatters cannot be cached */
+  private final ClassValue<Resolutions> resolutions;
+
+  /** The formatters found for {@code null} values, or {@code null} if formatters cannot be cached */
+  private final Resolutions nullResolutions;
+
   public ChainedDataColumnFormatterProvider(final DataColumnFormatter defaultFormatter,
       final List<OrderedDataColumnFormatterProvider> list) throws NullPointerException {
     this.defaultFormatter = Objects.requireNonNull(defaultFormatter);
     this.list = Collections.unmodifiableList(new ArrayList<>(list));
+
+    boolean cacheable = true;
+    for (final DataColumnFormatterProvider provider : this.list) {
+      cacheable &= ChainedDataColumnFormatterProvider.isCacheable(provider);
+    }
+
+    if (cacheable) {
+      this.resolutions = new ClassValue<Resolutions>() {
+        @Override
+        protected Resolutions computeValue(final Class<?> type) {
+          return new Resolutions();
+        }
+      };
+      this.nullResolutions = new Resolutions();
+    } else {
+      this.resolutions = null;
+      this.nullResolutions = null;
+    }
   }
 
   @Override
   public DataColumnFormatter find(final int columnIndex, final Object value) {
+    if (resolutions == null || columnIndex < 0
+        || columnIndex >= ChainedDataColumnFormatterProvider.MAX_CACHED_COLUMNS) {
+      return resolve(columnIndex, value);
+    }
+
+    final Resolutions byType = value == null ? nullResolutions : resolutions.get(value.getClass());
+    DataColumnFormatter columnFormatter = byType.get(columnIndex);
+    if (columnFormatter == null) {
+      columnFormatter = resolve(columnIndex, value);
+      byType.put(columnIndex, columnFormatter);
+    }
+    return columnFormatter;
+  }
+
+  /**
+   * Returns {@code true} if the formatters found only depend on the column index and the type of the value, and are
+   * thus kept and reused, {@code false} if the providers are tried for every value
+   *
+   * @return {@code true} if the formatters found only depend on the column index and the type of the value,
+   *         {@code false} otherwise
+   */
+  boolean isCacheable() {
+    return resolutions != null;
+  }
+
+  /**
+   * Tries the providers in order and returns the formatter of the first provider that has one, otherwise the default
+   * formatter
+   *
+   * @param columnIndex
+   *          the column index
+   * @param value
+   *          the value (which may be {@code null})
+   * @return the formatter (which is never {@code null})
+   */
+  private DataColumnFormatter resolve(final int columnIndex, final Object value) {
     for (final DataColumnFormatterProvider provider : list) {
       final DataColumnFormatter cellFormatter = provider.find(columnIndex, value);
       if (cellFormatter != null) {
@@ -0,0 +1,205 @@
+/*
+ * #%L
+ * JavaCreed CSV API
+ * %%
+ * Copyright (C) 2012 - 2015 Java Creed
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.javacreed.api.csv.writer;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+
+import net.jcip.annotations.Immutable;
+import net.jcip.annotations.ThreadSafe;
+
+/**
+ * Escapes text by replacing the keys (such as the value separator or a new line) found in the text with their escaped
+ * form. The keys are held in a trie, indexed by their first character through a lookup table, so that every character
+ * is only compared with the keys that start with it. Characters that do not start any key are found with one table
+ * lookup. When more than one key matches at the same position, such as {@code "\r"} and {@code "\r\n"}, the longest key
+ * is replaced.
+ * <p>
+ * Most values do not contain any key, in which case the text is returned as is, without being copied.
+ *
+ * @author Albert Attard
+ */
+@Immutable
+@ThreadSafe
+class CsvEscaper {
+
+  /**
+   * A node of the trie, which represents the characters of a key read so far. Nodes are not modified once the trie is
+   * built.
+   *
+   * @author Albert Attard
+   */
+  private static class Node {
+
+    /** The escaped form of the key which ends at this node, or {@code null} if no key ends here */
+    private String replacement;
+
+    /** The characters that follow this node, in the same order as the {@link #children} */
+    private char[] next = new char[0];
+
+    /** The nodes that follow this node */
+    private Node[] children = new Node[0];
+
+    /**
+     * Returns the node that follows this node with the given character, creating it if missing. Only used while the
+     * trie is being built.
+     *
+     * @param c
+     *          the character
+     * @return the node that follows this node with the given character (which is never {@code null})
+     */
+    private Node add(final char c) {
+      Node child = child(c);
+      if (child == null) {
+        child = new Node();
+        next = Arrays.copyOf(next, next.length + 1);
+        next[next.length - 1] = c;
+        children = Arrays.copyOf(children, children.length + 1);
+        children[children.length - 1] = child;
+      }
+      return child;
+    }
+
+    /**
+     * Returns the node that follows this node with the given character, or {@code null} if none
+     *
+     * @param c
+     *          the character
+     * @return the node that follows this node with the given character, or {@code null} if none
+     */
+    private Node child(final char c) {
+      for (int i = 0; i < next.length; i++) {
+        if (next[i] == c) {
+          return children[i];
+        }
+      }
+      return null;
+    }
+  }
+
+  /** The trie roots indexed by the first character of the keys. Characters beyond the table length start no key. */
+  private final Node[] roots;
+
+  /**
+   * Creates an instance of this class
+   *
+   * @param toEscape
+   *          the keys and their escaped forms (which cannot be {@code null}). Empty keys are ignored as these never
+   *          match.
+   * @throws NullPointerException
+   *           if the given map, or any of its keys and values, is {@code null}
+   */
+  CsvEscaper(final Map<String, String> toEscape) throws NullPointerException {
+    int maxCharacter = -1;
+    for (final String key : toEscape.keySet()) {
+      if (key.length() > 0) {
+        maxCharacter = Math.max(maxCharacter, key.charAt(0));
+      }
+    }
+
+    roots = new Node[maxCharacter + 1];
+    for (final Entry<String, String> entry : toEscape.entrySet()) {
+      final String key = entry.getKey();
+      if (key.length() > 0) {
+        Node node = roots[key.charAt(0)];
+        if (node == null) {
+          node = roots[key.charAt(0)] = new Node();
+        }
+        for (int i = 1; i < key.length(); i++) {
+          node = node.add(key.charAt(i));
+        }
+        node.replacement = Objects.requireNonNull(entry.getValue());
+      }
+    }
+  }
+
+  /**
+   * Returns the given text with all keys replaced by their escaped forms, or the given text itself if it contains no
+   * keys
+   *
+   * @param text
+   *          the text (which cannot be {@code null})
+   * @return the escaped text (which is never {@code null})
+   * @throws NullPointerException
+   *           if the given text is {@code null}
+   */
+  String escape(final String text) throws NullPointerException {
+    final int length = text.length();
+
+    /* Created when the first key is found, as most text contains no keys */
+    StringBuilder builder = null;
+    int plain = 0;
+    for (int i = 0; i < length;) {
+      final char c = text.charAt(i);
+      if (c >= roots.length || roots[c] == null) {
+        i++;
+        continue;
+      }
+
+      /* Find the longest key that starts at this character */
+      String replacement = null;
+      int matched = 0;
+      Node node = roots[c];
+      for (int j = i + 1; node != null; j++) {
+        if (node.replacement != null) {
+          replacement = node.replacement;
+          matched = j - i;
+        }
+        node = j < length ? node.child(text.charAt(j)) : null;
+      }
+
+      if (replacement == null) {
+        i++;
+        continue;
+      }
+
+      if (builder == null) {
+        builder = new StringBuilder(length + 16);
+      }
+      builder.append(text, plain, i).append(replacement);
+      i += matched;
+      plain = i;
+    }
+
+    return builder == null ? text : builder.append(text, plain, length).toString();
+  }
+
+  /**
+   * Returns {@code true} if any of the given characters is the first character of a key, {@code false} otherwise. Text
+   * made from characters which start no key is never escaped.
+   *
+   * @param characters
+   *          the characters (which cannot be {@code null})
+   * @return {@code true} if any of the given characters is the first character of a key, {@code false} otherwise
+   * @throws NullPointerException
+   *           if the given characters are {@code null}
+   */
+  boolean startsAnyKey(final CharSequence characters) throws NullPointerException {
+    for (int i = 0, length = characters.length(); i < length; i++) {
+      final char c = characters.charAt(i);
+      if (c < roots.length && roots[c] != null) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -19,6 +19,7 @@
  */
 package com.javacreed.api.csv.writer;
 
+import com.javacreed.api.csv.common.ColumnRef;
 import com.javacreed.api.csv.common.CsvColumnNotFoundException;
 import com.javacreed.api.csv.common.DefaultHeaders;
 import com.javacreed.api.csv.common.Headers;
@@ -30,6 +31,277 @@ import com.javacreed.api.csv.common.Headers;
  */
 public interface CsvLine {
 
+  /**
+   * Sets the {@code boolean} value of the column referred to by the given handle. Otherwise this method behaves like
+   * {@link #setBoolean(int, boolean)}.
+   *
+   * @param column
+   *          the column handle (which cannot be {@code null})
+   * @param value
+   *          the value
+   * @return this (for method chaining)
+   * @throws CsvColumnNotFoundException
+   *           if no column is found with the handle's name
+   * @throws UnsupportedOperationException
+   *           if the CVS does not provide column names
+   * @throws NullPointerException
+   *           if the given {@code column} is {@code null}
+   * @see #setValue(ColumnRef, Object)
+   */
+  default CsvLine setBoolean(final ColumnRef column, final boolean value)
+      throws CsvColumnNotFoundException, UnsupportedOperationException, NullPointerException {
+    return setValue(column, Boolean.valueOf(value));
+  }
+
+  /**
+   * Sets the {@code boolean} value at the given column index. By default the value is boxed and set using {@link
+   * #setValue(int, Object)}, while the {@link AbstractCsvLine} keeps it without boxing it. The value is written as if
+   * it was set as a {@link Boolean} using {@link #setValue(int, Object)}, that is, it is formatted by the column
+   * formatter registered for the {@link Boolean} type, if any.
+   *
+   * @param columnIndex
+   *          the column index (which needs to be between 0 (inclusive) and the headers' size (exclusive))
+   * @param value
+   *          the value
+   * @return this (for method chaining)
+   * @throws CsvHeadersIndexOutOfBoundsException
+   *           if the given {@code columnIndex} is out of range, that is less than 0 or greater-than/equal-to the
+   *           headers' size
+   */
+  default CsvLine setBoolean(final int columnIndex, final boolean value) throws CsvHeadersIndexOutOfBoundsException {
+    return setValue(columnIndex, Boolean.valueOf(value));
+  }
+
+  /**
+   * Sets the {@code boolean} value of the given column name. Otherwise this method behaves like {@link #setBoolean(int,
+   * boolean)} and {@link #setValue(String, Object)}.
+   *
+   * @param columnName
+   *          the column name (which cannot be {@code null})
+   * @param value
+   *          the value
+   * @return this (for method chaining)
+   * @throws CsvColumnNotFoundException
+   *           if no column is found with the given name
+   * @throws UnsupportedOperationException
+   *           if the CVS does not provide column names
+   * @throws NullPointerException
+   *           if the given {@code columnName} is {@code null}
+   */
+  default CsvLine setBoolean(final String columnName, final boolean value)
+      throws CsvColumnNotFoundException, UnsupportedOperationException, NullPointerException {
+    return setValue(columnName, Boolean.valueOf(value));
+  }
+
+  /**
+   * Sets the {@code double} value of the column referred to by the given handle. Otherwise this method behaves like
+   * {@link #setDouble(int, double)}.
+   *
+   * @param column
+   *          the column handle (which cannot be {@code null})
+   * @param value
+   *          the value
+   * @return this (for method chaining)
+   * @throws CsvColumnNotFoundException
+   *           if no column is found with the handle's name
+   * @throws UnsupportedOperationException
+   *           if the CVS does not provide column names
+   * @throws NullPointerException
+   *           if the given {@code column} is {@code null}
+   * @see #setValue(ColumnRef, Object)
+   */
+  default CsvLine setDouble(final ColumnRef column, final double value)
+      throws CsvColumnNotFoundException, UnsupportedOperationException, NullPointerException {
+    return setValue(column, Double.valueOf(value));
+  }
+
+  /**
+   * Sets the {@code double} value at the given column index. By default the value is boxed and set using {@link
+   * #setValue(int, Object)}, while the {@link AbstractCsvLine} keeps it without boxing it. The value is written as if
+   * it was set as a {@link Double} using {@link #setValue(int, Object)}, that is, it is formatted by the column
+   * formatter registered for the {@link Double} type, if any.
+   *
+   * @param columnIndex
+   *          the column index (which needs to be between 0 (inclusive) and the headers' size (exclusive))
+   * @param value
+   *          the value
+   * @return this (for method chaining)
+   * @throws CsvHeadersIndexOutOfBoundsException
+   *           if the given {@code columnIndex} is out of range, that is less than 0 or greater-than/equal-to the
+   *           headers' size
+   */
+  default CsvLine setDouble(final int columnIndex, final double value) throws CsvHeadersIndexOutOfBoundsException {
+    return setValue(columnIndex, Double.valueOf(value));
+  }
+
+  /**
+   * Sets the {@code double} value of the given column name. Otherwise this method behaves like {@link #setDouble(int,
+   * double)} and {@link #setValue(String, Object)}.
+   *
+   * @param columnName
+   *          the column name (which cannot be {@code null})
+   * @param value
+   *          the value
+   * @return this (for method chaining)
+   * @throws CsvColumnNotFoundException
+   *           if no column is found with the given name
+   * @throws UnsupportedOperationException
+   *           if the CVS does not provide column names
+   * @throws NullPointerException
+   *           if the given {@code columnName} is {@code null}
+   */
+  default CsvLine setDouble(final String columnName, final double value)
+      throws CsvColumnNotFoundException, UnsupportedOperationException, NullPointerException {
+    return setValue(columnName, Double.valueOf(value));
+  }
+
+  /**
+   * Sets the {@code int} value of the column referred to by the given handle. Otherwise this method behaves like
+   * {@link #setInt(int, int)}.
+   *
+   * @param column
+   *          the column handle (which cannot be {@code null})
+   * @param value
+   *          the value
+   * @return this (for method chaining)
+   * @throws CsvColumnNotFoundException
+   *           if no column is found with the handle's name
+   * @throws UnsupportedOperationException
+   *           if the CVS does not provide column names
+   * @throws NullPointerException
+   *           if the given {@code column} is {@code null}
+   * @see #setValue(ColumnRef, Object)
+   */
+  default CsvLine setInt(final ColumnRef column, final int value)
+      throws CsvColumnNotFoundException, UnsupportedOperationException, NullPointerException {
+    return setValue(column, Integer.valueOf(value));
+  }
+
+  /**
+   * Sets the {@code int} value at the given column index. By default the value is boxed and set using {@link
+   * #setValue(int, Object)}, while the {@link AbstractCsvLine} keeps it without boxing it. The value is written as if
+   * it was set as a {@link Integer} using {@link #setValue(int, Object)}, that is, it is formatted by the column
+   * formatter registered for the {@link Integer} type, if any.
+   *
+   * @param columnIndex
+   *          the column index (which needs to be between 0 (inclusive) and the headers' size (exclusive))
+   * @param value
+   *          the value
+   * @return this (for method chaining)
+   * @throws CsvHeadersIndexOutOfBoundsException
+   *           if the given {@code columnIndex} is out of range, that is less than 0 or greater-than/equal-to the
+   *           headers' size
+   */
+  default CsvLine setInt(final int columnIndex, final int value) throws CsvHeadersIndexOutOfBoundsException {
+    return setValue(columnIndex, Integer.valueOf(value));
+  }
+
+  /**
+   * Sets the {@code int} value of the given column name. Otherwise this method behaves like {@link #setInt(int, int)}
+   * and {@link #setValue(String, Object)}.
+   *
+   * @param columnName
+   *          the column name (which cannot be {@code null})
+   * @param value
+   *          the value
+   * @return this (for method chaining)
+   * @throws CsvColumnNotFoundException
+   *           if no column is found with the given name
+   * @throws UnsupportedOperationException
+   *           if the CVS does not provide column names
+   * @throws NullPointerException
+   *           if the given {@code columnName} is {@code null}
+   */
+  default CsvLine setInt(final String columnName, final int value)
+      throws CsvColumnNotFoundException, UnsupportedOperationException, NullPointerException {
+    return setValue(columnName, Integer.valueOf(value));
+  }
+
+  /**
+   * Sets the {@code long} value of the column referred to by the given handle. Otherwise this method behaves like
+   * {@link #setLong(int, long)}.
+   *
+   * @param column
+   *          the column handle (which cannot be {@code null})
+   * @param value
+   *          the value
+   * @return this (for method chaining)
+   * @throws CsvColumnNotFoundException
+   *           if no column is found with the handle's name
+   * @throws UnsupportedOperationException
+   *           if the CVS does not provide column names
+   * @throws NullPointerException
+   *           if the given {@code column} is {@code null}
+   * @see #setValue(ColumnRef, Object)
+   */
+  default CsvLine setLong(final ColumnRef column, final long value)
+      throws CsvColumnNotFoundException, UnsupportedOperationException, NullPointerException {
+    return setValue(column, Long.valueOf(value));
+  }
+
+  /**
+   * Sets the {@code long} value at the given column index. By default the value is boxed and set using {@link
+   * #setValue(int, Object)}, while the {@link AbstractCsvLine} keeps it without boxing it. The value is written as if
+   * it was set as a {@link Long} using {@link #setValue(int, Object)}, that is, it is formatted by the column formatter
+   * registered for the {@link Long} type, if any.
+   *
+   * @param columnIndex
+   *          the column index (which needs to be between 0 (inclusive) and the headers' size (exclusive))
+   * @param value
+   *          the value
+   * @return this (for method chaining)
+   * @throws CsvHeadersIndexOutOfBoundsException
+   *           if the given {@code columnIndex} is out of range, that is less than 0 or greater-than/equal-to the
+   *           headers' size
+   */
+  default CsvLine setLong(final int columnIndex, final long value) throws CsvHeadersIndexOutOfBoundsException {
+    return setValue(columnIndex, Long.valueOf(value));
+  }
+
+  /**
+   * Sets the {@code long} value of the given column name. Otherwise this method behaves like {@link #setLong(int,
+   * long)} and {@link #setValue(String, Object)}.
+   *
+   * @param columnName
+   *          the column name (which cannot be {@code null})
+   * @param value
+   *          the value
+   * @return this (for method chaining)
+   * @throws CsvColumnNotFoundException
+   *           if no column is found with the given name
+   * @throws UnsupportedOperationException
+   *           if the CVS does not provide column names
+   * @throws NullPointerException
+   *           if the given {@code columnName} is {@code null}
+   */
+  default CsvLine setLong(final String columnName, final long value)
+      throws CsvColumnNotFoundException, UnsupportedOperationException, NullPointerException {
+    return setValue(columnName, Long.valueOf(value));
+  }
+
+  /**
+   * Sets the value of the column referred to by the given handle. By default the value is set by the column name of the
+   * handle, while the {@link AbstractCsvLine} resolves the column index once per headers rather than for every line.
+   * Otherwise this method behaves like {@link #setValue(String, Object)}.
+   *
+   * @param column
+   *          the column handle (which cannot be {@code null})
+   * @param value
+   *          the value (which can be {@code null})
+   * @return this (for method chaining)
+   * @throws CsvColumnNotFoundException
+   *           if no column is found with the handle's name
+   * @throws UnsupportedOperationException
+   *           if the CVS does not provide column names
+   * @throws NullPointerException
+   *           if the given {@code column} is {@code null}
+   * @see ColumnRef
+   */
+  default CsvLine setValue(final ColumnRef column, final Object value)
+      throws CsvColumnNotFoundException, UnsupportedOperationException, NullPointerException {
+    return setValue(column.getColumnName(), value);
+  }
+
   /**
    * Sets the value at the given column index. The value can be {@code null} and if another value already exists in the
    * given column index, the new one will always replace the existing one. If the column index is out of range, then a
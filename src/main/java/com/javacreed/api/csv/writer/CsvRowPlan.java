@@ -0,0 +1,126 @@
+/*
+ * #%L
+ * JavaCreed CSV API
+ * %%
+ * Copyright (C) 2012 - 2015 Java Creed
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.javacreed.api.csv.writer;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+import net.jcip.annotations.NotThreadSafe;
+
+/**
+ * The column formatters used by a {@link CsvWriter}, kept for every column together with the type of the value for
+ * which these were found. Exports usually write values of the same type to a column, in which case every value is
+ * formatted by the column formatter kept for its column directly, without finding it through the
+ * {@link DataColumnFormatterProvider}. When the type of a value differs from the one kept for its column, the column
+ * formatter is found again and replaces the one kept.
+ * <p>
+ * This can only be used with formatters which column formatters depend only on the column index and the type of the
+ * value (see {@link DefaultCsvFormatter#isTypeDetermined()}).
+ *
+ * @author Albert Attard
+ */
+@NotThreadSafe
+class CsvRowPlan {
+
+  private final DefaultCsvFormatter formatter;
+
+  /** The type of the last value of every column, where {@link Void} stands for {@code null} */
+  private Class<?>[] types = new Class<?>[0];
+
+  /** The column formatter of the last value of every column */
+  private DataColumnFormatter[] columnFormatters = new DataColumnFormatter[0];
+
+  /**
+   * Creates an instance of this class
+   *
+   * @param formatter
+   *          the formatter (which cannot be {@code null}) which column formatters only depend on the column index and
+   *          the type of the value
+   * @throws NullPointerException
+   *           if the given formatter is {@code null}
+   */
+  CsvRowPlan(final DefaultCsvFormatter formatter) throws NullPointerException {
+    this.formatter = Objects.requireNonNull(formatter);
+  }
+
+  /**
+   * Returns the column formatter for the given column and value, which is the one kept for the column if the value is
+   * of the same type as the previous value of the column
+   *
+   * @param columnIndex
+   *          the column index (which must be greater than or equal to 0)
+   * @param value
+   *          the value (which may be {@code null})
+   * @return the column formatter (which is never {@code null})
+   * @throws CsvConfigurationException
+   *           if no column formatter is found
+   */
+  private DataColumnFormatter columnFormatter(final int columnIndex, final Object value)
+      throws CsvConfigurationException {
+    final Class<?> type = value == null ? Void.class : value.getClass();
+    if (columnIndex < types.length && types[columnIndex] == type) {
+      return columnFormatters[columnIndex];
+    }
+
+    final DataColumnFormatter columnFormatter = formatter.findColumnFormatter(columnIndex, value);
+    if (columnIndex >= types.length) {
+      types = Arrays.copyOf(types, columnIndex + 1);
+      columnFormatters = Arrays.copyOf(columnFormatters, columnIndex + 1);
+    }
+    types[columnIndex] = type;
+    columnFormatters[columnIndex] = columnFormatter;
+    return columnFormatter;
+  }
+
+  /**
+   * Formats and escapes the given value, using the column formatter kept for the column if the value is of the same
+   * type as the previous value of the column
+   *
+   * @param columnIndex
+   *          the column index (which must be greater than or equal to 0)
+   * @param value
+   *          the value (which may be {@code null})
+   * @return the formatted and escaped value
+   * @throws CsvConfigurationException
+   *           if the value cannot be formatted
+   */
+  CharSequence formatCellValue(final int columnIndex, final Object value) throws CsvConfigurationException {
+    return formatter.formatCellValue(columnFormatter(columnIndex, value), columnIndex, value);
+  }
+
+  /**
+   * Returns {@code true} if primitive values of the same type as the given boxed value are written to the given column
+   * as returned by their {@link Object#toString()} method and without being escaped, {@code false} otherwise. This is
+   * used to write primitive values as is, without boxing these first.
+   *
+   * @param columnIndex
+   *          the column index (which must be greater than or equal to 0)
+   * @param sample
+   *          a boxed primitive value (which cannot be {@code null})
+   * @return {@code true} if primitive values of the same type as the given value are written as is, {@code false}
+   *         otherwise
+   * @throws CsvConfigurationException
+   *           if no column formatter is found
+   */
+  boolean isWrittenAsIs(final int columnIndex, final Object sample) throws CsvConfigurationException {
+    return false == formatter.escapesPrimitives()
+        && columnFormatter(columnIndex, sample) == DefaultDataColumnFormatter.INSTANCE;
+  }
+}
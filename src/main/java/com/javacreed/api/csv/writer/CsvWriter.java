@@ -19,6 +19,7 @@
  */
 package com.javacreed.api.csv.writer;
 
+import java.io.Flushable;
 import java.io.IOException;
 import java.util.Objects;
 
@@ -26,11 +27,35 @@ import com.javacreed.api.csv.common.BlankHeaders;
 import com.javacreed.api.csv.common.DefaultHeaders;
 import com.javacreed.api.csv.common.DuplicateCsvColumnNameException;
 import com.javacreed.api.csv.common.Headers;
+import com.javacreed.api.csv.common.NumbersUtils;
 
 import net.jcip.annotations.NotThreadSafe;
 
 @NotThreadSafe
-public class CsvWriter implements AutoCloseable {
+public class CsvWriter implements AutoCloseable, Flushable {
+
+  /** The default number of buffered characters after which these are written to the {@link Appendable} (8K) */
+  public static final int DEFAULT_FLUSH_THRESHOLD = 8 * 1024;
+
+  /** A boxed value of every primitive kind, indexed by kind, used to find the column formatter of primitive values */
+  private static final Object[] BOXED_SAMPLES = { null, Integer.valueOf(0), Long.valueOf(0), Double.valueOf(0),
+      Boolean.FALSE };
+
+  /**
+   * Returns a plan that keeps the column formatters of the given formatter, or {@code null} if the column formatters of
+   * the given formatter cannot be kept. Subclasses of the {@link DefaultCsvFormatter} are not trusted, as these may
+   * override {@link DefaultCsvFormatter#formatCellValue(int, Object)} which the plan would otherwise bypass.
+   *
+   * @param formatter
+   *          the formatter (which cannot be {@code null})
+   * @return a plan that keeps the column formatters of the given formatter, or {@code null} if these cannot be kept
+   */
+  private static CsvRowPlan plan(final CsvFormatter formatter) {
+    if (formatter.getClass() == DefaultCsvFormatter.class && ((DefaultCsvFormatter) formatter).isTypeDetermined()) {
+      return new CsvRowPlan((DefaultCsvFormatter) formatter);
+    }
+    return null;
+  }
 
   private final Appendable appendable;
 
@@ -40,20 +65,80 @@ public class CsvWriter implements AutoCloseable {
 
   private CsvFormatter formatter = DefaultCsvFormatter.DEFAULT;
 
+  /** The builder used to write primitive values when the output is not buffered, which is created when first needed */
+  private StringBuilder primitiveBuffer;
+
+  /** The column formatters kept for every column, or {@code null} if the formatter does not allow keeping these */
+  private CsvRowPlan plan = CsvWriter.plan(DefaultCsvFormatter.DEFAULT);
+
   // private ErrorHandler errorHandler = DefaultErrorHandler.INSTANCE;
 
   private boolean closeAppendable;
 
+  /** The lines formatted but not yet written to the {@link #appendable}, or {@code null} if lines are not buffered */
+  private StringBuilder buffer;
+
+  /** The number of buffered characters after which these are written to the {@link #appendable} */
+  private int flushThreshold;
+
   public CsvWriter(final Appendable appendable) throws NullPointerException {
     this.appendable = Objects.requireNonNull(appendable);
   }
 
+  /**
+   * Makes the lines (and the headers) be formatted into a buffer which is written to the {@link Appendable} in large
+   * blocks, once it holds {@link #DEFAULT_FLUSH_THRESHOLD} characters or more, instead of appending every value and
+   * separator to the {@link Appendable}.
+   *
+   * @return this (for method chaining)
+   * @see #bufferOutput(int)
+   */
+  public CsvWriter bufferOutput() {
+    return bufferOutput(CsvWriter.DEFAULT_FLUSH_THRESHOLD);
+  }
+
+  /**
+   * Makes the lines (and the headers) be formatted into a buffer which is written to the {@link Appendable} in large
+   * blocks, instead of appending every value and separator to the {@link Appendable}. This saves calls to the
+   * {@link Appendable}, which may be expensive, such as when these take a lock (like {@link StringBuffer} and
+   * {@link java.io.PrintWriter}) or write to a file.
+   * <p>
+   * The buffer is written to the {@link Appendable} once it holds the given number of characters or more, when
+   * {@link #flush()} is invoked and when this writer is {@link #close() closed}. A line which fails to be formatted is
+   * not written at all. If the buffer fails to be written to the {@link Appendable}, the buffered lines are discarded.
+   *
+   * @param flushThreshold
+   *          the number of buffered characters after which these are written to the {@link Appendable} (which must be
+   *          greater than 0)
+   * @return this (for method chaining)
+   * @throws IllegalArgumentException
+   *           if the given flush threshold is less than 1
+   */
+  public CsvWriter bufferOutput(final int flushThreshold) throws IllegalArgumentException {
+    this.flushThreshold = NumbersUtils.failIfNotInRange(flushThreshold, 1, Integer.MAX_VALUE, "flush threshold");
+    if (buffer == null) {
+      buffer = new StringBuilder(Math.min(flushThreshold, CsvWriter.DEFAULT_FLUSH_THRESHOLD) + 256);
+    }
+    return this;
+  }
+
+  /**
+   * Writes the buffered lines (if any) to the {@link Appendable} and closes the {@link Appendable} if
+   * {@link #closeAppendableWhenDone() requested}
+   *
+   * @throws CsvWriteException
+   *           if the buffered lines fail to be written
+   */
   @Override
-  public void close() {
-    if (closeAppendable && appendable instanceof AutoCloseable) {
-      try {
-        ((AutoCloseable) appendable).close();
-      } catch (final Exception e) {}
+  public void close() throws CsvWriteException {
+    try {
+      writeBuffer();
+    } finally {
+      if (closeAppendable && appendable instanceof AutoCloseable) {
+        try {
+          ((AutoCloseable) appendable).close();
+        } catch (final Exception e) {}
+      }
     }
   }
 
@@ -85,7 +170,7 @@ public class CsvWriter implements AutoCloseable {
       @Override
       public void write() throws CsvWriteException {
         try {
-          writeLine(line.getValues());
+          writeLine(this);
         } finally {
           clear();
         }
@@ -93,6 +178,41 @@ public class CsvWriter implements AutoCloseable {
     };
   }
 
+  /**
+   * Writes the buffered lines (if any) to the {@link Appendable} and flushes the {@link Appendable} if it is
+   * {@link Flushable}
+   *
+   * @throws CsvWriteException
+   *           if the buffered lines fail to be written or the {@link Appendable} fails to be flushed
+   * @see #bufferOutput(int)
+   */
+  @Override
+  public void flush() throws CsvWriteException {
+    writeBuffer();
+    if (appendable instanceof Flushable) {
+      try {
+        ((Flushable) appendable).flush();
+      } catch (final IOException e) {
+        throw new CsvWriteException(e);
+      }
+    }
+  }
+
+  /**
+   * Formats the given value, using the column formatter kept by the {@link #plan} if any
+   *
+   * @param columnIndex
+   *          the column index
+   * @param value
+   *          the value (which may be {@code null})
+   * @return the formatted value
+   * @throws CsvConfigurationException
+   *           if the value cannot be formatted
+   */
+  private CharSequence formatCellValue(final int columnIndex, final Object value) throws CsvConfigurationException {
+    return plan == null ? formatter.formatCellValue(columnIndex, value) : plan.formatCellValue(columnIndex, value);
+  }
+
   /**
    * Sets the formatter to be used
    *
@@ -104,6 +224,7 @@ public class CsvWriter implements AutoCloseable {
    */
   public CsvWriter formatter(final CsvFormatter formatter) throws NullPointerException {
     this.formatter = Objects.requireNonNull(formatter, "The formatter cannot be null");
+    this.plan = CsvWriter.plan(formatter);
     return this;
   }
 
@@ -190,29 +311,141 @@ public class CsvWriter implements AutoCloseable {
     return line;
   }
 
+  /**
+   * Writes the buffered lines (if any) to the {@link Appendable}. The buffer is emptied even when this fails, so that
+   * the same lines are not written twice.
+   *
+   * @throws CsvWriteException
+   *           if the buffered lines fail to be written
+   */
+  private void writeBuffer() throws CsvWriteException {
+    if (buffer != null && buffer.length() > 0) {
+      try {
+        appendable.append(buffer);
+      } catch (final IOException e) {
+        throw new CsvWriteException(e);
+      } finally {
+        buffer.setLength(0);
+      }
+    }
+  }
+
+  /**
+   * Writes the buffered lines to the {@link Appendable} if the buffer holds as many characters as the flush threshold
+   * or more
+   *
+   * @throws CsvWriteException
+   *           if the buffered lines fail to be written
+   */
+  private void writeBufferIfFull() throws CsvWriteException {
+    if (buffer != null && buffer.length() >= flushThreshold) {
+      writeBuffer();
+    }
+  }
+
   private void writeHeader(final String... cells) throws CsvWriteException {
+    final Appendable out = buffer == null ? appendable : buffer;
+    final int start = buffer == null ? 0 : buffer.length();
+    boolean written = false;
     try {
-      appendable.append(formatter.formatHeaderValue(0, cells[0]));
+      out.append(formatter.formatHeaderValue(0, cells[0]));
       for (int columnIndex = 1; columnIndex < cells.length; columnIndex++) {
-        appendable.append(formatter.getValueSeparator());
-        appendable.append(formatter.formatHeaderValue(columnIndex, cells[columnIndex]));
+        out.append(formatter.getValueSeparator());
+        out.append(formatter.formatHeaderValue(columnIndex, cells[columnIndex]));
       }
-      appendable.append(formatter.getLineSeparator());
+      out.append(formatter.getLineSeparator());
+      written = true;
     } catch (final IOException e) {
       throw new CsvWriteException(e);
+    } finally {
+      if (false == written && buffer != null) {
+        buffer.setLength(start);
+      }
     }
+    writeBufferIfFull();
   }
 
-  private void writeLine(final Object... cells) throws CsvWriteException {
+  private void writeLine(final AbstractCsvLine line) throws CsvWriteException {
+    final Appendable out = buffer == null ? appendable : buffer;
+    final int start = buffer == null ? 0 : buffer.length();
+    boolean written = false;
     try {
-      appendable.append(formatter.formatCellValue(0, cells[0]));
-      for (int columnIndex = 1; columnIndex < cells.length; columnIndex++) {
-        appendable.append(formatter.getValueSeparator());
-        appendable.append(formatter.formatCellValue(columnIndex, cells[columnIndex]));
+      final CharSequence valueSeparator = formatter.getValueSeparator();
+      writeValue(out, line, 0);
+      for (int columnIndex = 1, size = line.size(); columnIndex < size; columnIndex++) {
+        out.append(valueSeparator);
+        writeValue(out, line, columnIndex);
       }
-      appendable.append(formatter.getLineSeparator());
+      out.append(formatter.getLineSeparator());
+      written = true;
     } catch (final IOException e) {
       throw new CsvWriteException(e);
+    } finally {
+      if (false == written && buffer != null) {
+        buffer.setLength(start);
+      }
+    }
+    writeBufferIfFull();
+  }
+
+  /**
+   * Writes the value of the given column. Primitive values are written as is, without being boxed, when these are
+   * neither formatted by a registered column formatter nor escaped. When the output is {@link #bufferOutput(int)
+   * buffered} these are written to the buffer directly, otherwise through a reusable builder.
+   *
+   * @param out
+   *          where the value is written (which cannot be {@code null})
+   * @param line
+   *          the line (which cannot be {@code null})
+   * @param columnIndex
+   *          the column index
+   * @throws IOException
+   *           if an IO error occurs while writing
+   * @throws CsvConfigurationException
+   *           if the value cannot be formatted
+   */
+  private void writeValue(final Appendable out, final AbstractCsvLine line, final int columnIndex)
+      throws IOException, CsvConfigurationException {
+    final byte kind = line.kindAt(columnIndex);
+    if (kind == AbstractCsvLine.OBJECT) {
+      out.append(formatCellValue(columnIndex, line.valueAt(columnIndex)));
+      return;
+    }
+
+    if (plan == null || false == plan.isWrittenAsIs(columnIndex, CsvWriter.BOXED_SAMPLES[kind])) {
+      out.append(formatCellValue(columnIndex, line.boxedValueAt(columnIndex)));
+      return;
+    }
+
+    final StringBuilder digits;
+    if (out == buffer) {
+      digits = buffer;
+    } else {
+      if (primitiveBuffer == null) {
+        primitiveBuffer = new StringBuilder(32);
+      }
+      digits = primitiveBuffer;
+      digits.setLength(0);
+    }
+
+    final long primitive = line.primitiveAt(columnIndex);
+    switch (kind) {
+    case AbstractCsvLine.INT:
+      digits.append((int) primitive);
+      break;
+    case AbstractCsvLine.LONG:
+      digits.append(primitive);
+      break;
+    case AbstractCsvLine.DOUBLE:
+      digits.append(Double.longBitsToDouble(primitive));
+      break;
+    default:
+      digits.append(primitive != 0);
+      break;
+    }
+
+    if (digits != buffer) {
+      out.append(digits);
     }
   }
 }
@@ -19,10 +19,8 @@
  */
 package com.javacreed.api.csv.writer;
 
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Objects;
 
 import net.jcip.annotations.Immutable;
@@ -221,6 +219,9 @@ public class DefaultCsvFormatter implements CsvFormatter {
 
   public static final String DEFAULT_LINE_SEPERATOR = "\n";
 
+  /** The characters used by the primitive values formatted as strings, such as {@code -1.5E-7}, {@code NaN} or true */
+  private static final String PRIMITIVE_CHARACTERS = "0123456789-.EInfinityNaNtruefalse";
+
   private final String valueSeparator;
 
   private final String lineSeparator;
@@ -229,7 +230,11 @@ public class DefaultCsvFormatter implements CsvFormatter {
 
   private final HeaderColumnFormatter headerColumnFormatter;
 
-  private final Map<String, String> toEscape;
+  /** Escapes the formatted values, which are returned as is when these do not need to be escaped */
+  private final CsvEscaper escaper;
+
+  /** Whether any of the characters of the formatted primitive values (such as digits) need to be escaped */
+  private final boolean escapesPrimitives;
 
   public DefaultCsvFormatter(final String valueSeparator, final String lineSeparator, final String escapeCharacter,
       final HeaderColumnFormatter headerColumnFormatter, final DataColumnFormatterProvider columnFormatterProvider) {
@@ -251,41 +256,66 @@ public class DefaultCsvFormatter implements CsvFormatter {
     map.put("\'", escapeCharacter + "'"); // Single Quote
     map.put("\"", escapeCharacter + "\""); // Double Quote
     map.put("\\", escapeCharacter + "\\"); // Backslash
-    toEscape = Collections.unmodifiableMap(map);
+    escaper = new CsvEscaper(map);
+    escapesPrimitives = escaper.startsAnyKey(DefaultCsvFormatter.PRIMITIVE_CHARACTERS);
   }
 
-  private String escape(final String text) {
-    final StringBuilder builder = new StringBuilder(text.length());
-    outerLoop: for (int i = 0, size = text.length(); i < size;) {
-      for (final Entry<String, String> entry : toEscape.entrySet()) {
-        final String escape = entry.getKey();
-        if (text.startsWith(escape, i)) {
-          builder.append(entry.getValue());
-          i += escape.length();
-          continue outerLoop;
-        }
-      }
-
-      builder.append(text.charAt(i));
-      i++;
-    }
-
-    return builder.toString();
+  /**
+   * Returns {@code true} if primitive values, once formatted as strings by the {@link DefaultDataColumnFormatter}, may
+   * need to be escaped, {@code false} if these are never escaped and can be written as is
+   *
+   * @return {@code true} if primitive values may need to be escaped, {@code false} otherwise
+   */
+  boolean escapesPrimitives() {
+    return escapesPrimitives;
   }
 
-  @Override
-  public CharSequence formatCellValue(final int columnIndex, final Object value) throws CsvConfigurationException {
+  /**
+   * Returns the column formatter for the given column index and value
+   *
+   * @param columnIndex
+   *          the column index
+   * @param value
+   *          the value (which may be {@code null})
+   * @return the column formatter (which is never {@code null})
+   * @throws CsvConfigurationException
+   *           if no column formatter is found
+   */
+  DataColumnFormatter findColumnFormatter(final int columnIndex, final Object value) throws CsvConfigurationException {
     final DataColumnFormatter columnFormatter = columnFormatterProvider.find(columnIndex, value);
     if (columnFormatter == null) {
       throw new CsvConfigurationException("Column formatter not found");
     }
+    return columnFormatter;
+  }
 
+  @Override
+  public CharSequence formatCellValue(final int columnIndex, final Object value) throws CsvConfigurationException {
+    return formatCellValue(findColumnFormatter(columnIndex, value), columnIndex, value);
+  }
+
+  /**
+   * Formats and escapes the given value using the given column formatter, which was found by
+   * {@link #findColumnFormatter(int, Object)}
+   *
+   * @param columnFormatter
+   *          the column formatter (which cannot be {@code null})
+   * @param columnIndex
+   *          the column index
+   * @param value
+   *          the value (which may be {@code null})
+   * @return the formatted and escaped value
+   * @throws CsvConfigurationException
+   *           if the column formatter returns {@code null}
+   */
+  CharSequence formatCellValue(final DataColumnFormatter columnFormatter, final int columnIndex, final Object value)
+      throws CsvConfigurationException {
     final String formatted = columnFormatter.format(columnIndex, value);
     if (formatted == null) {
       throw new CsvConfigurationException("Column formatter returned an illegal value");
     }
 
-    return escape(formatted);
+    return escaper.escape(formatted);
   }
 
   @Override
@@ -295,7 +325,7 @@ public class DefaultCsvFormatter implements CsvFormatter {
       throw new CsvConfigurationException("Header formatter returned an illegal value");
     }
 
-    return escape(formatted);
+    return escaper.escape(formatted);
   }
 
   @Override
@@ -307,4 +337,19 @@ public class DefaultCsvFormatter implements CsvFormatter {
   public String getValueSeparator() {
     return valueSeparator;
   }
+
+  /**
+   * Returns {@code true} if the column formatter returned by {@link #findColumnFormatter(int, Object)} only depends on
+   * the column index and the type of the value, in which case it can be kept for the next values of the same column and
+   * type, {@code false} otherwise. Subclasses of the {@link ChainedDataColumnFormatterProvider} are not trusted, as
+   * these may override {@link ChainedDataColumnFormatterProvider#find(int, Object)} and depend on the value.
+   *
+   * @return {@code true} if the column formatter only depends on the column index and the type of the value,
+   *         {@code false} otherwise
+   * @see ChainedDataColumnFormatterProvider#isCacheable()
+   */
+  boolean isTypeDetermined() {
+    return columnFormatterProvider.getClass() == ChainedDataColumnFormatterProvider.class
+        && ((ChainedDataColumnFormatterProvider) columnFormatterProvider).isCacheable();
+  }
 }
@@ -0,0 +1,87 @@
+/*
+ * #%L
+ * JavaCreed CSV API
+ * %%
+ * Copyright (C) 2012 - 2015 Java Creed
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.javacreed.api.csv.common;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test the {@link ColumnRef#indexIn(Headers)} method
+ *
+ * @author Albert Attard
+ * @see ColumnRef#indexIn(Headers)
+ */
+public class ColumnRef_IndexIn_Test {
+
+  /**
+   * Headers that count the lookups
+   */
+  private static class CountingHeaders extends DefaultHeaders {
+    private int lookups;
+
+    private CountingHeaders(final String... headers) {
+      super(headers);
+    }
+
+    @Override
+    public int indexOf(final String columnName) {
+      lookups++;
+      return super.indexOf(columnName);
+    }
+  }
+
+  /**
+   * Makes sure that the index is only looked up again when the headers change
+   */
+  @Test
+  public void testResolveOncePerHeaders() {
+    final ColumnRef column = new ColumnRef("b");
+    final CountingHeaders first = new CountingHeaders("a", "b", "c");
+    final CountingHeaders second = new CountingHeaders("B", "a");
+
+    Assert.assertEquals(1, column.indexIn(first));
+    Assert.assertEquals(1, column.indexIn(first));
+    Assert.assertEquals(1, first.lookups);
+
+    Assert.assertEquals(0, column.indexIn(second));
+    Assert.assertEquals(0, column.indexIn(second));
+    Assert.assertEquals(1, second.lookups);
+
+    Assert.assertEquals(1, column.indexIn(first));
+    Assert.assertEquals(2, first.lookups);
+  }
+
+  /**
+   * Makes sure that a missing column fails every time, and is not cached
+   */
+  @Test
+  public void testNotFound() {
+    final ColumnRef column = new ColumnRef("d");
+    final Headers headers = new DefaultHeaders("a", "b", "c");
+    for (int i = 0; i < 2; i++) {
+      try {
+        column.indexIn(headers);
+        Assert.fail("The column was found");
+      } catch (final CsvColumnNotFoundException e) {
+        Assert.assertEquals("Column with name 'd' was not found", e.getMessage());
+      }
+    }
+  }
+}
@@ -0,0 +1,113 @@
+/*
+ * #%L
+ * JavaCreed CSV API
+ * %%
+ * Copyright (C) 2012 - 2015 Java Creed
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.javacreed.api.csv.common;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test the {@link PerfectHashHeaders#indexOf(String)} method
+ *
+ * @author Albert Attard
+ * @see PerfectHashHeaders#indexOf(String)
+ */
+public class PerfectHashHeaders_IndexOf_Test {
+
+  private static void assertNotFound(final Headers headers, final String columnName) {
+    try {
+      headers.indexOf(columnName);
+      Assert.fail("The column " + columnName + " was found");
+    } catch (final CsvColumnNotFoundException e) {
+      Assert.assertEquals("Column with name '" + columnName + "' was not found", e.getMessage());
+    }
+  }
+
+  /**
+   * Makes sure that the lookups are case-insensitive by default, as these are with the {@link DefaultHeaders}
+   */
+  @Test
+  public void testCaseInsensitive() {
+    final Headers headers = new PerfectHashHeaders("Name", "\u00dcn\u00efc\u00f6d\u00e9", "e-mail");
+    Assert.assertEquals(3, headers.size());
+    Assert.assertEquals(0, headers.indexOf("NAME"));
+    Assert.assertEquals(1, headers.indexOf("\u00fcN\u00cfC\u00d6D\u00c9"));
+    Assert.assertEquals(2, headers.indexOf("E-Mail"));
+    PerfectHashHeaders_IndexOf_Test.assertNotFound(headers, "names");
+    PerfectHashHeaders_IndexOf_Test.assertNotFound(headers, "");
+
+    try {
+      new PerfectHashHeaders("a", "b", "A");
+      Assert.fail("The duplicate column was not detected");
+    } catch (final DuplicateCsvColumnNameException e) {}
+  }
+
+  /**
+   * Makes sure that the case is taken into account when the lookups are case-sensitive
+   */
+  @Test
+  public void testCaseSensitive() {
+    final Headers headers = new PerfectHashHeaders(true, "a", "A");
+    Assert.assertEquals(0, headers.indexOf("a"));
+    Assert.assertEquals(1, headers.indexOf("A"));
+    PerfectHashHeaders_IndexOf_Test.assertNotFound(headers, "b");
+  }
+
+  /**
+   * Uses names that have the same {@link String#hashCode()}, which cannot be placed in different slots with the first
+   * multiplier
+   */
+  @Test
+  public void testCollidingNames() {
+    Assert.assertEquals("Aa".hashCode(), "BB".hashCode());
+    final Headers headers = new PerfectHashHeaders(true, "Aa", "BB", "AaBB", "BBAa");
+    Assert.assertEquals(0, headers.indexOf("Aa"));
+    Assert.assertEquals(1, headers.indexOf("BB"));
+    Assert.assertEquals(2, headers.indexOf("AaBB"));
+    Assert.assertEquals(3, headers.indexOf("BBAa"));
+    PerfectHashHeaders_IndexOf_Test.assertNotFound(headers, "AaAa");
+  }
+
+  /**
+   * Makes sure that every column of large headers is found
+   */
+  @Test
+  public void testManyColumns() {
+    final String[] names = new String[5000];
+    for (int i = 0; i < names.length; i++) {
+      names[i] = "Sample " + i;
+    }
+
+    final Headers headers = new PerfectHashHeaders(names);
+    for (int i = 0; i < names.length; i++) {
+      Assert.assertEquals(i, headers.indexOf("sample " + i));
+    }
+    PerfectHashHeaders_IndexOf_Test.assertNotFound(headers, "Sample 5000");
+  }
+
+  /**
+   * Makes sure that empty headers do not find any column
+   */
+  @Test
+  public void testNoColumns() {
+    final Headers headers = new PerfectHashHeaders();
+    Assert.assertEquals(0, headers.size());
+    PerfectHashHeaders_IndexOf_Test.assertNotFound(headers, "a");
+  }
+}
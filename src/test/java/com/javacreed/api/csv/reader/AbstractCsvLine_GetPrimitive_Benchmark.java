@@ -0,0 +1,114 @@
+/*
+ * #%L
+ * JavaCreed CSV API
+ * %%
+ * Copyright (C) 2012 - 2015 Java Creed
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.javacreed.api.csv.reader;
+
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures reading a numeric file, with and without parsing the values directly from the characters of the
+ * {@link CsvReader#lazyLines() lazy lines}.
+ * <p>
+ * This is not a unit test and is not executed as part of the build. Run it using the {@link #main(String[])} method
+ * from the test classpath.
+ *
+ * @author Albert Attard
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AbstractCsvLine_GetPrimitive_Benchmark {
+
+  private static final CsvParser<Double> DOUBLE_PARSER = new CsvParser<Double>() {
+    @Override
+    public Double parse(final String value) {
+      return Double.parseDouble(value);
+    }
+  };
+
+  /**
+   * Runs this benchmark
+   *
+   * @param args
+   *          ignored
+   * @throws RunnerException
+   *           if the benchmark fails to run
+   */
+  public static void main(final String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(AbstractCsvLine_GetPrimitive_Benchmark.class.getSimpleName()).build())
+        .run();
+  }
+
+  /** The CSV data (about 1MB) */
+  private String data;
+
+  @Benchmark
+  public double getDouble() {
+    double sum = 0;
+    final CsvReader reader = new CsvReader(new CsvReadable(new StringReader(data))).lazyLines();
+    for (CsvLine line; (line = reader.readLine()) != null;) {
+      for (int i = 0; i < 10; i++) {
+        sum += line.getDouble(i);
+      }
+    }
+    return sum;
+  }
+
+  @Benchmark
+  public double getParsedValue() {
+    double sum = 0;
+    final CsvReader reader = new CsvReader(new CsvReadable(new StringReader(data)));
+    for (CsvLine line; (line = reader.readLine()) != null;) {
+      for (int i = 0; i < 10; i++) {
+        sum += line.getParsedValue(AbstractCsvLine_GetPrimitive_Benchmark.DOUBLE_PARSER, i);
+      }
+    }
+    return sum;
+  }
+
+  @Setup
+  public void setup() {
+    final StringBuilder builder = new StringBuilder();
+    for (int row = 0; builder.length() < 1024 * 1024; row++) {
+      for (int column = 0; column < 10; column++) {
+        builder.append(column == 0 ? "" : ",").append(row).append('.').append(column * 37 % 100);
+      }
+      builder.append('\n');
+    }
+    data = builder.toString();
+  }
+}
@@ -0,0 +1,151 @@
+/*
+ * #%L
+ * JavaCreed CSV API
+ * %%
+ * Copyright (C) 2012 - 2015 Java Creed
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.javacreed.api.csv.reader;
+
+import java.io.StringReader;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.javacreed.api.csv.common.ColumnRef;
+import com.javacreed.api.csv.common.DefaultHeaders;
+import com.javacreed.api.csv.common.Headers;
+
+/**
+ * Test the primitive accessors, such as {@link AbstractCsvLine#getInt(int)}, of both the default and the lazy lines
+ *
+ * @author Albert Attard
+ * @see AbstractCsvLine
+ */
+public class AbstractCsvLine_GetPrimitive_Test {
+
+  private static final String CSV = "int,long,double,boolean,date,other\n"
+      + "-42,9223372036854775807,\"1,5\",TRUE,2015-12-31,31/12/2015\n";
+
+  private static void assertLine(final CsvLine line) {
+    Assert.assertEquals(-42, line.getInt(0));
+    Assert.assertEquals(-42, line.getInt("int"));
+    Assert.assertEquals(Long.MAX_VALUE, line.getLong(1));
+    Assert.assertEquals(Long.MAX_VALUE, line.getLong("long"));
+    Assert.assertTrue(line.getBoolean(3));
+    Assert.assertTrue(line.getBoolean("boolean"));
+    Assert.assertEquals(LocalDate.of(2015, 12, 31), line.getLocalDate(4));
+    Assert.assertEquals(LocalDate.of(2015, 12, 31), line.getLocalDate("date"));
+    Assert.assertEquals(LocalDate.of(2015, 12, 31), line.getLocalDate(5, DateTimeFormatter.ofPattern("dd/MM/yyyy")));
+
+    try {
+      line.getDouble(2);
+      Assert.fail("The invalid double was parsed");
+    } catch (final CsvParserException e) {
+      Assert.assertEquals("Failed to parse the value of column with index 2: '1,5'", e.getMessage());
+    }
+
+    try {
+      line.getInt("long");
+      Assert.fail("The integer overflow was not detected");
+    } catch (final CsvParserException e) {
+      Assert.assertEquals("Failed to parse the value of column with name 'long': '9223372036854775807'",
+          e.getMessage());
+    }
+
+    Assert.assertEquals("1,5", line.getValue(2));
+
+    final ColumnRef date = new ColumnRef("DATE");
+    Assert.assertEquals(LocalDate.of(2015, 12, 31), line.getLocalDate(date));
+    Assert.assertEquals("2015-12-31", line.getValue(date));
+    Assert.assertEquals(-42, line.getInt(new ColumnRef("int")));
+    try {
+      line.getDouble(new ColumnRef("double"));
+      Assert.fail("The invalid double was parsed");
+    } catch (final CsvParserException e) {
+      Assert.assertEquals("Failed to parse the value of column with name 'double': '1,5'", e.getMessage());
+    }
+    Assert.assertEquals(-42D, line.getDouble(0), 0);
+  }
+
+  /**
+   * Parses the values of a default line
+   */
+  @Test
+  public void testDefaultLine() {
+    AbstractCsvLine_GetPrimitive_Test.assertLine(new CsvReader(new CsvReadable(new StringReader(
+        AbstractCsvLine_GetPrimitive_Test.CSV))).readHeaders().readLine());
+  }
+
+  /**
+   * Parses the values of a line that only implements the methods of the {@link CsvLine} which do not have a default
+   */
+  @Test
+  public void testInterfaceDefaults() {
+    final Headers headers = new DefaultHeaders("int", "long", "double", "boolean", "date", "other");
+    final String[] values = { "-42", "9223372036854775807", "1,5", "TRUE", "2015-12-31", "31/12/2015" };
+    AbstractCsvLine_GetPrimitive_Test.assertLine(new CsvLine() {
+      @Override
+      public <T> T getParsedValue(final CsvParser<T> parser, final int columnIndex) throws CsvParserException {
+        try {
+          return parser.parse(getValue(columnIndex));
+        } catch (final Exception e) {
+          throw new CsvParserException(e);
+        }
+      }
+
+      @Override
+      public <T> T getParsedValue(final CsvParser<T> parser, final String columnName) throws CsvParserException {
+        try {
+          return parser.parse(getValue(columnName));
+        } catch (final Exception e) {
+          throw new CsvParserException(e);
+        }
+      }
+
+      @Override
+      public String getValue(final int columnIndex) {
+        return values[columnIndex];
+      }
+
+      @Override
+      public String getValue(final String columnName) {
+        return values[headers.indexOf(columnName)];
+      }
+    });
+  }
+
+  /**
+   * Parses the values of a lazy line, including a column that is not selected
+   */
+  @Test
+  public void testLazyLine() {
+    final CsvLine line = new CsvReader(new CsvReadable(new StringReader(AbstractCsvLine_GetPrimitive_Test.CSV)))
+        .lazyLines().readHeaders().readLine();
+    AbstractCsvLine_GetPrimitive_Test.assertLine(line);
+
+    final CsvLine selected = new CsvReader(new CsvReadable(new StringReader(AbstractCsvLine_GetPrimitive_Test.CSV)))
+        .lazyLines().readHeaders().columns(1).readLine();
+    Assert.assertEquals(Long.MAX_VALUE, selected.getLong(1));
+    try {
+      selected.getInt(0);
+      Assert.fail("The value of a column which is not selected was parsed");
+    } catch (final CsvParserException e) {
+      Assert.assertEquals("Failed to parse the value of column with index 0: 'null'", e.getMessage());
+    }
+  }
+}
@@ -0,0 +1,179 @@
+/*
+ * #%L
+ * JavaCreed CSV API
+ * %%
+ * Copyright (C) 2012 - 2015 Java Creed
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.javacreed.api.csv.reader;
+
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test how the escaped characters are unescaped by the {@link AbstractCsvValueReader}, through both the
+ * {@link CsvReadable} and the {@link ByteCsvReadable}
+ *
+ * @author Albert Attard
+ * @see AbstractCsvValueReader
+ */
+public class AbstractCsvValueReader_Unescape_Test {
+
+  /**
+   * Reads all lines of the given CSV with the given escape character, using the character readable with different
+   * buffer sizes and the byte readable, and makes sure that all readers return the same values
+   *
+   * @param csv
+   *          the CSV
+   * @param escapeCharacter
+   *          the escape character
+   * @return the values of every line
+   */
+  private static List<List<String>> read(final String csv, final String escapeCharacter) {
+    List<List<String>> expected = null;
+    for (final int bufferSize : new int[] { 4, 1024, -1 }) {
+      final CsvReadableParameters parameters = new CsvReadableParameters();
+      parameters.setEscapeCharacter(escapeCharacter);
+
+      final CsvValueReader readable;
+      if (bufferSize == -1) {
+        readable = new ByteCsvReadable(ByteBuffer.wrap(csv.getBytes(StandardCharsets.UTF_8)), parameters);
+      } else {
+        parameters.setBufferSize(bufferSize);
+        readable = new CsvReadable(new StringReader(csv), parameters);
+      }
+
+      final List<List<String>> lines = new ArrayList<>();
+      final CsvReader reader = new CsvReader(readable);
+      while (reader.hasMoreLines()) {
+        final List<String> values = new ArrayList<>();
+        for (final String value : reader.readValues()) {
+          values.add(value);
+        }
+        lines.add(values);
+      }
+
+      if (expected == null) {
+        expected = lines;
+      } else {
+        Assert.assertEquals("Buffer size " + bufferSize, expected, lines);
+      }
+    }
+    return expected;
+  }
+
+  /**
+   * Returns the character represented by the given escaped character as these were unescaped before the lookup table,
+   * where the escape character followed by the escaped character was looked up in a map
+   *
+   * @param escapeCharacter
+   *          the escape character
+   * @param escaped
+   *          the character that follows the escape character
+   * @return the character represented by the escaped character
+   */
+  private static String revert(final String escapeCharacter, final char escaped) {
+    final Map<String, String> map = new LinkedHashMap<String, String>();
+    map.put(escapeCharacter + "t", "\t");
+    map.put(escapeCharacter + "b", "\b");
+    map.put(escapeCharacter + "n", "\n");
+    map.put(escapeCharacter + "r", "\r");
+    map.put(escapeCharacter + "f", "\f");
+    map.put(escapeCharacter + "'", "\'");
+    map.put(escapeCharacter + "\"", "\"");
+    map.put(escapeCharacter + "\\", "\\");
+
+    final String unescaped = map.get(escapeCharacter + escaped);
+    return unescaped == null ? String.valueOf(escaped) : unescaped;
+  }
+
+  /**
+   * Makes sure that an escape character at the end of the input fails, whether the value is quoted or not
+   */
+  @Test
+  public void testEscapeAtEndOfInput() {
+    for (final String csv : new String[] { "a,b\\", "a,\"b\\" }) {
+      try {
+        AbstractCsvValueReader_Unescape_Test.read(csv, "\\");
+        Assert.fail("The missing escaped character was not detected: " + csv);
+      } catch (final CsvReadException e) {
+        Assert.assertEquals("Escaped character missing", e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Unescapes every ASCII character, and a few that are not, using different escape characters, and makes sure that
+   * these are unescaped in the same way as the map did before the lookup table
+   */
+  @Test
+  public void testEveryCharacter() {
+    for (final String escapeCharacter : new String[] { "\\", "^", "~~" }) {
+      final StringBuilder csv = new StringBuilder();
+      final List<List<String>> expected = new ArrayList<>();
+      final StringBuilder escaped = new StringBuilder();
+      for (char c = 0; c < 128; c++) {
+        escaped.append(c);
+      }
+      escaped.append("\u00e9\u20ac");
+
+      for (int i = 0; i < escaped.length(); i++) {
+        final char c = escaped.charAt(i);
+        csv.append('x').append(escapeCharacter).append(c).append("y,\"x").append(escapeCharacter).append(c)
+            .append("y\"\n");
+        final String value = "x" + AbstractCsvValueReader_Unescape_Test.revert(escapeCharacter, c) + "y";
+        final List<String> line = new ArrayList<>();
+        line.add(value);
+        line.add(value);
+        expected.add(line);
+      }
+
+      Assert.assertEquals("Escape character " + escapeCharacter, expected,
+          AbstractCsvValueReader_Unescape_Test.read(csv.toString(), escapeCharacter));
+    }
+  }
+
+  /**
+   * Unescapes every character that is mapped to another character, both in plain and quoted values
+   */
+  @Test
+  public void testMappedEscapes() {
+    final List<List<String>> lines = AbstractCsvValueReader_Unescape_Test
+        .read("\\t\\b\\n\\r\\f\\'\\\"\\\\,\"\\t\\b\\n\\r\\f\\'\\\"\\\\\"\n", "\\");
+    Assert.assertEquals(1, lines.size());
+    Assert.assertEquals("\t\b\n\r\f'\"\\", lines.get(0).get(0));
+    Assert.assertEquals("\t\b\n\r\f'\"\\", lines.get(0).get(1));
+  }
+
+  /**
+   * Makes sure that the escaped characters that are not mapped represent themselves
+   */
+  @Test
+  public void testUnknownEscapes() {
+    final List<List<String>> lines = AbstractCsvValueReader_Unescape_Test.read("\\q\\1\\ \\\u00e9,\"\\,\\z\"\n",
+        "\\");
+    Assert.assertEquals(1, lines.size());
+    Assert.assertEquals("q1 \u00e9", lines.get(0).get(0));
+    Assert.assertEquals(",z", lines.get(0).get(1));
+  }
+}
@@ -0,0 +1,85 @@
+/*
+ * #%L
+ * JavaCreed CSV API
+ * %%
+ * Copyright (C) 2012 - 2015 Java Creed
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.javacreed.api.csv.reader;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test the {@link ByteCsvReadable#readValue()} method
+ *
+ * @author Albert Attard
+ * @see ByteCsvReadable#readValue()
+ */
+public class ByteCsvReadable_ReadValue_Test {
+
+  private static CsvReader reader(final String csv, final int bufferSize) {
+    final CsvReadableParameters parameters = new CsvReadableParameters();
+    parameters.setBufferSize(bufferSize);
+    final byte[] bytes = csv.getBytes(StandardCharsets.UTF_8);
+    return new CsvReader(new ByteCsvReadable(Channels.newChannel(new ByteArrayInputStream(bytes)), parameters));
+  }
+
+  /**
+   * Makes sure that non ASCII tokens are not accepted
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testNonAsciiToken() {
+    final CsvReadableParameters parameters = new CsvReadableParameters();
+    parameters.setValueSeparator("\u00a7");
+    new ByteCsvReadable(ByteBuffer.allocate(0), parameters);
+  }
+
+  /**
+   * Reads ASCII and non ASCII values, including escaped and quoted ones, using buffers of different sizes so that the
+   * multi-byte characters are split across reads
+   *
+   * @throws Exception
+   *           if an error occurs
+   */
+  @Test
+  public void testReadValues() throws Exception {
+    final String csv = "caf\u00e9,\"\u20ac 1,000\",a\\tb,\\\u00e9\r\n\ud83d\ude00\u00e9\u00e9\u00e9,,plain\n";
+    for (final int bufferSize : new int[] { 1, 2, 3, 4, 1024 }) {
+      final CsvReader reader = ByteCsvReadable_ReadValue_Test.reader(csv, bufferSize);
+      Assert.assertArrayEquals(new String[] { "caf\u00e9", "\u20ac 1,000", "a\tb", "\u00e9" }, reader.readValues());
+      Assert.assertArrayEquals(new String[] { "\ud83d\ude00\u00e9\u00e9\u00e9", "", "plain" }, reader.readValues());
+      Assert.assertFalse(reader.hasMoreLines());
+    }
+  }
+
+  /**
+   * Makes sure that malformed input is replaced by the replacement character
+   *
+   * @throws Exception
+   *           if an error occurs
+   */
+  @Test
+  public void testMalformed() throws Exception {
+    final byte[] bytes = { 'a', (byte) 0xC3, ',', (byte) 0xFF, 'b', '\n' };
+    final CsvReader reader = new CsvReader(new ByteCsvReadable(ByteBuffer.wrap(bytes)));
+    Assert.assertArrayEquals(new String[] { "a\ufffd", "\ufffdb" }, reader.readValues());
+  }
+}
@@ -0,0 +1,122 @@
+/*
+ * #%L
+ * JavaCreed CSV API
+ * %%
+ * Copyright (C) 2012 - 2015 Java Creed
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.javacreed.api.csv.reader;
+
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures how fast unquoted values, without escaped characters, are scanned by the {@link ByteCsvReadable} and the
+ * {@link CsvReadable} for different value lengths. The values are read as slices so that the scanning dominates.
+ * <p>
+ * This is not a unit test and is not executed as part of the build. Run it using the {@link #main(String[])} method
+ * from the test classpath.
+ *
+ * @author Albert Attard
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ByteCsvReadable_Scan_Benchmark {
+
+  /**
+   * Runs this benchmark
+   *
+   * @param args
+   *          ignored
+   * @throws RunnerException
+   *           if the benchmark fails to run
+   */
+  public static void main(final String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(ByteCsvReadable_Scan_Benchmark.class.getSimpleName()).build()).run();
+  }
+
+  private static void readAll(final CsvValueReader reader, final Blackhole blackhole) {
+    while (reader.hasMoreLines()) {
+      reader.beginLine();
+      while (reader.hasMoreValues()) {
+        blackhole.consume(reader.readValueSlice().length());
+      }
+      reader.endLine();
+    }
+  }
+
+  @Param({ "4", "16", "64" })
+  public int valueLength;
+
+  /** The CSV data (about 1MB) */
+  private String data;
+
+  private byte[] bytes;
+
+  private CsvReadableParameters parameters;
+
+  @Benchmark
+  public void bytes(final Blackhole blackhole) {
+    ByteCsvReadable_Scan_Benchmark.readAll(new ByteCsvReadable(ByteBuffer.wrap(bytes), parameters), blackhole);
+  }
+
+  @Benchmark
+  public void chars(final Blackhole blackhole) {
+    ByteCsvReadable_Scan_Benchmark.readAll(new CsvReadable(new StringReader(data), parameters), blackhole);
+  }
+
+  @Setup
+  public void setup() {
+    final StringBuilder value = new StringBuilder();
+    for (int i = 0; i < valueLength; i++) {
+      value.append((char) ('a' + i % 26));
+    }
+
+    final StringBuilder builder = new StringBuilder();
+    while (builder.length() < 1024 * 1024) {
+      for (int column = 0; column < 10; column++) {
+        builder.append(column == 0 ? "" : ",").append(value);
+      }
+      builder.append('\n');
+    }
+    data = builder.toString();
+    bytes = data.getBytes(StandardCharsets.UTF_8);
+
+    parameters = new CsvReadableParameters();
+    parameters.setBufferSize(16384);
+  }
+}
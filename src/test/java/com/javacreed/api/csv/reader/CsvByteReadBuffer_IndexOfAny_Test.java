@@ -0,0 +1,70 @@
+/*
+ * #%L
+ * JavaCreed CSV API
+ * %%
+ * Copyright (C) 2012 - 2015 Java Creed
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.javacreed.api.csv.reader;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test the {@link CsvByteReadBuffer#indexOfAny(int, int, long[])} method
+ *
+ * @author Albert Attard
+ * @see CsvByteReadBuffer#indexOfAny(int, int, long[])
+ */
+public class CsvByteReadBuffer_IndexOfAny_Test {
+
+  private static final long[] PATTERNS = { CsvByteReadBuffer.broadcast(','), CsvByteReadBuffer.broadcast('\n') };
+
+  /**
+   * Places a match at every position and makes sure it is found, while the bytes around it are similar to the patterns
+   * (such as {@code 0x01}, which may cause false positives with inexact tests, and the pattern with the most
+   * significant bit set)
+   */
+  @Test
+  public void testEveryPosition() {
+    for (int length = 1; length <= 20; length++) {
+      for (int match = 0; match < length; match++) {
+        final byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+          bytes[i] = (byte) (i % 2 == 0 ? 0x01 : ',' | 0x80);
+        }
+        bytes[match] = ',';
+
+        final CsvByteReadBuffer buffer = new CsvByteReadBuffer(ByteBuffer.wrap(bytes));
+        Assert.assertEquals(match, buffer.indexOfAny(0, length, CsvByteReadBuffer_IndexOfAny_Test.PATTERNS));
+        Assert.assertEquals(length, buffer.indexOfAny(match + 1, length, CsvByteReadBuffer_IndexOfAny_Test.PATTERNS));
+      }
+    }
+  }
+
+  /**
+   * Makes sure that the offsets are relative to the cursor and that bytes beyond the given range are not reported
+   */
+  @Test
+  public void testRange() {
+    final CsvByteReadBuffer buffer = new CsvByteReadBuffer(ByteBuffer.wrap("ab\ncdefghijklmno,".getBytes()));
+    buffer.skip(1);
+    Assert.assertEquals(1, buffer.indexOfAny(0, 16, CsvByteReadBuffer_IndexOfAny_Test.PATTERNS));
+    Assert.assertEquals(15, buffer.indexOfAny(2, 15, CsvByteReadBuffer_IndexOfAny_Test.PATTERNS));
+    Assert.assertEquals(15, buffer.indexOfAny(2, 16, CsvByteReadBuffer_IndexOfAny_Test.PATTERNS));
+  }
+}
@@ -0,0 +1,66 @@
+/*
+ * #%L
+ * JavaCreed CSV API
+ * %%
+ * Copyright (C) 2012 - 2016 Java Creed
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.javacreed.api.csv.reader;
+
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test the {@link CsvCharacterClasses#classOf(char)} method
+ *
+ * @author Albert Attard
+ * @see CsvCharacterClasses#classOf(char)
+ */
+public class CsvCharacterClasses_ClassOf_Test {
+
+  /**
+   * Makes sure that the first character of every token is classified and that all other characters have no class
+   */
+  @Test
+  public void testDefaults() {
+    final CsvCharacterClasses classes = new CsvCharacterClasses("\\", "\"", ",", Arrays.asList("\r\n", "\n", "\r"));
+
+    Assert.assertEquals(CsvCharacterClasses.ESCAPE, classes.classOf('\\'));
+    Assert.assertEquals(CsvCharacterClasses.BOUNDARY, classes.classOf('"'));
+    Assert.assertEquals(CsvCharacterClasses.VALUE_SEPARATOR, classes.classOf(','));
+    Assert.assertEquals(CsvCharacterClasses.LINE_SEPARATOR, classes.classOf('\r'));
+    Assert.assertEquals(CsvCharacterClasses.LINE_SEPARATOR, classes.classOf('\n'));
+
+    Assert.assertEquals(CsvCharacterClasses.NONE, classes.classOf('a'));
+    Assert.assertEquals(CsvCharacterClasses.NONE, classes.classOf('\u20ac'));
+  }
+
+  /**
+   * Makes sure that a character which starts more than one token has the classes of all these tokens and that empty
+   * tokens are ignored
+   */
+  @Test
+  public void testSharedAndEmptyTokens() {
+    final CsvCharacterClasses classes = new CsvCharacterClasses("", "|", "||", Arrays.asList("|\n"));
+
+    Assert.assertEquals(
+        CsvCharacterClasses.BOUNDARY | CsvCharacterClasses.VALUE_SEPARATOR | CsvCharacterClasses.LINE_SEPARATOR,
+        classes.classOf('|'));
+    Assert.assertEquals(CsvCharacterClasses.NONE, classes.classOf('\n'));
+    Assert.assertEquals(CsvCharacterClasses.NONE, classes.classOf((char) 0));
+  }
+}
@@ -0,0 +1,125 @@
+/*
+ * #%L
+ * JavaCreed CSV API
+ * %%
+ * Copyright (C) 2012 - 2015 Java Creed
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.javacreed.api.csv.reader;
+
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test the {@link CsvDialect#CsvDialect(CsvReadableParameters)} constructor
+ *
+ * @author Albert Attard
+ * @see CsvDialect#CsvDialect(CsvReadableParameters)
+ */
+public class CsvDialect_Constructor_Test {
+
+  private static final String CSV = "a;'b;c'\r\n1;'2'\r\n";
+
+  private static CsvReadableParameters parameters(final String valueSeparator) {
+    final CsvReadableParameters parameters = new CsvReadableParameters();
+    parameters.setValueSeparator(valueSeparator);
+    parameters.setValueBounderies("'");
+    return parameters;
+  }
+
+  private static void assertValues(final CsvValueReader reader) {
+    final CsvReader csv = new CsvReader(reader);
+    Assert.assertArrayEquals(new String[] { "a", "b;c" }, csv.readValues());
+    Assert.assertArrayEquals(new String[] { "1", "2" }, csv.readValues());
+    Assert.assertFalse(csv.hasMoreLines());
+  }
+
+  /**
+   * Makes sure that the parameters are copied and that changing them afterwards does not affect the dialect
+   */
+  @Test
+  public void testCopyParameters() {
+    final CsvReadableParameters parameters = CsvDialect_Constructor_Test.parameters(";");
+    final CsvDialect dialect = new CsvDialect(parameters);
+    parameters.setValueSeparator(",");
+
+    Assert.assertEquals(";", dialect.getValueSeparator());
+    CsvDialect_Constructor_Test.assertValues(new CsvReadable(new StringReader(CsvDialect_Constructor_Test.CSV),
+        dialect));
+  }
+
+  /**
+   * Makes sure that tokens with non ASCII characters are accepted by the character reader but not by the byte reader
+   */
+  @Test
+  public void testNotAscii() {
+    final CsvDialect dialect = new CsvDialect(CsvDialect_Constructor_Test.parameters("\u00a7"));
+    Assert.assertArrayEquals(new String[] { "x", "y" },
+        new CsvReader(new CsvReadable(new StringReader("x\u00a7y\n"), dialect)).readValues());
+
+    try {
+      new ByteCsvReadable(ByteBuffer.allocate(0), dialect);
+      Assert.fail("The non ASCII value separator was accepted");
+    } catch (final IllegalArgumentException e) {
+      Assert.assertEquals("The value separator can only contain ASCII characters", e.getMessage());
+    }
+  }
+
+  /**
+   * Shares the same dialect between character and byte readers used by different threads at the same time
+   *
+   * @throws Exception
+   *           if an error occurs while reading
+   */
+  @Test
+  public void testShared() throws Exception {
+    final CsvDialect dialect = new CsvDialect(CsvDialect_Constructor_Test.parameters(";"));
+    final byte[] bytes = CsvDialect_Constructor_Test.CSV.getBytes(StandardCharsets.UTF_8);
+
+    final ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      final List<Future<Void>> futures = new ArrayList<>();
+      for (int i = 0; i < 8; i++) {
+        final boolean useBytes = i % 2 == 0;
+        futures.add(executor.submit(new Callable<Void>() {
+          @Override
+          public Void call() {
+            for (int j = 0; j < 1000; j++) {
+              CsvDialect_Constructor_Test.assertValues(useBytes ? new ByteCsvReadable(ByteBuffer.wrap(bytes), dialect)
+                  : new CsvReadable(new StringReader(CsvDialect_Constructor_Test.CSV), dialect));
+            }
+            return null;
+          }
+        }));
+      }
+
+      for (final Future<Void> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+}
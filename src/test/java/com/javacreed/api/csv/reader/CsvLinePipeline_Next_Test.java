@@ -0,0 +1,226 @@
+/*
+ * #%L
+ * JavaCreed CSV API
+ * %%
+ * Copyright (C) 2012 - 2015 Java Creed
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.javacreed.api.csv.reader;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Test the {@link CsvLinePipeline#next()} method
+ *
+ * @author Albert Attard
+ * @see CsvLinePipeline#next()
+ */
+public class CsvLinePipeline_Next_Test {
+
+  private static final CsvLineMapper<Integer> MAPPER = new CsvLineMapper<Integer>() {
+    @Override
+    public Integer mapLine(final CsvLine line) {
+      return line.getInt("id") * 2;
+    }
+  };
+
+  private static ExecutorService executor;
+
+  @AfterClass
+  public static void cleanup() {
+    CsvLinePipeline_Next_Test.executor.shutdown();
+  }
+
+  private static List<Integer> expected(final int lines) {
+    final List<Integer> expected = new ArrayList<>();
+    for (int i = 0; i < lines; i++) {
+      expected.add(i * 2);
+    }
+    return expected;
+  }
+
+  private static CsvReader reader(final int lines) {
+    final StringBuilder csv = new StringBuilder("id,name\n");
+    for (int i = 0; i < lines; i++) {
+      csv.append(i).append(",\"name ").append(i).append("\"\n");
+    }
+    return new CsvReader(new CsvReadable(new StringReader(csv.toString()))).readHeaders();
+  }
+
+  private static List<Integer> readAll(final CsvLinePipeline<Integer> pipeline) {
+    final List<Integer> results = new ArrayList<>();
+    try (CsvLinePipeline<Integer> p = pipeline) {
+      while (p.hasNext()) {
+        results.add(p.next());
+      }
+    }
+    return results;
+  }
+
+  @BeforeClass
+  public static void setup() {
+    CsvLinePipeline_Next_Test.executor = Executors.newFixedThreadPool(4);
+  }
+
+  /**
+   * Makes sure that the number of batches read ahead of the consumer is bounded
+   *
+   * @throws Exception
+   *           if an error occurs
+   */
+  @Test
+  public void testBackpressure() throws Exception {
+    final AtomicInteger mapped = new AtomicInteger();
+    try (CsvLinePipeline<Integer> pipeline = new CsvLinePipeline<>(CsvLinePipeline_Next_Test.reader(1000),
+        new CsvLineMapper<Integer>() {
+          @Override
+          public Integer mapLine(final CsvLine line) {
+            mapped.incrementAndGet();
+            return 0;
+          }
+        }).executor(CsvLinePipeline_Next_Test.executor).batchSize(10).maxPendingBatches(3)) {
+      pipeline.next();
+      TimeUnit.MILLISECONDS.sleep(200);
+      Assert.assertTrue(mapped.get() <= 40);
+    }
+  }
+
+  /**
+   * Makes sure that the errors thrown by the mapper are thrown by the pipeline
+   */
+  @Test
+  public void testMapperFails() {
+    final CsvLinePipeline<Integer> pipeline = new CsvLinePipeline<>(CsvLinePipeline_Next_Test.reader(100),
+        new CsvLineMapper<Integer>() {
+          @Override
+          public Integer mapLine(final CsvLine line) {
+            return line.getInt("name");
+          }
+        }).executor(CsvLinePipeline_Next_Test.executor);
+    try {
+      CsvLinePipeline_Next_Test.readAll(pipeline);
+      Assert.fail("The mapping error was not thrown");
+    } catch (final CsvReadException e) {
+      Assert.assertTrue(e.getCause() instanceof CsvParserException);
+    }
+  }
+
+  /**
+   * Maps the lines using the default executor and makes sure that the results are in order
+   */
+  @Test
+  public void testOrdered() {
+    for (final int batchSize : new int[] { 1, 7, 256 }) {
+      Assert.assertEquals(CsvLinePipeline_Next_Test.expected(1000), CsvLinePipeline_Next_Test.readAll(
+          new CsvLinePipeline<>(CsvLinePipeline_Next_Test.reader(1000), CsvLinePipeline_Next_Test.MAPPER)
+              .batchSize(batchSize)));
+    }
+    Assert.assertEquals(CsvLinePipeline_Next_Test.expected(0), CsvLinePipeline_Next_Test.readAll(
+        new CsvLinePipeline<>(CsvLinePipeline_Next_Test.reader(0), CsvLinePipeline_Next_Test.MAPPER)));
+  }
+
+  /**
+   * Makes sure that reading errors are thrown after the results of the lines before
+   */
+  @Test
+  public void testReaderFails() {
+    final CsvReader reader = new CsvReader(new CsvReadable(new StringReader("id\n1\n2\n\"3\n"))).readHeaders();
+    final CsvLinePipeline<Integer> pipeline = new CsvLinePipeline<>(reader, CsvLinePipeline_Next_Test.MAPPER)
+        .executor(CsvLinePipeline_Next_Test.executor).batchSize(1);
+    try {
+      Assert.assertEquals(Integer.valueOf(2), pipeline.next());
+      Assert.assertEquals(Integer.valueOf(4), pipeline.next());
+      pipeline.next();
+      Assert.fail("The reading error was not thrown");
+    } catch (final CsvReadException e) {
+      Assert.assertEquals("Value boundary missing", e.getMessage());
+    } finally {
+      pipeline.close();
+    }
+  }
+
+  /**
+   * Makes sure that the rejection of a batch by the executor is thrown by the pipeline rather than leaving it waiting
+   * for the results of a batch that is never mapped
+   */
+  @Test(timeout = 10000)
+  public void testRejectedBatch() {
+    for (final boolean ordered : new boolean[] { true, false }) {
+      final ExecutorService executor = Executors.newSingleThreadExecutor();
+      executor.shutdown();
+
+      final CsvLinePipeline<Integer> pipeline = new CsvLinePipeline<>(CsvLinePipeline_Next_Test.reader(100),
+          CsvLinePipeline_Next_Test.MAPPER).executor(executor);
+      if (false == ordered) {
+        pipeline.unordered();
+      }
+
+      try {
+        CsvLinePipeline_Next_Test.readAll(pipeline);
+        Assert.fail("The rejection was not thrown");
+      } catch (final CsvReadException e) {
+        Assert.assertEquals(RejectedExecutionException.class, e.getCause().getClass());
+      }
+    }
+  }
+
+  /**
+   * Makes sure that a reader that reuses lines is rejected, as the lines passed to the workers would be overwritten
+   */
+  @Test
+  public void testReusedLines() {
+    try {
+      new CsvLinePipeline<>(CsvLinePipeline_Next_Test.reader(10).reuseLines(), CsvLinePipeline_Next_Test.MAPPER);
+      Assert.fail("A reader that reuses lines was accepted");
+    } catch (final IllegalStateException e) {
+      Assert.assertEquals("Reused lines cannot be passed to other threads", e.getMessage());
+    }
+
+    final CsvReader reader = CsvLinePipeline_Next_Test.reader(10);
+    try (CsvLinePipeline<Integer> pipeline = new CsvLinePipeline<>(reader, CsvLinePipeline_Next_Test.MAPPER)
+        .executor(CsvLinePipeline_Next_Test.executor)) {
+      reader.reuseLines();
+      pipeline.next();
+      Assert.fail("A reader set to reuse lines after the pipeline was created was accepted");
+    } catch (final IllegalStateException e) {
+      Assert.assertEquals("Reused lines cannot be passed to other threads", e.getMessage());
+    }
+  }
+
+  /**
+   * Maps the lines in no particular order
+   */
+  @Test
+  public void testUnordered() {
+    final List<Integer> results = CsvLinePipeline_Next_Test.readAll(new CsvLinePipeline<>(CsvLinePipeline_Next_Test
+        .reader(1000), CsvLinePipeline_Next_Test.MAPPER).executor(CsvLinePipeline_Next_Test.executor).batchSize(7)
+            .unordered());
+    Collections.sort(results);
+    Assert.assertEquals(CsvLinePipeline_Next_Test.expected(1000), results);
+  }
+}
@@ -0,0 +1,76 @@
+/*
+ * #%L
+ * JavaCreed CSV API
+ * %%
+ * Copyright (C) 2012 - 2016 Java Creed
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.javacreed.api.csv.reader;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test the {@link CsvReadBuffer#ensure(int)} method
+ *
+ * @author Albert Attard
+ * @see CsvReadBuffer#ensure(int)
+ */
+public class CsvReadBuffer_Ensure_Test {
+
+  /**
+   * Reads the string one character at a time using a buffer smaller than the string and makes sure that the buffer is
+   * compacted and refilled as required
+   *
+   * @throws IOException
+   *           if an error occurs
+   */
+  @Test
+  public void testCompactAndRefill() throws IOException {
+    final String testString = "test string";
+    final CsvReadBuffer buffer = new CsvReadBuffer(new StringReader(testString), 4);
+
+    for (int i = 0; i < testString.length(); i++) {
+      Assert.assertTrue(buffer.hasRemaining());
+      Assert.assertEquals(testString.charAt(i), buffer.next());
+    }
+
+    Assert.assertFalse(buffer.hasRemaining());
+    Assert.assertFalse(buffer.ensure(1));
+  }
+
+  /**
+   * Makes sure that the buffer grows when more characters than its capacity are required
+   *
+   * @throws IOException
+   *           if an error occurs
+   */
+  @Test
+  public void testGrow() throws IOException {
+    final CsvReadBuffer buffer = new CsvReadBuffer(new StringReader("test string"), 2);
+    Assert.assertTrue(buffer.ensure(2));
+    buffer.skip(1);
+
+    Assert.assertTrue(buffer.startsWith("est str"));
+    Assert.assertFalse(buffer.startsWith("est strings"));
+    Assert.assertTrue(buffer.ensure(10));
+    Assert.assertFalse(buffer.ensure(11));
+    Assert.assertEquals(10, buffer.remaining());
+    Assert.assertEquals('g', buffer.charAt(9));
+  }
+}
@@ -0,0 +1,98 @@
+/*
+ * #%L
+ * JavaCreed CSV API
+ * %%
+ * Copyright (C) 2012 - 2016 Java Creed
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.javacreed.api.csv.reader;
+
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures the read throughput of the {@link CsvReadable} for different buffer sizes. Larger buffers should never make
+ * reading slower.
+ * <p>
+ * This is not a unit test and is not executed as part of the build. Run it using the {@link #main(String[])} method
+ * from the test classpath.
+ *
+ * @author Albert Attard
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CsvReadable_BufferSize_Benchmark {
+
+  /**
+   * Runs this benchmark
+   *
+   * @param args
+   *          ignored
+   * @throws RunnerException
+   *           if the benchmark fails to run
+   */
+  public static void main(final String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(CsvReadable_BufferSize_Benchmark.class.getSimpleName()).build()).run();
+  }
+
+  @Param({ "64", "1024", "16384", "65536" })
+  public int bufferSize;
+
+  /** The CSV data (about 1MB) */
+  private String data;
+
+  private CsvReadableParameters parameters;
+
+  @Benchmark
+  public void readAll(final Blackhole blackhole) {
+    final CsvReader reader = new CsvReader(new CsvReadable(new StringReader(data), parameters));
+    while (reader.hasMoreLines()) {
+      blackhole.consume(reader.readValues());
+    }
+  }
+
+  @Setup
+  public void setup() {
+    final StringBuilder builder = new StringBuilder();
+    for (int row = 0; row < 10000; row++) {
+      builder.append(row).append(",\"Name ").append(row).append("\",Surname,").append(row * 31)
+          .append(",2016-01-01,some text\\, with an escaped separator,EUR,").append(row % 7).append('\n');
+    }
+    data = builder.toString();
+
+    parameters = new CsvReadableParameters();
+    parameters.setBufferSize(bufferSize);
+  }
+}
@@ -0,0 +1,72 @@
+/*
+ * #%L
+ * JavaCreed CSV API
+ * %%
+ * Copyright (C) 2012 - 2015 Java Creed
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.javacreed.api.csv.reader;
+
+import java.io.StringReader;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test the {@link CsvReadable#readValueSlice()} method
+ *
+ * @author Albert Attard
+ * @see CsvReadable#readValueSlice()
+ */
+public class CsvReadable_ReadValueSlice_Test {
+
+  /**
+   * Reads plain, quoted and escaped values and makes sure that the same view is returned every time
+   */
+  @Test
+  public void testReadValues() {
+    final CsvReadable readable = new CsvReadable(new StringReader("plain,\"quoted, value\",esc\\taped\n"));
+    readable.beginLine();
+
+    final CharSequence first = readable.readValueSlice();
+    Assert.assertEquals("plain", first.toString());
+
+    final CharSequence second = readable.readValueSlice();
+    Assert.assertSame(first, second);
+    Assert.assertEquals("quoted, value", second.toString());
+
+    Assert.assertEquals("esc\taped", readable.readValueSlice().toString());
+    Assert.assertFalse(readable.hasMoreValues());
+    readable.endLine();
+    Assert.assertFalse(readable.hasMoreLines());
+  }
+
+  /**
+   * Reads values which are longer than the buffer
+   */
+  @Test
+  public void testValuesLongerThanTheBuffer() {
+    final CsvReadableParameters parameters = new CsvReadableParameters();
+    parameters.setBufferSize(4);
+
+    final CsvReadable readable = new CsvReadable(
+        new StringReader("a long value,\"a long quoted value\",a long \\\"escaped\\\" value\r\n"), parameters);
+    readable.beginLine();
+    Assert.assertEquals("a long value", readable.readValueSlice().toString());
+    Assert.assertEquals("a long quoted value", readable.readValueSlice().toString());
+    Assert.assertEquals("a long \"escaped\" value", readable.readValueSlice().toString());
+    readable.endLine();
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * #%L
+ * JavaCreed CSV API
+ * %%
+ * Copyright (C) 2012 - 2015 Java Creed
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.javacreed.api.csv.reader;
+
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures reading a wide file (300 columns), of which only six columns are used, with and without
+ * {@link CsvReader#columns(int...) selecting} these columns.
+ * <p>
+ * This is not a unit test and is not executed as part of the build. Run it using the {@link #main(String[])} method
+ * from the test classpath.
+ *
+ * @author Albert Attard
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CsvReader_Columns_Benchmark {
+
+  /** The columns that are used */
+  private static final int[] COLUMNS = { 0, 7, 40, 99, 180, 299 };
+
+  /**
+   * Runs this benchmark
+   *
+   * @param args
+   *          ignored
+   * @throws RunnerException
+   *           if the benchmark fails to run
+   */
+  public static void main(final String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(CsvReader_Columns_Benchmark.class.getSimpleName()).build()).run();
+  }
+
+  private static void readColumns(final CsvReader reader, final Blackhole blackhole) {
+    for (CsvLine line; (line = reader.readLine()) != null;) {
+      for (final int column : CsvReader_Columns_Benchmark.COLUMNS) {
+        blackhole.consume(line.getValue(column));
+      }
+    }
+  }
+
+  /** The CSV data (about 2MB) */
+  private String data;
+
+  @Benchmark
+  public void all(final Blackhole blackhole) {
+    CsvReader_Columns_Benchmark.readColumns(new CsvReader(new CsvReadable(new StringReader(data))), blackhole);
+  }
+
+  @Benchmark
+  public void selected(final Blackhole blackhole) {
+    CsvReader_Columns_Benchmark.readColumns(
+        new CsvReader(new CsvReadable(new StringReader(data))).columns(CsvReader_Columns_Benchmark.COLUMNS),
+        blackhole);
+  }
+
+  @Setup
+  public void setup() {
+    final StringBuilder builder = new StringBuilder();
+    for (int row = 0; builder.length() < 2 * 1024 * 1024; row++) {
+      for (int column = 0; column < 300; column++) {
+        builder.append(column == 0 ? "" : ",").append(column % 10 == 0 ? "\"" : "").append("value ").append(row)
+            .append('-').append(column).append(column % 10 == 0 ? "\"" : "");
+      }
+      builder.append('\n');
+    }
+    data = builder.toString();
+  }
+}
@@ -0,0 +1,109 @@
+/*
+ * #%L
+ * JavaCreed CSV API
+ * %%
+ * Copyright (C) 2012 - 2015 Java Creed
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.javacreed.api.csv.reader;
+
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.javacreed.api.csv.common.CsvHeadersNotSetException;
+
+/**
+ * Test the {@link CsvReader#columns(int...)} and {@link CsvReader#columns(String...)} methods
+ *
+ * @author Albert Attard
+ * @see CsvReader#columns(int...)
+ * @see CsvReader#columns(String...)
+ */
+public class CsvReader_Columns_Test {
+
+  private static final String CSV = "a,b,c,d\n1,\"x,\\\"y\\\"\",2,\\n\n3,,4,\"\"\n";
+
+  private static void assertSelected(final CsvReader reader) {
+    CsvLine line = reader.readLine();
+    Assert.assertEquals("1", line.getValue(0));
+    Assert.assertNull(line.getValue(1));
+    Assert.assertEquals("2", line.getValue("c"));
+    Assert.assertNull(line.getValue("d"));
+
+    line = reader.readLine();
+    Assert.assertEquals("3", line.getValue("a"));
+    Assert.assertNull(line.getValue(1));
+    Assert.assertEquals("4", line.getValue(2));
+    Assert.assertNull(line.getValue(3));
+
+    Assert.assertNull(reader.readLine());
+  }
+
+  private static CsvReader reader(final String csv) {
+    return new CsvReader(new CsvReadable(new StringReader(csv)));
+  }
+
+  /**
+   * Selects the columns by index and name, using both the character and the byte readers and both default and lazy
+   * lines
+   */
+  @Test
+  public void testColumns() {
+    CsvReader_Columns_Test.assertSelected(CsvReader_Columns_Test.reader(CsvReader_Columns_Test.CSV).readHeaders()
+        .columns(0, 2));
+    CsvReader_Columns_Test.assertSelected(CsvReader_Columns_Test.reader(CsvReader_Columns_Test.CSV).readHeaders()
+        .columns("A", "c"));
+    CsvReader_Columns_Test.assertSelected(CsvReader_Columns_Test.reader(CsvReader_Columns_Test.CSV).lazyLines()
+        .readHeaders().columns(2, 0, 2));
+    CsvReader_Columns_Test.assertSelected(new CsvReader(
+        new ByteCsvReadable(ByteBuffer.wrap(CsvReader_Columns_Test.CSV.getBytes(StandardCharsets.UTF_8))))
+            .readHeaders().columns("a", "c"));
+  }
+
+  /**
+   * Makes sure that the names cannot be resolved before the headers are read
+   */
+  @Test(expected = CsvHeadersNotSetException.class)
+  public void testHeadersNotSet() {
+    CsvReader_Columns_Test.reader(CsvReader_Columns_Test.CSV).columns("a");
+  }
+
+  /**
+   * Makes sure that the values which are skipped are still validated
+   */
+  @Test
+  public void testInvalidSkippedValue() {
+    final CsvReader reader = CsvReader_Columns_Test.reader("1,\"2\n").columns(0);
+    try {
+      reader.readLine();
+      Assert.fail("The missing value boundary was not detected");
+    } catch (final CsvReadException e) {
+      Assert.assertEquals("Value boundary missing", e.getMessage());
+    }
+  }
+
+  /**
+   * Makes sure that the number of values of every line is validated
+   */
+  @Test(expected = CsvReadException.class)
+  public void testRowSize() {
+    final CsvReader reader = CsvReader_Columns_Test.reader("a,b\n1,2,3\n").readHeaders().columns(0);
+    reader.readLine();
+  }
+}
@@ -0,0 +1,92 @@
+/*
+ * #%L
+ * JavaCreed CSV API
+ * %%
+ * Copyright (C) 2012 - 2015 Java Creed
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.javacreed.api.csv.reader;
+
+import java.io.StringReader;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test the {@link CsvReader#deduplicate(int, CsvValueCache)} method
+ *
+ * @author Albert Attard
+ * @see CsvReader#deduplicate(int, CsvValueCache)
+ */
+public class CsvReader_Deduplicate_Test {
+
+  /**
+   * Makes sure that the repeating values of the deduplicated column are the same instance, while the other columns are
+   * not affected
+   */
+  @Test
+  public void testDeduplicate() {
+    final CsvValueCache cache = new CsvValueCache();
+    final CsvReader reader = new CsvReader(
+        new CsvReadable(new StringReader("id,ccy\n1,EUR\n2,\"USD\"\n3,EUR\n4,USD\n"))).readHeaders()
+        .deduplicate("ccy", cache);
+
+    final CsvLine first = reader.readLine();
+    final CsvLine second = reader.readLine();
+    final CsvLine third = reader.readLine();
+    final CsvLine fourth = reader.readLine();
+    Assert.assertEquals("EUR", first.getValue("ccy"));
+    Assert.assertEquals("USD", second.getValue("ccy"));
+    Assert.assertSame(first.getValue("ccy"), third.getValue("ccy"));
+    Assert.assertSame(second.getValue("ccy"), fourth.getValue("ccy"));
+    Assert.assertEquals("4", fourth.getValue("id"));
+
+    Assert.assertEquals(2, cache.getHits());
+    Assert.assertEquals(2, cache.getMisses());
+    Assert.assertEquals(0.5, cache.getHitRate(), 0);
+  }
+
+  /**
+   * Makes sure that a value replaces the value in its slot when the cache is full
+   */
+  @Test
+  public void testEviction() {
+    final CsvValueCache cache = new CsvValueCache(1);
+    Assert.assertEquals(1, cache.getCapacity());
+    Assert.assertEquals(0, cache.getHitRate(), 0);
+
+    final String a = cache.get(new StringBuilder("a"));
+    Assert.assertSame(a, cache.get(new StringBuilder("a")));
+    final String b = cache.get(new StringBuilder("b"));
+    Assert.assertEquals("b", b);
+    Assert.assertNotSame(a, cache.get(new StringBuilder("a")));
+    Assert.assertEquals(1, cache.getHits());
+    Assert.assertEquals(3, cache.getMisses());
+
+    Assert.assertEquals(1024, new CsvValueCache(1000).getCapacity());
+    Assert.assertEquals(1024, new CsvValueCache(1024).getCapacity());
+  }
+
+  /**
+   * Makes sure that the values of reused lines are deduplicated
+   */
+  @Test
+  public void testReuseLines() {
+    final CsvReader reader = new CsvReader(new CsvReadable(new StringReader("x,y\nx,z\n"))).reuseLines()
+        .deduplicate(0, new CsvValueCache(16));
+    final String first = reader.readLine().getValue(0);
+    Assert.assertSame(first, reader.readLine().getValue(0));
+  }
+}
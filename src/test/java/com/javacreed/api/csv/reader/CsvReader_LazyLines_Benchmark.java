@@ -0,0 +1,103 @@
+/*
+ * #%L
+ * JavaCreed CSV API
+ * %%
+ * Copyright (C) 2012 - 2015 Java Creed
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.javacreed.api.csv.reader;
+
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures reading a wide file (80 columns), of which only four columns are used, with and without
+ * {@link CsvReader#lazyLines() lazy lines}.
+ * <p>
+ * This is not a unit test and is not executed as part of the build. Run it using the {@link #main(String[])} method
+ * from the test classpath (add {@code -prof gc} to compare the allocation rates).
+ *
+ * @author Albert Attard
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CsvReader_LazyLines_Benchmark {
+
+  /**
+   * Runs this benchmark
+   *
+   * @param args
+   *          ignored
+   * @throws RunnerException
+   *           if the benchmark fails to run
+   */
+  public static void main(final String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(CsvReader_LazyLines_Benchmark.class.getSimpleName()).build()).run();
+  }
+
+  private static void readFourColumns(final CsvReader reader, final Blackhole blackhole) {
+    for (CsvLine line; (line = reader.readLine()) != null;) {
+      blackhole.consume(line.getValue(0));
+      blackhole.consume(line.getValue(7));
+      blackhole.consume(line.getValue(40));
+      blackhole.consume(line.getValue(79));
+    }
+  }
+
+  /** The CSV data (about 1MB) */
+  private String data;
+
+  @Benchmark
+  public void eager(final Blackhole blackhole) {
+    CsvReader_LazyLines_Benchmark.readFourColumns(new CsvReader(new CsvReadable(new StringReader(data))), blackhole);
+  }
+
+  @Benchmark
+  public void lazy(final Blackhole blackhole) {
+    CsvReader_LazyLines_Benchmark.readFourColumns(new CsvReader(new CsvReadable(new StringReader(data))).lazyLines(),
+        blackhole);
+  }
+
+  @Setup
+  public void setup() {
+    final StringBuilder builder = new StringBuilder();
+    for (int row = 0; builder.length() < 1024 * 1024; row++) {
+      for (int column = 0; column < 80; column++) {
+        builder.append(column == 0 ? "" : ",").append("value ").append(row).append('-').append(column);
+      }
+      builder.append('\n');
+    }
+    data = builder.toString();
+  }
+}
@@ -0,0 +1,79 @@
+/*
+ * #%L
+ * JavaCreed CSV API
+ * %%
+ * Copyright (C) 2012 - 2015 Java Creed
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.javacreed.api.csv.reader;
+
+import java.io.StringReader;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test the {@link CsvReader#lazyLines()} method
+ *
+ * @author Albert Attard
+ * @see CsvReader#lazyLines()
+ * @see LazyCsvLine
+ */
+public class CsvReader_LazyLines_Test {
+
+  /**
+   * Reads lazy lines and makes sure that the values are the same as those returned by the default lines
+   */
+  @Test
+  public void testLazyLines() {
+    final String csv = "id,name,notes\n1,\"Albert, Attard\",a\\tb\n2,,\"\"\n";
+    final CsvReader expected = new CsvReader(new CsvReadable(new StringReader(csv))).readHeaders();
+    final CsvReader reader = new CsvReader(new CsvReadable(new StringReader(csv))).lazyLines().readHeaders();
+
+    for (CsvLine line; (line = reader.readLine()) != null;) {
+      Assert.assertTrue(line instanceof LazyCsvLine);
+      final CsvLine expectedLine = expected.readLine();
+      for (int i = 0; i < 3; i++) {
+        Assert.assertEquals(expectedLine.getValue(i), line.getValue(i));
+      }
+      Assert.assertSame(line.getValue(1), line.getValue("name"));
+      Assert.assertEquals(expectedLine.getValue("id"), line.getParsedValue(new CsvParser<String>() {
+        @Override
+        public String parse(final String value) {
+          return value;
+        }
+      }, "id"));
+    }
+    Assert.assertNull(expected.readLine());
+  }
+
+  /**
+   * Makes sure that an index out of range fails
+   */
+  @Test(expected = ArrayIndexOutOfBoundsException.class)
+  public void testOutOfRange() {
+    new CsvReader(new CsvReadable(new StringReader("a,b\n"))).lazyLines().readLine().getValue(2);
+  }
+
+  /**
+   * Makes sure that the number of values of every line is validated
+   */
+  @Test(expected = CsvReadException.class)
+  public void testRowSize() {
+    final CsvReader reader = new CsvReader(new CsvReadable(new StringReader("a,b\nc\n"))).lazyLines();
+    reader.readLine();
+    reader.readLine();
+  }
+}
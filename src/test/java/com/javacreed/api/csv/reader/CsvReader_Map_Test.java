@@ -0,0 +1,122 @@
+/*
+ * #%L
+ * JavaCreed CSV API
+ * %%
+ * Copyright (C) 2012 - 2015 Java Creed
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.javacreed.api.csv.reader;
+
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test the {@link CsvReader#map(Path)} method
+ *
+ * @author Albert Attard
+ * @see CsvReader#map(Path)
+ * @see ByteCsvReadable#ByteCsvReadable(FileChannel, int, CsvReadableParameters)
+ */
+public class CsvReader_Map_Test {
+
+  /**
+   * Reads a file which windows are large enough to be mapped, while the last window is small and is read into the heap
+   * instead, with values that straddle the windows
+   *
+   * @throws Exception
+   *           if an error occurs
+   */
+  @Test
+  public void testLargeWindows() throws Exception {
+    final StringBuilder csv = new StringBuilder();
+    for (int i = 0; i < 30000; i++) {
+      csv.append(i).append(",\"value ").append(i).append(" \u00e9\u20ac\"\n");
+    }
+
+    final Path path = Files.createTempFile("csv", ".csv");
+    try {
+      Files.write(path, csv.toString().getBytes(StandardCharsets.UTF_8));
+      try (FileChannel file = FileChannel.open(path, StandardOpenOption.READ)) {
+        final CsvReader reader = new CsvReader(new ByteCsvReadable(file, 256 * 1024 + 7, new CsvReadableParameters()));
+        for (int i = 0; i < 30000; i++) {
+          Assert.assertArrayEquals(new String[] { String.valueOf(i), "value " + i + " \u00e9\u20ac" },
+              reader.readValues());
+        }
+        Assert.assertFalse(reader.hasMoreLines());
+      }
+    } finally {
+      Files.delete(path);
+    }
+  }
+
+  /**
+   * Reads a small file using the default window size
+   *
+   * @throws Exception
+   *           if an error occurs
+   */
+  @Test
+  public void testMap() throws Exception {
+    final Path path = Files.createTempFile("csv", ".csv");
+    try {
+      Files.write(path, "a,b\n\"c,d\",\u00e9\n".getBytes(StandardCharsets.UTF_8));
+      try (CsvReader reader = CsvReader.map(path)) {
+        Assert.assertArrayEquals(new String[] { "a", "b" }, reader.readValues());
+        Assert.assertArrayEquals(new String[] { "c,d", "\u00e9" }, reader.readValues());
+        Assert.assertFalse(reader.hasMoreLines());
+      }
+    } finally {
+      Files.delete(path);
+    }
+  }
+
+  /**
+   * Reads a file using windows that are smaller than the values so that the values and the multi-byte characters
+   * straddle the windows
+   *
+   * @throws Exception
+   *           if an error occurs
+   */
+  @Test
+  public void testValuesStraddlingWindows() throws Exception {
+    final StringBuilder csv = new StringBuilder();
+    for (int i = 0; i < 100; i++) {
+      csv.append(i).append(",\"value ").append(i).append(" \u00e9\u20ac\",\\t").append(i).append('\n');
+    }
+
+    final Path path = Files.createTempFile("csv", ".csv");
+    try {
+      Files.write(path, csv.toString().getBytes(StandardCharsets.UTF_8));
+      for (final int windowSize : new int[] { 1, 3, 7, 64 }) {
+        try (FileChannel file = FileChannel.open(path, StandardOpenOption.READ)) {
+          final CsvReader reader = new CsvReader(new ByteCsvReadable(file, windowSize, new CsvReadableParameters()));
+          for (int i = 0; i < 100; i++) {
+            Assert.assertArrayEquals(new String[] { String.valueOf(i), "value " + i + " \u00e9\u20ac", "\t" + i },
+                reader.readValues());
+          }
+          Assert.assertFalse(reader.hasMoreLines());
+        }
+      }
+    } finally {
+      Files.delete(path);
+    }
+  }
+}
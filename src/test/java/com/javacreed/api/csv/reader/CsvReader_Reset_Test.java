@@ -0,0 +1,103 @@
+/*
+ * #%L
+ * JavaCreed CSV API
+ * %%
+ * Copyright (C) 2012 - 2015 Java Creed
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.javacreed.api.csv.reader;
+
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import com.javacreed.api.csv.common.DefaultHeaders;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test the {@link CsvReader#reset(Readable)} method
+ *
+ * @author Albert Attard
+ * @see CsvReader#reset(Readable)
+ * @see CsvReadable#reset(Readable)
+ */
+public class CsvReader_Reset_Test {
+
+  /**
+   * Resets a reader that failed and makes sure that the next document is read
+   */
+  @Test
+  public void testResetAfterFailure() {
+    final CsvReader reader = new CsvReader(new CsvReadable(new StringReader("a,\"b\n")));
+    try {
+      reader.readValues();
+      Assert.fail("Expected an exception");
+    } catch (final CsvReadException e) {}
+
+    reader.reset(new StringReader("c,d\n"));
+    Assert.assertArrayEquals(new String[] { "c", "d" }, reader.readValues());
+    Assert.assertFalse(reader.hasMoreLines());
+  }
+
+  /**
+   * Reads part of a document, resets the reader and makes sure that the unread part of the first document is discarded
+   * and that the headers of the next document are read
+   */
+  @Test
+  public void testResetBeforeTheEnd() {
+    final CsvReadableParameters parameters = new CsvReadableParameters();
+    parameters.setBufferSize(4);
+
+    final CsvReader reader = new CsvReader(new CsvReadable(new StringReader("a,b\n1,2\n3,4\n"), parameters))
+        .readHeaders();
+    Assert.assertEquals("2", reader.readLine().getValue("b"));
+
+    Assert.assertSame(reader, reader.reset(new StringReader("b,c\n5,6\n")));
+    final CsvLine line = reader.readHeaders().readLine();
+    Assert.assertEquals("5", line.getValue("b"));
+    Assert.assertEquals("6", line.getValue("c"));
+    Assert.assertNull(reader.readLine());
+  }
+
+  /**
+   * Resets a reader in the middle of a line and makes sure that the configuration and the headers are kept
+   */
+  @Test
+  public void testResetInTheMiddleOfALine() {
+    final CsvReadable readable = new CsvReadable(new StringReader("a,b,c\n"));
+    readable.beginLine();
+    Assert.assertEquals("a", readable.readValue());
+
+    final CsvReader reader = new CsvReader(readable).headers(new DefaultHeaders("x", "y")).reuseLines();
+    reader.reset(new StringReader("1,2\n3,4\n"));
+    final CsvLine first = reader.readLine();
+    Assert.assertEquals("2", first.getValue("y"));
+    Assert.assertSame(first, reader.readLine());
+    Assert.assertEquals("3", first.getValue("x"));
+    Assert.assertNull(reader.readLine());
+  }
+
+  /**
+   * Readers that do not read from a {@link CsvReadable} cannot be reset
+   */
+  @Test(expected = UnsupportedOperationException.class)
+  public void testUnsupported() {
+    final CsvReader reader = new CsvReader(
+        new ByteCsvReadable(ByteBuffer.wrap("a\n".getBytes(StandardCharsets.UTF_8)), new CsvReadableParameters()));
+    reader.reset(new StringReader("b\n"));
+  }
+}
@@ -0,0 +1,82 @@
+/*
+ * #%L
+ * JavaCreed CSV API
+ * %%
+ * Copyright (C) 2012 - 2015 Java Creed
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.javacreed.api.csv.reader;
+
+import java.io.StringReader;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test the {@link CsvReader#reuseLines()} method
+ *
+ * @author Albert Attard
+ * @see CsvReader#reuseLines()
+ */
+public class CsvReader_ReuseLines_Test {
+
+  private static CsvReader reader(final String csv) {
+    return new CsvReader(new CsvReadable(new StringReader(csv))).reuseLines();
+  }
+
+  /**
+   * Makes sure that the same line is returned with the values of every line
+   */
+  @Test
+  public void testReuseLines() {
+    final CsvReader reader = CsvReader_ReuseLines_Test.reader("a,b,c\n1,2,3\n4,\"5\",6\n").readHeaders().columns("a",
+        "c");
+    final CsvLine first = reader.readLine();
+    Assert.assertEquals("1", first.getValue("a"));
+    Assert.assertNull(first.getValue("b"));
+    Assert.assertEquals(3, first.getInt(2));
+
+    final CsvLine second = reader.readLine();
+    Assert.assertSame(first, second);
+    Assert.assertEquals("4", second.getValue(0));
+    Assert.assertNull(second.getValue(1));
+    Assert.assertEquals("6", second.getValue("c"));
+    Assert.assertNull(reader.readLine());
+  }
+
+  /**
+   * Reads lines without headers, where the size is taken from the first line, and makes sure that longer lines fail
+   */
+  @Test
+  public void testRowSize() {
+    final CsvReader reader = CsvReader_ReuseLines_Test.reader("1,2\n3,4\n5,6,7\n");
+    Assert.assertEquals("2", reader.readLine().getValue(1));
+    Assert.assertEquals("4", reader.readLine().getValue(1));
+    try {
+      reader.readLine();
+      Assert.fail("The row size was not validated");
+    } catch (final CsvReadException e) {
+      Assert.assertEquals("Row size 3 is different from header size 2", e.getMessage());
+    }
+  }
+
+  /**
+   * Makes sure that reused lines cannot be streamed
+   */
+  @Test(expected = IllegalStateException.class)
+  public void testStream() {
+    CsvReader_ReuseLines_Test.reader("1,2\n").stream();
+  }
+}
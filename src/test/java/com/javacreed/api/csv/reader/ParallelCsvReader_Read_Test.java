@@ -0,0 +1,198 @@
+/*
+ * #%L
+ * JavaCreed CSV API
+ * %%
+ * Copyright (C) 2012 - 2015 Java Creed
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.javacreed.api.csv.reader;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Test the {@link ParallelCsvReader#read(CsvLineHandler)} method
+ *
+ * @author Albert Attard
+ * @see ParallelCsvReader#read(CsvLineHandler)
+ */
+public class ParallelCsvReader_Read_Test {
+
+  private static final int[] CHUNK_SIZES = { 1, 7, 100, 64 * 1024 };
+
+  private static Path path;
+
+  private static List<String> expected;
+
+  private static ForkJoinPool pool;
+
+  @AfterClass
+  public static void cleanup() throws Exception {
+    ParallelCsvReader_Read_Test.pool.shutdown();
+    Files.delete(ParallelCsvReader_Read_Test.path);
+  }
+
+  private static String join(final CsvLine line) {
+    return line.getValue(0) + "|" + line.getValue(1) + "|" + line.getValue(2);
+  }
+
+  /**
+   * Creates a file with quoted values that contain line separators, so that the chunks start within quoted values, and
+   * reads it sequentially to obtain the expected lines
+   *
+   * @throws Exception
+   *           if an error occurs
+   */
+  @BeforeClass
+  public static void setup() throws Exception {
+    final StringBuilder csv = new StringBuilder("id,name,notes\n");
+    for (int i = 0; i < 500; i++) {
+      csv.append(i).append(",\"name ").append(i).append(i % 3 == 0 ? "\nsecond line\r\nthird \u20ac\"" : "\"")
+          .append(i % 5 == 0 ? ",say \\\"hi\\\"\\, ok" : ",plain").append(i % 7 == 0 ? "\r\n" : "\n");
+    }
+
+    ParallelCsvReader_Read_Test.path = Files.createTempFile("csv", ".csv");
+    Files.write(ParallelCsvReader_Read_Test.path, csv.toString().getBytes(StandardCharsets.UTF_8));
+    ParallelCsvReader_Read_Test.pool = new ForkJoinPool(4);
+
+    ParallelCsvReader_Read_Test.expected = new ArrayList<>();
+    try (CsvReader reader = CsvReader.map(ParallelCsvReader_Read_Test.path)) {
+      reader.readHeaders();
+      for (CsvLine line; (line = reader.readLine()) != null;) {
+        ParallelCsvReader_Read_Test.expected.add(ParallelCsvReader_Read_Test.join(line));
+      }
+    }
+    Assert.assertEquals(500, ParallelCsvReader_Read_Test.expected.size());
+  }
+
+  /**
+   * Makes sure that invalid input fails the read
+   *
+   * @throws Exception
+   *           if an error occurs
+   */
+  @Test(expected = CsvReadException.class)
+  public void testInvalid() throws Exception {
+    final Path path = Files.createTempFile("csv", ".csv");
+    try {
+      Files.write(path, "a,b\n\"c,d\n".getBytes(StandardCharsets.UTF_8));
+      new ParallelCsvReader(path).chunkSize(2).pool(ParallelCsvReader_Read_Test.pool).read(new CsvLineHandler() {
+        @Override
+        public void handleLine(final CsvLine line) {}
+      });
+    } finally {
+      Files.delete(path);
+    }
+  }
+
+  /**
+   * Reads the lines in order using different chunk sizes
+   */
+  @Test
+  public void testPreserveOrder() {
+    for (final int chunkSize : ParallelCsvReader_Read_Test.CHUNK_SIZES) {
+      final List<String> lines = new ArrayList<>();
+      new ParallelCsvReader(ParallelCsvReader_Read_Test.path).chunkSize(chunkSize)
+          .pool(ParallelCsvReader_Read_Test.pool).readHeaders().preserveOrder().read(new CsvLineHandler() {
+            @Override
+            public void handleLine(final CsvLine line) {
+              Assert.assertEquals(line.getValue(0), line.getValue("id"));
+              lines.add(ParallelCsvReader_Read_Test.join(line));
+            }
+          });
+      Assert.assertEquals(ParallelCsvReader_Read_Test.expected, lines);
+    }
+  }
+
+  /**
+   * Reads ranges that have more lines than these kept in memory by a read ahead, in order, and makes sure that the
+   * reads ahead are stopped, and release the pool, when the handler fails
+   *
+   * @throws Exception
+   *           if an error occurs
+   */
+  @Test(timeout = 60000)
+  public void testPreserveOrderLargeRanges() throws Exception {
+    final int size = 100000;
+    final StringBuilder csv = new StringBuilder();
+    for (int i = 0; i < size; i++) {
+      csv.append(i).append(",value ").append(i).append('\n');
+    }
+
+    final Path path = Files.createTempFile("csv", ".csv");
+    final ForkJoinPool pool = new ForkJoinPool(1);
+    try {
+      Files.write(path, csv.toString().getBytes(StandardCharsets.UTF_8));
+
+      try {
+        new ParallelCsvReader(path).chunkSize(512 * 1024).pool(pool).preserveOrder().read(new CsvLineHandler() {
+          @Override
+          public void handleLine(final CsvLine line) {
+            if (line.getInt(0) == 1000) {
+              throw new IllegalStateException("Failed on purpose");
+            }
+          }
+        });
+        Assert.fail("The failure of the handler was not thrown");
+      } catch (final CsvReadException e) {
+        Assert.assertEquals(IllegalStateException.class, e.getCause().getClass());
+      }
+
+      final int[] next = { 0 };
+      new ParallelCsvReader(path).chunkSize(256 * 1024).pool(pool).preserveOrder().read(new CsvLineHandler() {
+        @Override
+        public void handleLine(final CsvLine line) {
+          Assert.assertEquals(next[0]++, line.getInt(0));
+        }
+      });
+      Assert.assertEquals(size, next[0]);
+    } finally {
+      pool.shutdown();
+      Files.delete(path);
+    }
+  }
+
+  /**
+   * Reads the lines in no particular order using different chunk sizes
+   */
+  @Test
+  public void testUnordered() {
+    for (final int chunkSize : ParallelCsvReader_Read_Test.CHUNK_SIZES) {
+      final List<String> lines = Collections.synchronizedList(new ArrayList<String>());
+      new ParallelCsvReader(ParallelCsvReader_Read_Test.path).chunkSize(chunkSize)
+          .pool(ParallelCsvReader_Read_Test.pool).readHeaders().read(new CsvLineHandler() {
+            @Override
+            public void handleLine(final CsvLine line) {
+              lines.add(ParallelCsvReader_Read_Test.join(line));
+            }
+          });
+
+      final List<String> sorted = new ArrayList<>(ParallelCsvReader_Read_Test.expected);
+      Collections.sort(sorted);
+      Collections.sort(lines);
+      Assert.assertEquals(sorted, lines);
+    }
+  }
+}
@@ -0,0 +1,132 @@
+/*
+ * #%L
+ * JavaCreed CSV API
+ * %%
+ * Copyright (C) 2012 - 2015 Java Creed
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.javacreed.api.csv.reader;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Test the {@link ParallelCsvReader#stream()} and {@link CsvReader#stream()} methods
+ *
+ * @author Albert Attard
+ * @see ParallelCsvReader#stream()
+ * @see CsvReader#stream()
+ */
+public class ParallelCsvReader_Stream_Test {
+
+  private static final Function<CsvLine, String> JOIN = new Function<CsvLine, String>() {
+    @Override
+    public String apply(final CsvLine line) {
+      return line.getValue(0) + "|" + line.getValue(1) + "|" + line.getValue(2);
+    }
+  };
+
+  private static Path path;
+
+  private static List<String> expected;
+
+  @AfterClass
+  public static void cleanup() throws Exception {
+    Files.delete(ParallelCsvReader_Stream_Test.path);
+  }
+
+  /**
+   * Creates a file with quoted values that contain line separators and reads it sequentially to obtain the expected
+   * lines
+   *
+   * @throws Exception
+   *           if an error occurs
+   */
+  @BeforeClass
+  public static void setup() throws Exception {
+    final StringBuilder csv = new StringBuilder("id,name,notes\n");
+    for (int i = 0; i < 5000; i++) {
+      csv.append(i).append(",\"name ").append(i).append(i % 3 == 0 ? "\nsecond line \u20ac\"" : "\"")
+          .append(i % 5 == 0 ? ",say \\\"hi\\\"" : ",plain").append(i % 7 == 0 ? "\r\n" : "\n");
+    }
+
+    ParallelCsvReader_Stream_Test.path = Files.createTempFile("csv", ".csv");
+    Files.write(ParallelCsvReader_Stream_Test.path, csv.toString().getBytes(StandardCharsets.UTF_8));
+
+    ParallelCsvReader_Stream_Test.expected = new ArrayList<>();
+    try (CsvReader reader = CsvReader.map(ParallelCsvReader_Stream_Test.path)) {
+      reader.readHeaders();
+      for (CsvLine line; (line = reader.readLine()) != null;) {
+        ParallelCsvReader_Stream_Test.expected.add(ParallelCsvReader_Stream_Test.JOIN.apply(line));
+      }
+    }
+  }
+
+  /**
+   * Collects the lines of a parallel stream over a reader, which hands off batches of lines, and makes sure these are
+   * in order
+   */
+  @Test
+  public void testCsvReaderStream() {
+    try (Stream<CsvLine> stream = CsvReader.map(ParallelCsvReader_Stream_Test.path).readHeaders().stream()) {
+      Assert.assertEquals(ParallelCsvReader_Stream_Test.expected,
+          stream.parallel().map(ParallelCsvReader_Stream_Test.JOIN).collect(Collectors.toList()));
+    }
+  }
+
+  /**
+   * Splits the file into ranges using different chunk sizes and makes sure that the lines are in order
+   */
+  @Test
+  public void testStream() {
+    for (final int chunkSize : new int[] { 7, 1000, 64 * 1024 }) {
+      try (Stream<CsvLine> stream = new ParallelCsvReader(ParallelCsvReader_Stream_Test.path).chunkSize(chunkSize)
+          .readHeaders().stream()) {
+        Assert.assertEquals(ParallelCsvReader_Stream_Test.expected,
+            stream.parallel().map(ParallelCsvReader_Stream_Test.JOIN).collect(Collectors.toList()));
+      }
+    }
+  }
+
+  /**
+   * Makes sure that the file is split into ranges and that the size is estimated from the file length
+   */
+  @Test
+  public void testSplit() {
+    try (Stream<CsvLine> stream = new ParallelCsvReader(ParallelCsvReader_Stream_Test.path).chunkSize(1000)
+        .readHeaders().stream()) {
+      final Spliterator<CsvLine> suffix = stream.spliterator();
+      final long size = suffix.estimateSize();
+      Assert.assertTrue(size > 1000 && size < 100000);
+
+      final Spliterator<CsvLine> prefix = suffix.trySplit();
+      Assert.assertNotNull(prefix);
+      Assert.assertTrue(prefix.estimateSize() < size);
+      Assert.assertTrue(suffix.estimateSize() < size);
+    }
+  }
+}
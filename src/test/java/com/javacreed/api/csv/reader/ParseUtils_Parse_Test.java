@@ -0,0 +1,108 @@
+/*
+ * #%L
+ * JavaCreed CSV API
+ * %%
+ * Copyright (C) 2012 - 2015 Java Creed
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.javacreed.api.csv.reader;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test the {@link ParseUtils} methods against the parsing methods provided by Java
+ *
+ * @author Albert Attard
+ * @see ParseUtils
+ */
+public class ParseUtils_Parse_Test {
+
+  private static final String[] INVALID = { "", "-", "+", ".", "1-", "1.2.3", "a", "1e", "--1", "0x10" };
+
+  /**
+   * Parses the given value as a long and returns it as a string, or {@code "invalid"} if it is not a valid long
+   */
+  private static String parseLong(final String value, final boolean parseUtils) {
+    try {
+      return String.valueOf(parseUtils ? ParseUtils.parseLong(value) : Long.parseLong(value));
+    } catch (final NumberFormatException e) {
+      return "invalid";
+    }
+  }
+
+  /**
+   * Parses the given value as an integer and returns it as a string, or {@code "invalid"} if it is not a valid integer
+   */
+  private static String parseInt(final String value, final boolean parseUtils) {
+    try {
+      return String.valueOf(parseUtils ? ParseUtils.parseInt(value) : Integer.parseInt(value));
+    } catch (final NumberFormatException e) {
+      return "invalid";
+    }
+  }
+
+  /**
+   * Makes sure that the doubles are parsed to the same value as {@link Double#parseDouble(String)}
+   */
+  @Test
+  public void testParseDouble() {
+    for (final String value : new String[] { "0", "-0", "+1", "1.", ".5", "-0.000", "123.456", "0.1", "0.3",
+        "999999999999999", "9999999999999999", "0.0000000000000000000001", "1e10", "-1.5E-3", "NaN", "-Infinity",
+        "  2.5 ", "1d", "0.1000000000000000055511151231257827", "12345678901234567890" }) {
+      Assert.assertEquals(value, Double.doubleToRawLongBits(Double.parseDouble(value)),
+          Double.doubleToRawLongBits(ParseUtils.parseDouble(value)));
+    }
+
+    final Random random = new Random(7);
+    for (int i = 0; i < 100000; i++) {
+      final String value = (random.nextBoolean() ? "-" : "") + random.nextInt(100000) + "."
+          + String.format("%0" + (1 + random.nextInt(10)) + "d", random.nextInt(1000000000));
+      Assert.assertEquals(value, Double.parseDouble(value), ParseUtils.parseDouble(value), 0);
+    }
+
+    for (final String value : ParseUtils_Parse_Test.INVALID) {
+      try {
+        ParseUtils.parseDouble(value);
+        Assert.fail("Parsed " + value);
+      } catch (final NumberFormatException e) {}
+    }
+  }
+
+  /**
+   * Makes sure that the integers and longs are parsed in the same way as {@link Integer#parseInt(String)} and
+   * {@link Long#parseLong(String)}
+   */
+  @Test
+  public void testParseIntAndLong() {
+    for (final String value : new String[] { "0", "-0", "+7", "2147483647", "-2147483648", "2147483648",
+        "-2147483649", "9223372036854775807", "-9223372036854775808", "9223372036854775808", "-9223372036854775809",
+        "00000000000000000000001" }) {
+      Assert.assertEquals(value, ParseUtils_Parse_Test.parseLong(value, false),
+          ParseUtils_Parse_Test.parseLong(value, true));
+      Assert.assertEquals(value, ParseUtils_Parse_Test.parseInt(value, false),
+          ParseUtils_Parse_Test.parseInt(value, true));
+    }
+
+    for (final String value : ParseUtils_Parse_Test.INVALID) {
+      try {
+        ParseUtils.parseLong(value);
+        Assert.fail("Parsed " + value);
+      } catch (final NumberFormatException e) {}
+    }
+  }
+}
@@ -0,0 +1,232 @@
+/*
+ * #%L
+ * JavaCreed CSV API
+ * %%
+ * Copyright (C) 2012 - 2015 Java Creed
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.javacreed.api.csv.reader;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.CharBuffer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test the {@link ReadAheadReadable#read(CharBuffer)} method
+ *
+ * @author Albert Attard
+ * @see ReadAheadReadable#read(CharBuffer)
+ */
+public class ReadAheadReadable_Read_Test {
+
+  /**
+   * Reads the source, which returns a few characters at a time, through small buffers and makes sure that all
+   * characters are read in order
+   *
+   * @throws Exception
+   *           if an error occurs
+   */
+  @Test
+  public void testRead() throws Exception {
+    final StringBuilder csv = new StringBuilder();
+    for (int i = 0; i < 1000; i++) {
+      csv.append(i).append(",\"value ").append(i).append("\"\n");
+    }
+
+    final StringReader source = new StringReader(csv.toString());
+    final Readable trickle = new Readable() {
+      @Override
+      public int read(final CharBuffer target) throws IOException {
+        final char[] chars = new char[Math.min(target.remaining(), 5)];
+        final int read = source.read(chars);
+        if (read > 0) {
+          target.put(chars, 0, read);
+        }
+        return read;
+      }
+    };
+
+    final ExecutorService executor = Executors.newSingleThreadExecutor();
+    try (ReadAheadReadable in = new ReadAheadReadable(trickle, executor, 3, 7)) {
+      final CsvReader reader = new CsvReader(new CsvReadable(in));
+      for (int i = 0; i < 1000; i++) {
+        final CsvLine line = reader.readLine();
+        Assert.assertEquals(i, line.getInt(0));
+        Assert.assertEquals("value " + i, line.getValue(1));
+      }
+      Assert.assertNull(reader.readLine());
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  /**
+   * Makes sure that the characters read before an error are returned before the error is thrown
+   *
+   * @throws Exception
+   *           if an error occurs
+   */
+  @Test
+  public void testError() throws Exception {
+    final Readable failing = new Readable() {
+      private boolean read;
+
+      @Override
+      public int read(final CharBuffer target) throws IOException {
+        if (read) {
+          throw new IOException("Source failed");
+        }
+        read = true;
+        target.put("a,b\n");
+        return 4;
+      }
+    };
+
+    try (ReadAheadReadable in = new ReadAheadReadable(failing)) {
+      final CsvReader reader = new CsvReader(new CsvReadable(in));
+      Assert.assertEquals("b", reader.readLine().getValue(1));
+      try {
+        reader.readLine();
+        Assert.fail("The error was not thrown");
+      } catch (final CsvReadException e) {
+        Assert.assertEquals("Source failed", e.getCause().getMessage());
+      }
+    }
+  }
+
+  /**
+   * Makes sure that an {@link Error} thrown by the source is thrown by the readable rather than leaving it waiting
+   *
+   * @throws Exception
+   *           if an error occurs
+   */
+  @Test(timeout = 10000)
+  public void testErrorNotException() throws Exception {
+    final Readable failing = new Readable() {
+      @Override
+      public int read(final CharBuffer target) throws IOException {
+        throw new StackOverflowError();
+      }
+    };
+
+    try (ReadAheadReadable in = new ReadAheadReadable(failing)) {
+      in.read(CharBuffer.allocate(16));
+      Assert.fail("The error was not thrown");
+    } catch (final IOException e) {
+      Assert.assertEquals(StackOverflowError.class, e.getCause().getClass());
+    }
+  }
+
+  /**
+   * Reads a source that often has no characters available (and returns 0) and makes sure that the characters that are
+   * available are handed out without waiting for the buffer to fill
+   *
+   * @throws Exception
+   *           if an error occurs
+   */
+  @Test(timeout = 10000)
+  public void testNoCharactersAvailable() throws Exception {
+    final Readable sometimes = new Readable() {
+      private int calls;
+
+      @Override
+      public int read(final CharBuffer target) throws IOException {
+        calls++;
+        if (calls > 300) {
+          return -1;
+        }
+        if (calls % 3 != 0) {
+          return 0;
+        }
+        target.put(calls % 6 == 0 ? "b\n" : "a,");
+        return 2;
+      }
+    };
+
+    try (ReadAheadReadable in = new ReadAheadReadable(sometimes)) {
+      final CsvReader reader = new CsvReader(new CsvReadable(in));
+      for (int i = 0; i < 50; i++) {
+        Assert.assertArrayEquals(new String[] { "a", "b" }, reader.readValues());
+      }
+      Assert.assertFalse(reader.hasMoreLines());
+    }
+  }
+
+  /**
+   * Makes sure that the background thread waits between the reads of a source that has no characters available, rather
+   * than reading it over and over
+   *
+   * @throws Exception
+   *           if an error occurs
+   */
+  @Test
+  public void testIdleSource() throws Exception {
+    final AtomicInteger reads = new AtomicInteger();
+    final Readable idle = new Readable() {
+      @Override
+      public int read(final CharBuffer target) throws IOException {
+        reads.incrementAndGet();
+        return 0;
+      }
+    };
+
+    try (ReadAheadReadable in = new ReadAheadReadable(idle)) {
+      TimeUnit.MILLISECONDS.sleep(500);
+    }
+    Assert.assertTrue("The source was read " + reads.get() + " times", reads.get() < 1000);
+  }
+
+  /**
+   * Makes sure that closing the readable stops the background thread even when the source blocks
+   *
+   * @throws Exception
+   *           if an error occurs
+   */
+  @Test
+  public void testClose() throws Exception {
+    final CountDownLatch reading = new CountDownLatch(1);
+    final CountDownLatch interrupted = new CountDownLatch(1);
+    final Readable blocking = new Readable() {
+      @Override
+      public int read(final CharBuffer target) throws IOException {
+        reading.countDown();
+        try {
+          Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+        } catch (final InterruptedException e) {
+          interrupted.countDown();
+        }
+        return -1;
+      }
+    };
+
+    final ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      final ReadAheadReadable in = new ReadAheadReadable(blocking, executor, 2, 16);
+      Assert.assertTrue(reading.await(10, TimeUnit.SECONDS));
+      in.close();
+      Assert.assertTrue(interrupted.await(10, TimeUnit.SECONDS));
+    } finally {
+      executor.shutdown();
+    }
+  }
+}
@@ -0,0 +1,99 @@
+/*
+ * #%L
+ * JavaCreed CSV API
+ * %%
+ * Copyright (C) 2012 - 2015 Java Creed
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.javacreed.api.csv.reader;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test the {@link ThreadLocalCsvBufferPool#acquire(int)} method
+ *
+ * @author Albert Attard
+ * @see ThreadLocalCsvBufferPool#acquire(int)
+ */
+public class ThreadLocalCsvBufferPool_Acquire_Test {
+
+  /**
+   * Makes sure that the readers created by the same thread share the same buffer and that the buffer is only returned
+   * once to the pool, even when the reader is closed more than once
+   *
+   * @throws IOException
+   *           if an error occurs
+   */
+  @Test
+  public void testReaders() throws IOException {
+    final AtomicInteger released = new AtomicInteger();
+    final CsvBufferPool pool = new ThreadLocalCsvBufferPool() {
+      @Override
+      public void release(final char[] chars) {
+        released.incrementAndGet();
+        super.release(chars);
+      }
+    };
+
+    final char[] chars = pool.acquire(CsvDialect.DEFAULT.getBufferSize());
+    pool.release(chars);
+
+    for (int i = 0; i < 3; i++) {
+      final CsvReadable readable = new CsvReadable(new StringReader("a,b\n"), CsvDialect.DEFAULT, pool);
+      Assert.assertArrayEquals(new String[] { "a", "b" }, new CsvReader(readable).readValues());
+      readable.close();
+      readable.close();
+      Assert.assertSame(chars, pool.acquire(1));
+      pool.release(chars);
+    }
+
+    Assert.assertEquals(7, released.get());
+  }
+
+  /**
+   * Makes sure that an array is reused when it is large enough and that arrays larger than the maximum capacity are not
+   * kept
+   */
+  @Test
+  public void testReuse() {
+    final ThreadLocalCsvBufferPool pool = new ThreadLocalCsvBufferPool(16);
+
+    final char[] small = pool.acquire(8);
+    Assert.assertEquals(8, small.length);
+    pool.release(small);
+    Assert.assertSame(small, pool.acquire(4));
+    Assert.assertNotSame(small, pool.acquire(4));
+    pool.release(small);
+
+    /* A larger array replaces the kept one */
+    final char[] large = pool.acquire(16);
+    Assert.assertNotSame(small, large);
+    pool.release(large);
+    Assert.assertSame(large, pool.acquire(16));
+    pool.release(small);
+    pool.release(large);
+    Assert.assertSame(large, pool.acquire(1));
+
+    /* Arrays larger than the maximum capacity are not kept */
+    pool.release(new char[17]);
+    Assert.assertEquals(16, pool.acquire(16).length);
+    Assert.assertNotSame(large, pool.acquire(16));
+  }
+}
@@ -0,0 +1,171 @@
+/*
+ * #%L
+ * JavaCreed CSV API
+ * %%
+ * Copyright (C) 2012 - 2015 Java Creed
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.javacreed.api.csv.writer;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.javacreed.api.csv.common.ColumnRef;
+import com.javacreed.api.csv.common.DefaultHeaders;
+import com.javacreed.api.csv.common.Headers;
+
+/**
+ * Tests the {@link AbstractCsvLine#setInt(int, int)}, {@link AbstractCsvLine#setLong(int, long)},
+ * {@link AbstractCsvLine#setDouble(int, double)} and {@link AbstractCsvLine#setBoolean(int, boolean)} methods
+ *
+ * @author Albert Attard
+ * @see AbstractCsvLine#setInt(int, int)
+ * @see AbstractCsvLine#setLong(int, long)
+ * @see AbstractCsvLine#setDouble(int, double)
+ * @see AbstractCsvLine#setBoolean(int, boolean)
+ */
+public class AbstractCsvLine_SetPrimitive_Test {
+
+  private static final int[] INTS = { 0, -1, 42, Integer.MIN_VALUE, Integer.MAX_VALUE };
+
+  private static final long[] LONGS = { 0L, -7L, 1234567890123L, Long.MIN_VALUE, Long.MAX_VALUE };
+
+  private static final double[] DOUBLES = { 0.0, -0.0, 0.1, -1.5, 1e-7, 1.0E21, Double.MIN_VALUE, Double.NaN,
+      Double.NEGATIVE_INFINITY };
+
+  /**
+   * Writes the test values using the primitive setters, or boxed using {@link CsvLine#setValue(int, Object)}
+   *
+   * @param formatter
+   *          the formatter
+   * @param buffered
+   *          whether the output is buffered
+   * @param boxed
+   *          whether the values are boxed
+   * @return the written lines
+   */
+  private static String write(final DefaultCsvFormatter formatter, final boolean buffered, final boolean boxed) {
+    final StringBuilder out = new StringBuilder();
+    try (CsvWriter writer = new CsvWriter(out).formatter(formatter)) {
+      if (buffered) {
+        writer.bufferOutput();
+      }
+      writer.headers("int", "long", "double", "boolean");
+
+      final CsvLine line = writer.line();
+      for (int i = 0; i < AbstractCsvLine_SetPrimitive_Test.DOUBLES.length; i++) {
+        final int intValue = AbstractCsvLine_SetPrimitive_Test.INTS[i % AbstractCsvLine_SetPrimitive_Test.INTS.length];
+        final long longValue = AbstractCsvLine_SetPrimitive_Test.LONGS[i
+            % AbstractCsvLine_SetPrimitive_Test.LONGS.length];
+        final double doubleValue = AbstractCsvLine_SetPrimitive_Test.DOUBLES[i];
+        final boolean booleanValue = i % 2 == 0;
+        if (boxed) {
+          line.setValue(0, intValue).setValue(1, longValue).setValue(2, doubleValue).setValue(3, booleanValue);
+        } else {
+          line.setInt(0, intValue).setLong(1, longValue).setDouble(2, doubleValue).setBoolean(3, booleanValue);
+        }
+        line.write();
+      }
+    }
+    return out.toString();
+  }
+
+  /**
+   * Sets the primitive values of a line that only implements the methods of the {@link CsvLine} which do not have a
+   * default, in which case the values are boxed
+   */
+  @Test
+  public void testInterfaceDefaults() {
+    final Headers headers = new DefaultHeaders("a", "b", "c", "d");
+    final Object[] values = new Object[4];
+    final CsvLine line = new CsvLine() {
+      @Override
+      public CsvLine setValue(final int columnIndex, final Object value) {
+        values[columnIndex] = value;
+        return this;
+      }
+
+      @Override
+      public CsvLine setValue(final String columnName, final Object value) {
+        return setValue(headers.indexOf(columnName), value);
+      }
+
+      @Override
+      public void write() throws CsvWriteException {}
+    };
+
+    line.setInt(0, 2).setLong("b", 3L).setDouble(new ColumnRef("C"), 4.5).setBoolean(3, true);
+    Assert.assertArrayEquals(new Object[] { 2, 3L, 4.5, true }, values);
+  }
+
+  /**
+   * Makes sure that the primitive values are written in the same way as the boxed values, whether the output is
+   * buffered or not, when the values are formatted by registered column formatters, when these need to be escaped and
+   * when the formatter overrides {@link DefaultCsvFormatter#formatCellValue(int, Object)} or its column formatter
+   * provider overrides {@link ChainedDataColumnFormatterProvider#find(int, Object)}
+   */
+  @Test
+  public void testSameAsBoxed() {
+    final DefaultCsvFormatter[] formatters = { DefaultCsvFormatter.DEFAULT,
+        new DefaultCsvFormatter.Builder().register(Long.class, new DataColumnFormatter() {
+          @Override
+          public String format(final int columnIndex, final Object value) {
+            return "L" + value;
+          }
+        }).build(), new DefaultCsvFormatter.Builder().valueSeparator(".").build(),
+        new DefaultCsvFormatter(DefaultCsvFormatter.DEFAULT_VALUE_SEPERATOR, DefaultCsvFormatter.DEFAULT_LINE_SEPERATOR,
+            DefaultCsvFormatter.DEFAULT_ESCAPE_CHARACTER, DefaultHeaderColumnFormatter.INSTANCE,
+            new ChainedDataColumnFormatterProvider.Builder().build()) {
+          @Override
+          public CharSequence formatCellValue(final int columnIndex, final Object value) {
+            return "<" + super.formatCellValue(columnIndex, value) + ">";
+          }
+        }, new DefaultCsvFormatter(DefaultCsvFormatter.DEFAULT_VALUE_SEPERATOR,
+            DefaultCsvFormatter.DEFAULT_LINE_SEPERATOR, DefaultCsvFormatter.DEFAULT_ESCAPE_CHARACTER,
+            DefaultHeaderColumnFormatter.INSTANCE, CsvRowPlan_FormatCellValue_Test.negativeInBrackets()) };
+
+    for (final DefaultCsvFormatter formatter : formatters) {
+      final String expected = AbstractCsvLine_SetPrimitive_Test.write(formatter, false, true);
+      Assert.assertEquals(expected, AbstractCsvLine_SetPrimitive_Test.write(formatter, false, false));
+      Assert.assertEquals(expected, AbstractCsvLine_SetPrimitive_Test.write(formatter, true, false));
+    }
+
+    Assert.assertTrue(AbstractCsvLine_SetPrimitive_Test.write(formatters[1], true, false).contains("L-7"));
+    Assert.assertTrue(AbstractCsvLine_SetPrimitive_Test.write(formatters[2], true, false).contains("-1\\.5"));
+    Assert.assertTrue(AbstractCsvLine_SetPrimitive_Test.write(formatters[3], true, false).contains("<-1.5>"));
+    Assert.assertTrue(AbstractCsvLine_SetPrimitive_Test.write(formatters[4], true, false).contains("(1),"));
+  }
+
+  /**
+   * Makes sure that the primitive values are boxed when the values are requested and that these are cleared
+   */
+  @Test
+  public void testValues() {
+    final AbstractCsvLine line = new AbstractCsvLine(new DefaultHeaders("a", "b", "c", "d")) {
+      @Override
+      public void write() throws CsvWriteException {}
+    };
+
+    line.setInt("a", 1).setLong(new ColumnRef("b"), 2L).setDouble(2, 3.5).setBoolean("D", true);
+    Assert.assertArrayEquals(new Object[] { 1, 2L, 3.5, true }, line.getValues());
+
+    line.setInt(0, 4).setValue(0, "x");
+    Assert.assertArrayEquals(new Object[] { "x", 2L, 3.5, true }, line.getValues());
+
+    line.setLong(3, 5L);
+    line.clear();
+    Assert.assertArrayEquals(new Object[4], line.getValues());
+  }
+}
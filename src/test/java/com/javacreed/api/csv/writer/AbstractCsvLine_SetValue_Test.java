@@ -19,10 +19,12 @@
  */
 package com.javacreed.api.csv.writer;
 
+import org.junit.Assert;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
+import com.javacreed.api.csv.common.ColumnRef;
 import com.javacreed.api.csv.common.DefaultHeaders;
 import com.javacreed.api.csv.common.Headers;
 
@@ -46,6 +48,44 @@ public class AbstractCsvLine_SetValue_Test {
   @Rule
   public ExpectedException thrown = ExpectedException.none();
 
+  /**
+   * Sets the value of a column using a handle, which is resolved against the line's headers
+   */
+  @Test
+  public void testColumnRef() {
+    final TestCsvLine line = new TestCsvLine(new DefaultHeaders("a", "b"));
+    line.setValue(new ColumnRef("B"), "value");
+    Assert.assertArrayEquals(new Object[] { null, "value" }, line.getValues());
+  }
+
+  /**
+   * Sets the value of a column using a handle on a line that only implements the methods of the {@link CsvLine} which
+   * do not have a default
+   */
+  @Test
+  public void testInterfaceDefaults() {
+    final Headers headers = new DefaultHeaders("a", "b");
+    final Object[] values = new Object[2];
+    final CsvLine line = new CsvLine() {
+      @Override
+      public CsvLine setValue(final int columnIndex, final Object value) {
+        values[columnIndex] = value;
+        return this;
+      }
+
+      @Override
+      public CsvLine setValue(final String columnName, final Object value) {
+        return setValue(headers.indexOf(columnName), value);
+      }
+
+      @Override
+      public void write() throws CsvWriteException {}
+    };
+
+    line.setValue(new ColumnRef("B"), "x");
+    Assert.assertArrayEquals(new Object[] { null, "x" }, values);
+  }
+
   @Test
   public void testInvalidHeaderIndexLowerBound() {
     thrown.expect(CsvHeadersIndexOutOfBoundsException.class);
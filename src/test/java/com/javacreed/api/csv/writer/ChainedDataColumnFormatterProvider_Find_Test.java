@@ -0,0 +1,98 @@
+/*
+ * #%L
+ * JavaCreed CSV API
+ * %%
+ * Copyright (C) 2012 - 2015 Java Creed
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.javacreed.api.csv.writer;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests the functionality of the {@link ChainedDataColumnFormatterProvider#find(int, Object)} method
+ *
+ * @author Albert Attard
+ * @see ChainedDataColumnFormatterProvider#find(int, Object)
+ */
+public class ChainedDataColumnFormatterProvider_Find_Test {
+
+  /**
+   * Creates a formatter that returns the given text
+   *
+   * @param text
+   *          the text returned by the formatter
+   * @return the formatter
+   */
+  private static DataColumnFormatter formatter(final String text) {
+    return new DataColumnFormatter() {
+      @Override
+      public String format(final int columnIndex, final Object value) {
+        return text;
+      }
+    };
+  }
+
+  /**
+   * Makes sure that the same formatters are returned when these are found more than once, for every column, type and
+   * for {@code null} values
+   */
+  @Test
+  public void testBuiltInProviders() {
+    final DataColumnFormatter charSequenceFormatter = ChainedDataColumnFormatterProvider_Find_Test.formatter("cs");
+    final DataColumnFormatter stringFormatter = ChainedDataColumnFormatterProvider_Find_Test.formatter("s");
+    final DataColumnFormatter numberFormatter = ChainedDataColumnFormatterProvider_Find_Test.formatter("n");
+    final DataColumnFormatter columnFormatter = ChainedDataColumnFormatterProvider_Find_Test.formatter("c");
+    final NullColumnFormatterProvider nullProvider = new NullColumnFormatterProvider("-");
+
+    final DataColumnFormatterProvider provider = new ChainedDataColumnFormatterProvider.Builder()
+        .register(CharSequence.class, charSequenceFormatter).register(String.class, stringFormatter)
+        .register(Number.class, numberFormatter).register(columnFormatter, 2).register(nullProvider).build();
+
+    for (int i = 0; i < 3; i++) {
+      Assert.assertSame(stringFormatter, provider.find(0, "a"));
+      Assert.assertSame(charSequenceFormatter, provider.find(0, new StringBuilder("a")));
+      Assert.assertSame(numberFormatter, provider.find(1, i));
+      Assert.assertSame(numberFormatter, provider.find(1, (long) i));
+      Assert.assertSame(DefaultDataColumnFormatter.INSTANCE, provider.find(1, new Object()));
+      Assert.assertSame(columnFormatter, provider.find(2, "a"));
+      Assert.assertSame(columnFormatter, provider.find(2, i));
+      Assert.assertSame(nullProvider.find(0, null), provider.find(0, null));
+      Assert.assertSame(nullProvider.find(2, null), provider.find(2, null));
+      Assert.assertSame(stringFormatter, provider.find(100000, "a"));
+    }
+  }
+
+  /**
+   * Makes sure that providers which depend on the value, and not just its type, are tried for every value
+   */
+  @Test
+  public void testValueDependentProvider() {
+    final DataColumnFormatter negativeFormatter = ChainedDataColumnFormatterProvider_Find_Test.formatter("neg");
+    final DataColumnFormatterProvider provider = new ChainedDataColumnFormatterProvider.Builder()
+        .register(new AbstractColumnFormatterProvider(0) {
+          @Override
+          public DataColumnFormatter find(final int columnIndex, final Object value) {
+            return value instanceof Integer && (Integer) value < 0 ? negativeFormatter : null;
+          }
+        }).build();
+
+    for (int i = 0; i < 3; i++) {
+      Assert.assertSame(negativeFormatter, provider.find(0, -1));
+      Assert.assertSame(DefaultDataColumnFormatter.INSTANCE, provider.find(0, 1));
+    }
+  }
+}
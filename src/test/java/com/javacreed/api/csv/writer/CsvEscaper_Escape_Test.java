@@ -0,0 +1,82 @@
+/*
+ * #%L
+ * JavaCreed CSV API
+ * %%
+ * Copyright (C) 2012 - 2015 Java Creed
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.javacreed.api.csv.writer;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests the functionality of the {@link CsvEscaper#escape(String)} method
+ *
+ * @author Albert Attard
+ * @see CsvEscaper#escape(String)
+ */
+public class CsvEscaper_Escape_Test {
+
+  /**
+   * Escapes values using a custom escape character and value separator
+   */
+  @Test
+  public void testCustomTokens() {
+    final DefaultCsvFormatter formatter = new DefaultCsvFormatter.Builder().escapeCharacter("~").valueSeparator(";")
+        .build();
+    Assert.assertEquals("a~;b~~c~\\,d~r~n", formatter.formatCellValue(0, "a;b~c\\,d\r\n"));
+  }
+
+  /**
+   * Makes sure that the longest key is replaced when more than one key matches at the same position and that
+   * characters which start a key, but are not followed by the rest of the key, are left as is
+   */
+  @Test
+  public void testLongestKey() {
+    final Map<String, String> toEscape = new HashMap<>();
+    toEscape.put("\r", "<r>");
+    toEscape.put("\r\n", "<rn>");
+    toEscape.put("||", "<sep>");
+    toEscape.put("", "<empty>");
+    final CsvEscaper escaper = new CsvEscaper(toEscape);
+
+    Assert.assertEquals("a<rn>b<r>c<r>", escaper.escape("a\r\nb\rc\r"));
+    Assert.assertEquals("<sep>a<sep>|b|", escaper.escape("||a|||b|"));
+    Assert.assertEquals("<r><rn>", escaper.escape("\r\r\n"));
+  }
+
+  /**
+   * Makes sure that values which do not need to be escaped are returned as is
+   */
+  @Test
+  public void testNothingToEscape() {
+    final CsvEscaper escaper = new CsvEscaper(new HashMap<String, String>());
+    final String value = "plain value";
+    Assert.assertSame(value, escaper.escape(value));
+
+    final Map<String, String> toEscape = new HashMap<>();
+    toEscape.put(",", "\\,");
+    toEscape.put("||", "\\||");
+    final CsvEscaper separators = new CsvEscaper(toEscape);
+    for (final String text : new String[] { "", value, "a|b|", "\u00e9\u20ac" }) {
+      Assert.assertSame(text, separators.escape(text));
+    }
+    Assert.assertEquals("a\\,b\\||c", separators.escape("a,b||c"));
+  }
+}
@@ -0,0 +1,173 @@
+/*
+ * #%L
+ * JavaCreed CSV API
+ * %%
+ * Copyright (C) 2012 - 2015 Java Creed
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.javacreed.api.csv.writer;
+
+import java.util.Collections;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests the functionality of the {@link CsvRowPlan#formatCellValue(int, Object)} method
+ *
+ * @author Albert Attard
+ * @see CsvRowPlan#formatCellValue(int, Object)
+ */
+public class CsvRowPlan_FormatCellValue_Test {
+
+  /**
+   * Creates a subclass of the {@link ChainedDataColumnFormatterProvider} that formats the negative integers within
+   * brackets, such as {@code (7)}, and thus depends on the value
+   *
+   * @return the column formatter provider
+   */
+  static ChainedDataColumnFormatterProvider negativeInBrackets() {
+    final DataColumnFormatter brackets = new DataColumnFormatter() {
+      @Override
+      public String format(final int columnIndex, final Object value) {
+        return "(" + -((Integer) value) + ")";
+      }
+    };
+
+    return new ChainedDataColumnFormatterProvider(DefaultDataColumnFormatter.INSTANCE,
+        Collections.<OrderedDataColumnFormatterProvider> emptyList()) {
+      @Override
+      public DataColumnFormatter find(final int columnIndex, final Object value) {
+        return value instanceof Integer && (Integer) value < 0 ? brackets : super.find(columnIndex, value);
+      }
+    };
+  }
+
+  /**
+   * Creates a formatter that prefixes the values with the given text
+   *
+   * @param prefix
+   *          the prefix
+   * @return the formatter
+   */
+  private static DataColumnFormatter prefix(final String prefix) {
+    return new DataColumnFormatter() {
+      @Override
+      public String format(final int columnIndex, final Object value) {
+        return prefix + value;
+      }
+    };
+  }
+
+  /**
+   * Makes sure that the column formatters are not kept when the formatter is a subclass of the
+   * {@link DefaultCsvFormatter}, as otherwise its {@link DefaultCsvFormatter#formatCellValue(int, Object)} is bypassed
+   */
+  @Test
+  public void testOverridingFormatter() {
+    final DefaultCsvFormatter formatter = new DefaultCsvFormatter(DefaultCsvFormatter.DEFAULT_VALUE_SEPERATOR,
+        DefaultCsvFormatter.DEFAULT_LINE_SEPERATOR, DefaultCsvFormatter.DEFAULT_ESCAPE_CHARACTER,
+        DefaultHeaderColumnFormatter.INSTANCE, new ChainedDataColumnFormatterProvider.Builder().build()) {
+      @Override
+      public CharSequence formatCellValue(final int columnIndex, final Object value) {
+        return "<" + super.formatCellValue(columnIndex, value) + ">";
+      }
+    };
+    Assert.assertTrue(formatter.isTypeDetermined());
+
+    final StringBuilder out = new StringBuilder();
+    try (CsvWriter writer = new CsvWriter(out).formatter(formatter)) {
+      writer.columns(3);
+      for (int line = 0; line < 2; line++) {
+        writer.line().setValue(0, "a").setValue(1, 5).setValue(2, 7);
+        writer.line().write();
+      }
+    }
+    Assert.assertEquals("<a>,<5>,<7>\n<a>,<5>,<7>\n", out.toString());
+  }
+
+  /**
+   * Makes sure that the column formatters are not kept when the column formatter provider is a subclass of the
+   * {@link ChainedDataColumnFormatterProvider}, as its {@link ChainedDataColumnFormatterProvider#find(int, Object)} may
+   * depend on the value
+   */
+  @Test
+  public void testOverridingProvider() {
+    final DefaultCsvFormatter formatter = new DefaultCsvFormatter(DefaultCsvFormatter.DEFAULT_VALUE_SEPERATOR,
+        DefaultCsvFormatter.DEFAULT_LINE_SEPERATOR, DefaultCsvFormatter.DEFAULT_ESCAPE_CHARACTER,
+        DefaultHeaderColumnFormatter.INSTANCE, CsvRowPlan_FormatCellValue_Test.negativeInBrackets());
+    Assert.assertFalse(formatter.isTypeDetermined());
+    Assert.assertEquals("(7)", formatter.formatCellValue(0, -7).toString());
+
+    final StringBuilder out = new StringBuilder();
+    try (CsvWriter writer = new CsvWriter(out).formatter(formatter)) {
+      writer.columns(1);
+      for (final int value : new int[] { 1, -7, 2 }) {
+        writer.line().setValue(0, value);
+        writer.line().write();
+      }
+    }
+    Assert.assertEquals("1\n(7)\n2\n", out.toString());
+  }
+
+  /**
+   * Writes values which type changes from one line to the next and makes sure that every value is formatted by the
+   * column formatter of its type
+   */
+  @Test
+  public void testTypeChanges() {
+    final DefaultCsvFormatter formatter = new DefaultCsvFormatter.Builder()
+        .register(Integer.class, CsvRowPlan_FormatCellValue_Test.prefix("i"))
+        .register(String.class, CsvRowPlan_FormatCellValue_Test.prefix("s"))
+        .register(CsvRowPlan_FormatCellValue_Test.prefix("c"), 2).replaceNullsWith("-").build();
+    Assert.assertTrue(formatter.isTypeDetermined());
+
+    final CsvRowPlan plan = new CsvRowPlan(formatter);
+    final Object[][] lines = { { 1, "a", 2 }, { 3, "b", "x" }, { "4", null, 5 }, { "5", 6, null }, { 7, "c,d", 8 } };
+    final String[][] expected = { { "i1", "sa", "c2" }, { "i3", "sb", "cx" }, { "s4", "-", "c5" }, { "s5", "i6", "-" },
+        { "i7", "sc\\,d", "c8" } };
+    for (int line = 0; line < lines.length; line++) {
+      for (int column = 0; column < lines[line].length; column++) {
+        Assert.assertEquals(expected[line][column], plan.formatCellValue(column, lines[line][column]).toString());
+      }
+    }
+  }
+
+  /**
+   * Makes sure that the column formatters are not kept when the formatter has providers that depend on the value
+   */
+  @Test
+  public void testValueDependentProvider() {
+    final DefaultCsvFormatter formatter = new DefaultCsvFormatter.Builder()
+        .register(new AbstractColumnFormatterProvider(0) {
+          @Override
+          public DataColumnFormatter find(final int columnIndex, final Object value) {
+            return value instanceof Integer && (Integer) value < 0 ? CsvRowPlan_FormatCellValue_Test.prefix("neg")
+                : null;
+          }
+        }).build();
+    Assert.assertFalse(formatter.isTypeDetermined());
+
+    final StringBuilder out = new StringBuilder();
+    try (CsvWriter writer = new CsvWriter(out).formatter(formatter)) {
+      writer.columns(1);
+      for (final int value : new int[] { 1, -1, 2, -2 }) {
+        writer.line().setValue(0, value);
+        writer.line().write();
+      }
+    }
+    Assert.assertEquals("1\nneg-1\n2\nneg-2\n", out.toString());
+  }
+}
@@ -0,0 +1,132 @@
+/*
+ * #%L
+ * JavaCreed CSV API
+ * %%
+ * Copyright (C) 2012 - 2015 Java Creed
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.javacreed.api.csv.writer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests the functionality of the {@link CsvWriter#bufferOutput(int)} method
+ *
+ * @author Albert Attard
+ * @see CsvWriter#bufferOutput(int)
+ */
+public class CsvWriter_BufferOutput_Test {
+
+  /**
+   * An {@link Appendable} which records every block appended to it
+   *
+   * @author Albert Attard
+   */
+  private static class RecordingAppendable implements Appendable {
+
+    private final List<String> blocks = new ArrayList<>();
+
+    @Override
+    public Appendable append(final char c) throws IOException {
+      return append(String.valueOf(c));
+    }
+
+    @Override
+    public Appendable append(final CharSequence csq) throws IOException {
+      blocks.add(csq.toString());
+      return this;
+    }
+
+    @Override
+    public Appendable append(final CharSequence csq, final int start, final int end) throws IOException {
+      return append(csq.subSequence(start, end));
+    }
+  }
+
+  /**
+   * Makes sure that the lines are written in blocks once the buffer reaches the threshold, when flushed and when the
+   * writer is closed
+   */
+  @Test
+  public void testBlocks() {
+    final RecordingAppendable appendable = new RecordingAppendable();
+    try (CsvWriter writer = new CsvWriter(appendable).bufferOutput(8)) {
+      writer.headers("a", "b");
+      Assert.assertTrue(appendable.blocks.isEmpty());
+
+      final CsvLine line = writer.line();
+      line.setValue(0, "c");
+      line.setValue(1, "d");
+      line.write();
+      Assert.assertEquals(1, appendable.blocks.size());
+      Assert.assertEquals("a,b\nc,d\n", appendable.blocks.get(0));
+
+      line.setValue(0, "e");
+      line.setValue(1, "f,g");
+      line.write();
+      writer.flush();
+      Assert.assertEquals(2, appendable.blocks.size());
+      Assert.assertEquals("e,f\\,g\n", appendable.blocks.get(1));
+
+      /* Nothing is written when the buffer is empty */
+      writer.flush();
+      Assert.assertEquals(2, appendable.blocks.size());
+
+      line.setValue(1, "h");
+      line.write();
+    }
+
+    Assert.assertEquals(3, appendable.blocks.size());
+    Assert.assertEquals("{NULL},h\n", appendable.blocks.get(2));
+  }
+
+  /**
+   * Makes sure that a line which fails to be formatted is not written, not even in part
+   */
+  @Test
+  public void testFailedLine() {
+    final DefaultCsvFormatter formatter = new DefaultCsvFormatter.Builder()
+        .register(Integer.class, new DataColumnFormatter() {
+          @Override
+          public String format(final int columnIndex, final Object value) {
+            return null;
+          }
+        }).build();
+
+    final RecordingAppendable appendable = new RecordingAppendable();
+    try (CsvWriter writer = new CsvWriter(appendable).formatter(formatter).bufferOutput()) {
+      writer.columns(2);
+      final CsvLine line = writer.line();
+      line.setValue(0, "a");
+      line.setValue(1, 1);
+      try {
+        line.write();
+        Assert.fail("An exception was expected to be thrown");
+      } catch (final CsvConfigurationException e) {}
+
+      line.setValue(0, "b");
+      line.setValue(1, "c");
+      line.write();
+    }
+
+    Assert.assertEquals(1, appendable.blocks.size());
+    Assert.assertEquals("b,c\n", appendable.blocks.get(0));
+  }
+}